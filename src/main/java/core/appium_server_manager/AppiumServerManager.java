@@ -10,22 +10,39 @@ import java.util.concurrent.TimeUnit;
 
 public class AppiumServerManager {
     AppiumDriverLocalService service;
-    AppiumServiceBuilder builder;
     private static Logger logger = Logger.getLogger(AppiumServerManager.class);
 
+    /**
+     * Leases a running server from the shared {@link AppiumServerPool}, which other sessions may use
+     * at the same time. {@link #stopAppiumServer()} gives up this session's share, the server itself
+     * is only stopped on JVM exit.
+     */
     public URL startAppiumServer() {
         URL url;
-        builder = new AppiumServiceBuilder();
+        service = AppiumServerPool.getInstance().lease();
+        url = service.getUrl();
+        logger.info("Server URL is : "+url.toString());
+        return url;
+    }
+
+    public void stopAppiumServer() {
+        if (service != null) {
+            AppiumServerPool.getInstance().release(service);
+            service = null;
+        }
+    }
+
+    AppiumDriverLocalService buildAndStartService() {
+        //local, the pool may start several servers at once
+        AppiumServiceBuilder builder = new AppiumServiceBuilder();
         builder.withIPAddress("127.0.0.1");
         builder.usingAnyFreePort();
         builder.withStartUpTimeOut(20000, TimeUnit.MILLISECONDS);
         builder.withArgument(GeneralServerFlag.LOG_LEVEL, "debug");
         builder.withArgument(GeneralServerFlag.ALLOW_INSECURE,"adb_shell,chromedriver_autodownload"); //Specify a list of features which will never be allowed to run, even if --relaxed-security
         //builder.withArgument(GeneralServerFlag.ALLOW_INSECURE,);
-        service = AppiumDriverLocalService.buildService(builder);
-        service.start();
-        url = service.getUrl();
-        logger.info("Server URL is : "+url.toString());
-        return url;
+        AppiumDriverLocalService newService = AppiumDriverLocalService.buildService(builder);
+        newService.start();
+        return newService;
     }
 }
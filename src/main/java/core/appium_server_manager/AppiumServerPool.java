@@ -0,0 +1,221 @@
+package core.appium_server_manager;
+
+import core.utils.ProcessSupervisor;
+import io.appium.java_client.service.local.AppiumDriverLocalService;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps up to {@code appium.server.pool.size} (default 1) Appium servers alive for the whole JVM and
+ * shares them between sessions, so a test class no longer pays the node startup on every driver.
+ * An Appium server hosts many sessions at once, so a lease is not exclusive: it goes to the server
+ * with the fewest sessions, and another server is only started once every running one has
+ * {@code appium.server.sessions.per.server} (default 4) sessions. Servers are started lazily,
+ * health checked on every lease and stopped from a shutdown hook.
+ */
+public class AppiumServerPool {
+
+    private static final int POOL_SIZE = Integer.getInteger("appium.server.pool.size", 1);
+    private static final int SESSIONS_PER_SERVER = Integer.getInteger("appium.server.sessions.per.server", 4);
+    private static Logger logger = Logger.getLogger(AppiumServerPool.class);
+    private static AppiumServerPool instance;
+
+    private final AppiumServerManager serverManager = new AppiumServerManager();
+    //in start order
+    private final List<Server> servers = new ArrayList<>();
+
+    private final AtomicLong serversStarted = new AtomicLong();
+    private final AtomicLong totalStartupTimeMs = new AtomicLong();
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong totalLeaseWaitMs = new AtomicLong();
+    private final AtomicLong maxLeaseWaitMs = new AtomicLong();
+    private final AtomicInteger maxSessionsPerServer = new AtomicInteger();
+    private volatile boolean shutdown = false;
+
+    private AppiumServerPool() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "appium-server-pool-shutdown"));
+    }
+
+    public static synchronized AppiumServerPool getInstance() {
+        if (instance == null) {
+            instance = new AppiumServerPool();
+        }
+        return instance;
+    }
+
+    /**
+     * A running server for one more session. Each lease must be matched by a {@link #release}.
+     * The session slot is reserved under the pool lock; starting or restarting a server happens
+     * outside it, and leases that picked a server still starting wait for that server only.
+     */
+    public AppiumDriverLocalService lease() {
+        long start = System.currentTimeMillis();
+        Server server;
+        CompletableFuture<AppiumDriverLocalService> service;
+        boolean starter;
+        synchronized (this) {
+            if (shutdown) {
+                throw new IllegalStateException("Appium server pool is shut down");
+            }
+            server = leastLoadedServer();
+            starter = server == null || (server.sessions >= SESSIONS_PER_SERVER && servers.size() < POOL_SIZE);
+            if (starter) {
+                server = new Server();
+                servers.add(server);
+            }
+            server.sessions++;
+            maxSessionsPerServer.accumulateAndGet(server.sessions, Math::max);
+            service = server.service;
+        }
+        try {
+            AppiumDriverLocalService healthy = awaitHealthy(server, service, starter);
+            recordLeaseWait(System.currentTimeMillis() - start);
+            return healthy;
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                server.sessions--;
+            }
+            throw e;
+        }
+    }
+
+    public synchronized void release(AppiumDriverLocalService service) {
+        if (shutdown) {
+            return;
+        }
+        for (Server server : servers) {
+            if (server.service.getNow(null) == service) {
+                server.sessions = Math.max(0, server.sessions - 1);
+                return;
+            }
+        }
+    }
+
+    public synchronized void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        for (Server server : servers) {
+            AppiumDriverLocalService service = server.service.getNow(null);
+            if (service == null) {
+                continue;
+            }
+            try {
+                service.stop();
+            } catch (Exception e) {
+                logger.warn("Failed to stop Appium server " + service.getUrl() + " : " + e.getMessage());
+            }
+        }
+        logger.info(getStats());
+        servers.clear();
+    }
+
+    public String getStats() {
+        long started = serversStarted.get();
+        long leaseCount = leases.get();
+        return "Appium server pool: servers started=" + started
+                + ", avg startup ms=" + (started == 0 ? 0 : totalStartupTimeMs.get() / started)
+                + ", leases=" + leaseCount
+                + ", avg lease wait ms=" + (leaseCount == 0 ? 0 : totalLeaseWaitMs.get() / leaseCount)
+                + ", max lease wait ms=" + maxLeaseWaitMs.get()
+                + ", max sessions per server=" + maxSessionsPerServer.get();
+    }
+
+    private Server leastLoadedServer() {
+        Server leastLoaded = null;
+        for (Server server : servers) {
+            if (leastLoaded == null || server.sessions < leastLoaded.sessions) {
+                leastLoaded = server;
+            }
+        }
+        return leastLoaded;
+    }
+
+    /**
+     * Starts the server if this lease reserved a new one, waits until it is up and restarts it if
+     * it died. Its sessions died with it, their slots stay with the replacement only to keep the
+     * later releases balanced.
+     */
+    private AppiumDriverLocalService awaitHealthy(Server server, CompletableFuture<AppiumDriverLocalService> service,
+                                                  boolean starter) {
+        while (true) {
+            if (starter) {
+                start(server, service);
+            }
+            AppiumDriverLocalService running;
+            try {
+                running = service.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                        : new RuntimeException(e.getCause());
+            }
+            if (running.isRunning()) {
+                return running;
+            }
+            synchronized (this) {
+                //the first lease to see the dead server restarts it, the others wait for that
+                starter = server.service == service;
+                if (starter) {
+                    logger.warn("Appium server " + running.getUrl() + " failed health check, restarting it");
+                    server.service = new CompletableFuture<>();
+                }
+                service = server.service;
+            }
+            if (starter) {
+                try {
+                    running.stop();
+                } catch (Exception e) {
+                    logger.debug("Stopping unhealthy server failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void start(Server server, CompletableFuture<AppiumDriverLocalService> service) {
+        try {
+            service.complete(startServer());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                //the next lease starts a new server instead of waiting on this failure
+                servers.remove(server);
+            }
+            service.completeExceptionally(e);
+        }
+    }
+
+    private AppiumDriverLocalService startServer() {
+        long start = System.currentTimeMillis();
+        Set<Long> children = ProcessSupervisor.childPids();
+        AppiumDriverLocalService service = serverManager.buildAndStartService();
+        String port = String.valueOf(service.getUrl().getPort());
+        //only the node process listening on this server's port, where the OS reports arguments
+        ProcessSupervisor.getInstance().trackNewChildren(children, child -> child.info().arguments()
+                .map(arguments -> Arrays.asList(arguments).contains(port)).orElse(true), "appium");
+        long startupTime = System.currentTimeMillis() - start;
+        serversStarted.incrementAndGet();
+        totalStartupTimeMs.addAndGet(startupTime);
+        logger.info("Started Appium server " + service.getUrl() + " in " + startupTime + " ms");
+        return service;
+    }
+
+    private void recordLeaseWait(long waitMs) {
+        leases.incrementAndGet();
+        totalLeaseWaitMs.addAndGet(waitMs);
+        maxLeaseWaitMs.accumulateAndGet(waitMs, Math::max);
+        logger.debug("Appium server leased after " + waitMs + " ms");
+    }
+
+    private static class Server {
+        private CompletableFuture<AppiumDriverLocalService> service = new CompletableFuture<>();
+        private int sessions;
+    }
+}
@@ -0,0 +1,52 @@
+package core.device_manager;
+
+import core.utils.AdbClient;
+import core.utils.CommandUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists devices and emulators reported as {@code device} by the adb server. Falls back to
+ * {@code adb devices}, which also starts the server, when nothing listens on the adb port.
+ */
+public class AdbDeviceBackend implements DeviceBackend {
+
+    private static Logger logger = Logger.getLogger(AdbDeviceBackend.class);
+    private final CommandUtils commandUtils = new CommandUtils();
+    private final AdbClient adbClient = new AdbClient();
+
+    @Override
+    public List<String> listDevices() {
+        try {
+            List<String> devices = new ArrayList<>();
+            adbClient.devices().forEach((serial, state) -> {
+                if (state.equals("device")) {
+                    devices.add(serial);
+                }
+            });
+            return devices;
+        } catch (IOException e) {
+            logger.debug("adb server not reachable, running adb devices : " + e.getMessage());
+        }
+        try {
+            return parseDevices(commandUtils.executeCommand("adb devices"));
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    static List<String> parseDevices(String output) {
+        List<String> devices = new ArrayList<>();
+        for (String line : output.split("\n")) {
+            String[] columns = line.trim().split("\\s+");
+            if (columns.length >= 2 && columns[1].equals("device")) {
+                devices.add(columns[0]);
+            }
+        }
+        return devices;
+    }
+}
@@ -0,0 +1,224 @@
+package core.device_manager;
+
+import core.driver_manager.DriverHolder;
+import core.utils.ProcessSupervisor;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One long-lived {@code adb shell} per device that runs many commands over the same pipe, instead
+ * of forking {@code adb} or going through {@code mobile: shell} for every query.
+ * <p>
+ * Each command is followed by an echo of a session unique sentinel and its exit status, and its
+ * response is the output read up to that sentinel. Commands from concurrent threads run back to
+ * back on the one shell. A shell that dies is restarted and the command retried once; a command
+ * that runs past its timeout kills the shell, the next command starts a fresh one.
+ */
+public class AdbShellSession implements AutoCloseable {
+
+    public static final long DEFAULT_TIMEOUT_MS = Long.getLong("adb.shell.timeout.ms", 30000);
+    private static final String END_OF_STREAM = new String("end of stream");
+    private static Logger logger = Logger.getLogger(AdbShellSession.class);
+    private static final Map<String, AdbShellSession> sessions = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(AdbShellSession::closeAll, "adb-shell-shutdown"));
+    }
+
+    private final String name;
+    private final List<String> command;
+    private final String sentinel = "__ADB_SHELL_END_" + UUID.randomUUID().toString().replace("-", "") + "_";
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong totalMs = new AtomicLong();
+    private Process process;
+    private boolean started;
+    private OutputStream stdin;
+    private BlockingQueue<String> lines;
+
+    AdbShellSession(String name, List<String> command) {
+        this.name = name;
+        this.command = new ArrayList<>(command);
+    }
+
+    /**
+     * The shared session of a device, see {@link DriverHolder#deviceKey(String)}.
+     */
+    public static AdbShellSession forDevice(String device) {
+        return sessions.computeIfAbsent(DriverHolder.deviceKey(device), key -> new AdbShellSession(
+                key.isEmpty() ? "adb" : key,
+                key.isEmpty() ? Arrays.asList("adb", "shell") : Arrays.asList("adb", "-s", key, "shell")));
+    }
+
+    public static void closeAll() {
+        for (AdbShellSession session : sessions.values()) {
+            session.close();
+        }
+        sessions.clear();
+    }
+
+    public Response execute(String shellCommand) {
+        return execute(shellCommand, DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * Runs a command line in the device shell, stdin is /dev/null and stderr goes to the output.
+     *
+     * @throws RuntimeException if the shell can not be started or the command runs past the timeout
+     */
+    public synchronized Response execute(String shellCommand, long timeoutMs) {
+        long start = System.currentTimeMillis();
+        Response response;
+        try {
+            response = send(shellCommand, start + timeoutMs);
+        } catch (IOException e) {
+            logger.warn("adb shell of " + name + " failed, reconnecting : " + e.getMessage());
+            destroy();
+            try {
+                response = send(shellCommand, start + timeoutMs);
+            } catch (IOException retryFailure) {
+                destroy();
+                throw new RuntimeException("adb shell of " + name + " failed : " + shellCommand, retryFailure);
+            }
+        }
+        commands.incrementAndGet();
+        totalMs.addAndGet(System.currentTimeMillis() - start);
+        return response;
+    }
+
+    private Response send(String shellCommand, long deadline) throws IOException {
+        if (process == null || !process.isAlive()) {
+            connect();
+        }
+        String commandSentinel = sentinel + commands.get() + ":";
+        String line = "{ " + shellCommand + "\n} </dev/null 2>&1; echo \"" + commandSentinel + "$?\"\n";
+        stdin.write(line.getBytes(StandardCharsets.UTF_8));
+        stdin.flush();
+
+        StringBuilder output = new StringBuilder();
+        while (true) {
+            String next;
+            try {
+                next = lines.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                destroy();
+                throw new RuntimeException("interrupted while running " + shellCommand + " on " + name, e);
+            }
+            if (next == null) {
+                destroy();
+                throw new RuntimeException("adb shell command timed out on " + name + " : " + shellCommand);
+            }
+            if (next == END_OF_STREAM) {
+                throw new IOException("shell exited");
+            }
+            int index = next.indexOf(commandSentinel);
+            if (index < 0) {
+                output.append(next).append('\n');
+            } else {
+                output.append(next, 0, index);
+                return new Response(output.toString(),
+                        Integer.parseInt(next.substring(index + commandSentinel.length()).trim()));
+            }
+        }
+    }
+
+    private void connect() throws IOException {
+        destroy();
+        if (started) {
+            reconnects.incrementAndGet();
+        }
+        started = true;
+        process = ProcessSupervisor.getInstance().track(
+                new ProcessBuilder(command).redirectErrorStream(true).start(), "adb-shell");
+        stdin = process.getOutputStream();
+        BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+        lines = queue;
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        Thread readerThread = new Thread(() -> {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    queue.add(line);
+                }
+            } catch (IOException e) {
+                logger.debug(e.getMessage());
+            } finally {
+                queue.add(END_OF_STREAM);
+            }
+        }, "adb-shell-" + name);
+        readerThread.setDaemon(true);
+        readerThread.start();
+        logger.debug("started adb shell on " + name);
+    }
+
+    private void destroy() {
+        if (process != null) {
+            ProcessSupervisor.getInstance().killTree(process);
+            process = null;
+        }
+    }
+
+    public long getCommandCount() {
+        return commands.get();
+    }
+
+    public long getReconnectCount() {
+        return reconnects.get();
+    }
+
+    public String getStats() {
+        long count = commands.get();
+        return "adb shell " + name + ": commands=" + count + ", reconnects=" + reconnects.get()
+                + ", avg ms=" + (count == 0 ? 0 : totalMs.get() / count);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (process != null) {
+            logger.info(getStats());
+        }
+        destroy();
+    }
+
+    public static class Response {
+        private final String output;
+        private final int exitCode;
+
+        Response(String output, int exitCode) {
+            this.output = output;
+            this.exitCode = exitCode;
+        }
+
+        /**
+         * Stdout and stderr of the command, every line ending in a newline except an unterminated last one.
+         */
+        public String getOutput() {
+            return output;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public boolean isSuccess() {
+            return exitCode == 0;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package core.device_manager;
+
+import java.util.List;
+
+/**
+ * Source of attached device serials for {@link DeviceRegistry}.
+ */
+public interface DeviceBackend {
+
+    List<String> listDevices();
+}
@@ -0,0 +1,177 @@
+package core.device_manager;
+
+import core.driver_manager.DriverHolder;
+import io.appium.java_client.AppiumDriver;
+import org.apache.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per device cache of properties that are expensive to query and rarely change: app version names,
+ * app pids, the orientation and the window size. Entries expire after a TTL
+ * ({@code device.property.ttl.ms}, pids {@code device.property.pid.ttl.ms}, the orientation
+ * {@code device.property.orientation.ttl.ms} as the app may rotate itself) and are invalidated by
+ * the events that change them, see {@link #onAppRestart}, {@link #onAppInstall} and {@link #onRotation}.
+ * Concurrent sessions on a device share its cache, and concurrent misses on a key load it once.
+ */
+public class DevicePropertyCache {
+
+    public static final long DEFAULT_TTL_MS = Long.getLong("device.property.ttl.ms", 300000);
+    public static final long PID_TTL_MS = Long.getLong("device.property.pid.ttl.ms", 30000);
+    public static final long ORIENTATION_TTL_MS = Long.getLong("device.property.orientation.ttl.ms", 5000);
+    public static final String ORIENTATION = "orientation";
+    private static Logger logger = Logger.getLogger(DevicePropertyCache.class);
+    private static final Map<String, DevicePropertyCache> caches = new ConcurrentHashMap<>();
+
+    private final String device;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Object> loadLocks = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private DevicePropertyCache(String device) {
+        this.device = device;
+    }
+
+    /**
+     * The cache of a device, see {@link DriverHolder#deviceKey(String)}.
+     */
+    public static DevicePropertyCache forDevice(String device) {
+        return caches.computeIfAbsent(DriverHolder.deviceKey(device), DevicePropertyCache::new);
+    }
+
+    public static DevicePropertyCache forDriver(AppiumDriver driver) {
+        return forDevice(DriverHolder.getDeviceSerial(driver));
+    }
+
+    public static String versionNameKey(String appPackage) {
+        return "versionName:" + appPackage;
+    }
+
+    /**
+     * versionName of an installed package, null if it is not installed. The one loader of
+     * {@link #versionNameKey(String)}, so every caller caches the same value.
+     */
+    public String getVersionName(String appPackage) {
+        return get(versionNameKey(appPackage), () -> parseVersionName(AdbShellSession.forDevice(device)
+                .execute("dumpsys package " + appPackage + " | grep versionName").getOutput()));
+    }
+
+    /**
+     * The first versionName of {@code dumpsys package}, which lists one per installed version.
+     */
+    static String parseVersionName(String dumpsys) {
+        String output = dumpsys.trim();
+        int index = output.indexOf('=');
+        return index < 0 ? null : output.substring(index + 1).split("\\s")[0];
+    }
+
+    public static String pidKey(String appPackage) {
+        return "pid:" + appPackage;
+    }
+
+    public static String windowSizeKey(Object orientation) {
+        return "windowSize:" + orientation;
+    }
+
+    public <T> T get(String key, Supplier<T> loader) {
+        return get(key, DEFAULT_TTL_MS, loader);
+    }
+
+    /**
+     * The cached value, or the loader's value if there is none or it expired. Null values are not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, long ttlMs, Supplier<T> loader) {
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isExpired()) {
+            hits.incrementAndGet();
+            return (T) entry.value;
+        }
+        synchronized (loadLocks.computeIfAbsent(key, k -> new Object())) {
+            entry = entries.get(key);
+            if (entry != null && !entry.isExpired()) {
+                hits.incrementAndGet();
+                return (T) entry.value;
+            }
+            misses.incrementAndGet();
+            T value = loader.get();
+            if (value != null) {
+                entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMs));
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Stores a value known without asking the device, e.g. the orientation just rotated to.
+     */
+    public void put(String key, Object value, long ttlMs) {
+        entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMs));
+    }
+
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * The app got a new process and may have come up in another orientation.
+     */
+    public void onAppRestart(String appPackage) {
+        logger.debug(appPackage + " restarted on " + device + ", dropping its pid and the orientation");
+        invalidate(pidKey(appPackage));
+        invalidate(ORIENTATION);
+    }
+
+    public void onAppInstall(String appPackage) {
+        invalidate(pidKey(appPackage));
+        invalidate(versionNameKey(appPackage));
+    }
+
+    public void onRotation(Object orientation) {
+        put(ORIENTATION, orientation, ORIENTATION_TTL_MS);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public String getStats() {
+        long total = hits.get() + misses.get();
+        return "Device properties " + (device.isEmpty() ? "default" : device) + ": hits=" + hits.get()
+                + ", misses=" + misses.get() + ", hit rate=" + (total == 0 ? 0 : hits.get() * 100 / total) + "%";
+    }
+
+    public static String getAllStats() {
+        StringBuilder summary = new StringBuilder();
+        for (DevicePropertyCache cache : caches.values()) {
+            summary.append(summary.length() == 0 ? "" : "; ").append(cache.getStats());
+        }
+        return summary.toString();
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long expiresAt;
+
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
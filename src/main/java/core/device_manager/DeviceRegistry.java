@@ -0,0 +1,129 @@
+package core.device_manager;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hands out attached devices exclusively, one per test thread. When every known device is leased
+ * the caller waits for a release, re-discovering devices from the backend while waiting.
+ */
+public class DeviceRegistry {
+
+    private static final long LEASE_TIMEOUT_MS = Long.getLong("device.lease.timeout.ms", 600000);
+    private static final long DISCOVERY_INTERVAL_MS = 2000;
+    private static Logger logger = Logger.getLogger(DeviceRegistry.class);
+    private static DeviceRegistry instance;
+
+    private final DeviceBackend backend;
+    private final Set<String> knownDevices = new LinkedHashSet<>();
+    private final Set<String> leasedDevices = new HashSet<>();
+    private long lastDiscoveryAt;
+    private boolean discovering;
+
+    public DeviceRegistry(DeviceBackend backend) {
+        this.backend = backend;
+    }
+
+    public static synchronized DeviceRegistry getInstance() {
+        if (instance == null) {
+            instance = new DeviceRegistry(new AdbDeviceBackend());
+        }
+        return instance;
+    }
+
+    /**
+     * Re-discovers devices. The backend runs {@code adb devices}, which is called outside the lock
+     * so leases and releases on other threads are not held up by it. Waiting threads are only woken
+     * when the devices changed.
+     */
+    public List<String> refresh() {
+        Set<String> devices = new LinkedHashSet<>(backend.listDevices());
+        synchronized (this) {
+            lastDiscoveryAt = System.currentTimeMillis();
+            if (!devices.equals(knownDevices)) {
+                knownDevices.clear();
+                knownDevices.addAll(devices);
+                logger.info("Discovered devices: " + knownDevices);
+                notifyAll();
+            }
+            return new ArrayList<>(knownDevices);
+        }
+    }
+
+    public String leaseDevice() {
+        return leaseDevice(LEASE_TIMEOUT_MS);
+    }
+
+    /**
+     * Leases a free device, waiting for a release if there is none. While threads wait, one of them
+     * re-discovers devices at most every {@code DISCOVERY_INTERVAL_MS}.
+     */
+    public String leaseDevice(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            synchronized (this) {
+                String device = leaseFreeDevice();
+                if (device != null) {
+                    return device;
+                }
+                long now = System.currentTimeMillis();
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    throw new RuntimeException("No free device within " + timeoutMs + " ms, leased: " + leasedDevices);
+                }
+                long sinceDiscovery = now - lastDiscoveryAt;
+                if (discovering || sinceDiscovery < DISCOVERY_INTERVAL_MS) {
+                    long untilDiscovery = discovering ? DISCOVERY_INTERVAL_MS : DISCOVERY_INTERVAL_MS - sinceDiscovery;
+                    try {
+                        wait(Math.min(remaining, untilDiscovery));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    }
+                    continue;
+                }
+                discovering = true;
+            }
+            try {
+                refresh();
+            } finally {
+                synchronized (this) {
+                    discovering = false;
+                }
+            }
+        }
+    }
+
+    private String leaseFreeDevice() {
+        for (String device : knownDevices) {
+            if (!leasedDevices.contains(device)) {
+                leasedDevices.add(device);
+                logger.info("Leased device " + device + " to " + Thread.currentThread().getName());
+                return device;
+            }
+        }
+        return null;
+    }
+
+    public synchronized void releaseDevice(String device) {
+        if (leasedDevices.remove(device)) {
+            logger.info("Released device " + device);
+            notifyAll();
+        }
+    }
+
+    public synchronized int getFreeDeviceCount() {
+        int free = 0;
+        for (String device : knownDevices) {
+            if (!leasedDevices.contains(device)) {
+                free++;
+            }
+        }
+        return free;
+    }
+}
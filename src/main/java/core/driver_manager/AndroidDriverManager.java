@@ -2,6 +2,13 @@ package core.driver_manager;
 
 import core.appium_server_manager.AppiumServerManager;
 import core.constants.Constants;
+import core.device_manager.DevicePropertyCache;
+import core.device_manager.DeviceRegistry;
+import core.logcat.CrashDetector;
+import core.page_factory.ElementCache;
+import core.port_manager.PortAllocator;
+import core.port_manager.PortLease;
+import core.utils.LogcatCollector;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.remote.MobileCapabilityType;
@@ -10,54 +17,177 @@ import org.openqa.selenium.remote.DesiredCapabilities;
 
 import java.io.File;
 import java.net.URL;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 public class AndroidDriverManager {
 
+    private static final int SESSION_POOL_MIN = Integer.getInteger("session.pool.min", 1);
+    private static final int SESSION_POOL_MAX = Integer.getInteger("session.pool.max", 1);
+    private static final long SESSION_POOL_IDLE_TIMEOUT_MS = Long.getLong("session.pool.idle.timeout.ms", 240000);
+    private static final Map<String, SessionPool<AppiumDriver>> sessionPools = new ConcurrentHashMap<>();
+
     private DesiredCapabilities capabilities;
     private AppiumServerManager appiumServerManager = new AppiumServerManager();
+    private AppInstaller appInstaller = new AppInstaller();
+    private PortLease portLease;
+    private SessionPool<AppiumDriver> sessionPool;
     AppiumDriver appiumDriver = null;
     private static Logger logger = Logger.getLogger(AndroidDriverManager.class);
 
     String appPackage = Constants.PACKAGE_NAME.DEBUG_PACKAGE.getPackageName();
+    String deviceName;
+    private Thread ownerThread;
 
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> sessionPools.values().forEach(SessionPool::close),
+                "session-pool-shutdown"));
+    }
 
+    /**
+     * Leases a free device and a warm session for the app on it, and binds both to the calling thread
+     * in {@link DriverHolder}.
+     */
     public AppiumDriver getDriver(String appName){
-        capabilities = new DesiredCapabilities();
-        if(appName.toLowerCase().contains("zoomcar")) {
-            String path = System.getProperty("user.dir")+"/src/main/resources/app-debug.apk";
-            File apk = new File(path);
-            capabilities.setCapability("app",apk.getAbsolutePath());
-            capabilities.setCapability("platformName", "android");
-            capabilities.setCapability("deviceName", "emulator-5554");
-           // capabilities.setCapability("platformVersion", baseConfig.getDevice().getOsVersion());
-            capabilities.setCapability("appPackage", appPackage);
-            capabilities.setCapability("appActivity", "com.zoomcar.activity.SplashActivity");
-            capabilities.setCapability("newCommandTimeout", 500); //seconds Appium will wait for a new command from the client before assuming the client quit and ending the session
-            //	Enable Unicode input, default
-            capabilities.setCapability("unicodeKeyboard", true);
-            //Reset keyboard to its original state, after running Unicode tests with unicodeKeyboard capability. Ignored if used alone. Default false
-            capabilities.setCapability("resetKeyboard", true);
-            capabilities.setCapability("automationName", "UiAutomator2");
-            capabilities.setCapability("systemPort", 8200 + new Random().nextInt(20));
-            capabilities.merge(extraCapabilities());
-            logger.info("Capabilities are set");
-            logger.info(capabilities.toJson());
-        }else{
-            logger.info("App name is not correct");
+        deviceName = DeviceRegistry.getInstance().leaseDevice();
+        try {
+            sessionPool = sessionPools.computeIfAbsent(appName.toLowerCase() + "@" + deviceName,
+                    key -> createSessionPool(key, appName, deviceName));
+            appiumDriver = sessionPool.lease();
+        } catch (RuntimeException e) {
+            DeviceRegistry.getInstance().releaseDevice(deviceName);
+            deviceName = null;
+            throw e;
         }
+        ownerThread = Thread.currentThread();
+        DriverHolder.setDriver(appiumDriver, deviceName);
+        logger.info("Appium driver initiated on " + deviceName);
+        return appiumDriver;
+    }
+
+    /**
+     * Hands the session back to the pool where it is reset for the next lease, and frees the device.
+     */
+    public void quitDriver() {
         try {
-            URL url = appiumServerManager.startAppiumServer();
-            appiumDriver = new AndroidDriver(url, capabilities);
+            if (appiumDriver != null && sessionPool != null) {
+                sessionPool.release(appiumDriver);
+                logger.info(sessionPool.getStats());
+                logger.info(ElementCache.getStats());
+                logger.info(DevicePropertyCache.forDevice(deviceName).getStats());
+            }
+        } finally {
+            appiumDriver = null;
+            if (ownerThread != null) {
+                DriverHolder.remove(ownerThread);
+                ownerThread = null;
+            }
+            if (deviceName != null) {
+                DeviceRegistry.getInstance().releaseDevice(deviceName);
+                deviceName = null;
+            }
+        }
+    }
+
+    /**
+     * Time spent in each session bootstrap stage, summed over all sessions created in this JVM.
+     */
+    public static Map<String, Long> getBootstrapStageTimes() {
+        return SessionBootstrap.getTotalStageTimes();
+    }
+
+    private SessionPool<AppiumDriver> createSessionPool(String key, String appName, String deviceName) {
+        SessionPool<AppiumDriver> pool = new SessionPool<>(key, new AndroidSessionFactory(appName, appPackage, deviceName),
+                SESSION_POOL_MIN, SESSION_POOL_MAX, SESSION_POOL_IDLE_TIMEOUT_MS);
+        CompletableFuture.runAsync(pool::prewarm).exceptionally(e -> {
+            logger.warn("Pre-warming session pool " + key + " failed : " + e.getMessage());
+            return null;
+        });
+        return pool;
+    }
+
+    /**
+     * Starts the server, installs the app and pre-warms the UiAutomator2 server in parallel, then
+     * attaches the session once all of them are ready. Stage timings are logged per session.
+     */
+    AppiumDriver createDriver(String appName, String deviceName){
+        this.deviceName = deviceName;
+        SessionBootstrap bootstrap = new SessionBootstrap(appName + "@" + deviceName);
+        CompletableFuture<URL> server = bootstrap.stage("appiumServer", appiumServerManager::startAppiumServer);
+        capabilities = new DesiredCapabilities();
+        try {
+            if(appName.toLowerCase().contains("zoomcar")) {
+                String path = System.getProperty("user.dir")+"/src/main/resources/app-debug.apk";
+                File apk = new File(path);
+                CompletableFuture<Boolean> appInstall = bootstrap.stage("appInstall",
+                        () -> appInstaller.installApp(deviceName, apk, appPackage));
+                CompletableFuture<Boolean> serverPrewarm = bootstrap.stage("uiautomator2Prewarm",
+                        () -> appInstaller.prewarmUiAutomator2Server(deviceName));
+                capabilities.setCapability("platformName", "android");
+                capabilities.setCapability("deviceName", deviceName);
+                capabilities.setCapability("udid", deviceName);
+               // capabilities.setCapability("platformVersion", baseConfig.getDevice().getOsVersion());
+                capabilities.setCapability("appPackage", appPackage);
+                capabilities.setCapability("appActivity", "com.zoomcar.activity.SplashActivity");
+                capabilities.setCapability("newCommandTimeout", 500); //seconds Appium will wait for a new command from the client before assuming the client quit and ending the session
+                //	Enable Unicode input, default
+                capabilities.setCapability("unicodeKeyboard", true);
+                //Reset keyboard to its original state, after running Unicode tests with unicodeKeyboard capability. Ignored if used alone. Default false
+                capabilities.setCapability("resetKeyboard", true);
+                capabilities.setCapability("automationName", "UiAutomator2");
+                portLease = PortAllocator.getInstance().lease();
+                capabilities.setCapability("systemPort", portLease.getSystemPort());
+                capabilities.setCapability("chromedriverPort", portLease.getChromedriverPort());
+                capabilities.setCapability("mjpegServerPort", portLease.getMjpegServerPort());
+                capabilities.merge(extraCapabilities());
+                if (!SessionBootstrap.joinOrDefault(appInstall, false, "appInstall")) {
+                    capabilities.setCapability("app",apk.getAbsolutePath()); //let Appium install it
+                }
+                if (SessionBootstrap.joinOrDefault(serverPrewarm, false, "uiautomator2Prewarm")) {
+                    capabilities.setCapability("skipServerInstallation", true);
+                }
+                logger.info("Capabilities are set");
+                logger.info(capabilities.toJson());
+            }else{
+                logger.info("App name is not correct");
+            }
+            URL url = SessionBootstrap.join(server);
+            appiumDriver = bootstrap.timed("sessionAttach", () -> new AndroidDriver(url, capabilities));
         }catch(Exception e) {
-            e.printStackTrace();
+            server.handle((url, error) -> null).join();
+            appiumServerManager.stopAppiumServer();
+            releasePorts();
+            throw new RuntimeException(e);
         }
-        appiumDriver.manage().timeouts().implicitlyWait(30, TimeUnit.SECONDS);
-        logger.info("Appium driver initiated");
+        appiumDriver.manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS); //waits are explicit, see WaitEngine
+        DevicePropertyCache.forDevice(deviceName).onAppRestart(appPackage);
+        LogcatCollector.forDevice(deviceName);
+        CrashDetector.forDevice(deviceName, appPackage);
+        bootstrap.logSummary();
         return appiumDriver;
     }
 
+    void destroyDriver() {
+        try {
+            if (appiumDriver != null) {
+                appiumDriver.quit();
+            }
+        } finally {
+            appiumDriver = null;
+            appiumServerManager.stopAppiumServer();
+            releasePorts();
+        }
+    }
+
+    private void releasePorts() {
+        if (portLease != null) {
+            portLease.close();
+            portLease = null;
+        }
+    }
+
     private DesiredCapabilities extraCapabilities(){
         capabilities.setCapability(MobileCapabilityType.NO_RESET,true);
         // capabilities.setCapability(MobileCapabilityType.FULL_RESET,false);
@@ -0,0 +1,75 @@
+package core.driver_manager;
+
+import com.google.common.collect.ImmutableMap;
+import core.device_manager.DevicePropertyCache;
+import core.page_factory.ElementCache;
+import io.appium.java_client.AppiumDriver;
+import org.apache.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates UiAutomator2 sessions for {@link SessionPool}. Between leases the app under test is reset
+ * with terminateApp/activateApp, or with {@code pm clear} when {@code session.reset.mode=clear}.
+ */
+class AndroidSessionFactory implements SessionPool.SessionFactory<AppiumDriver> {
+
+    private static final String RESET_MODE = System.getProperty("session.reset.mode", "terminate");
+    private static Logger logger = Logger.getLogger(AndroidSessionFactory.class);
+
+    private final String appName;
+    private final String appPackage;
+    private final String deviceName;
+    private final Map<AppiumDriver, AndroidDriverManager> owners = new ConcurrentHashMap<>();
+
+    AndroidSessionFactory(String appName, String appPackage, String deviceName) {
+        this.appName = appName;
+        this.appPackage = appPackage;
+        this.deviceName = deviceName;
+    }
+
+    @Override
+    public AppiumDriver create() {
+        AndroidDriverManager driverManager = new AndroidDriverManager();
+        AppiumDriver driver = driverManager.createDriver(appName, deviceName);
+        owners.put(driver, driverManager);
+        return driver;
+    }
+
+    @Override
+    public void reset(AppiumDriver driver) {
+        if (RESET_MODE.equalsIgnoreCase("clear")) {
+            Map<String, Object> cmd = ImmutableMap.of(
+                    "command", "pm",
+                    "args", Arrays.asList("clear", appPackage));
+            driver.executeScript("mobile: shell", cmd);
+        } else {
+            driver.terminateApp(appPackage);
+        }
+        driver.activateApp(appPackage);
+        ElementCache.markScreenTransition(driver);
+        DevicePropertyCache.forDevice(deviceName).onAppRestart(appPackage);
+        logger.debug("Session reset with mode " + RESET_MODE);
+    }
+
+    @Override
+    public boolean isAlive(AppiumDriver driver) {
+        try {
+            return driver.getSessionId() != null && driver.getOrientation() != null;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy(AppiumDriver driver) {
+        AndroidDriverManager driverManager = owners.remove(driver);
+        if (driverManager != null) {
+            driverManager.destroyDriver();
+        } else {
+            driver.quit();
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package core.driver_manager;
 
 import core.appium_server_manager.AppiumServerManager;
+import core.device_manager.DeviceRegistry;
+import core.port_manager.PortAllocator;
+import core.port_manager.PortLease;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.remote.AndroidMobileCapabilityType;
@@ -9,7 +12,6 @@ import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.remote.DesiredCapabilities;
 
 import java.net.URL;
-import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 public class AndroidWebDriverManager {
@@ -17,16 +19,21 @@ public class AndroidWebDriverManager {
 
     private DesiredCapabilities capabilities;
     private AppiumServerManager appiumServerManager = new AppiumServerManager();
+    private PortLease portLease;
     AppiumDriver appiumDriver = null;
+    private String deviceName;
+    private Thread ownerThread;
 
     public AppiumDriver getDriver() {
+        deviceName = DeviceRegistry.getInstance().leaseDevice();
         capabilities = new DesiredCapabilities();
         ChromeOptions chromeOptions = new ChromeOptions();
         chromeOptions.addArguments("--incognito");
         capabilities.setCapability(AndroidMobileCapabilityType.CHROME_OPTIONS,chromeOptions);
         capabilities.setCapability(AndroidMobileCapabilityType.BROWSER_NAME, "Chrome");
         capabilities.setCapability("platformName", "android");
-        capabilities.setCapability("deviceName", "emulator-5554");
+        capabilities.setCapability("deviceName", deviceName);
+        capabilities.setCapability("udid", deviceName);
         capabilities.setCapability("newCommandTimeout", 500);
         capabilities.setCapability("unicodeKeyboard", true);
         capabilities.setCapability("resetKeyboard", true);
@@ -34,19 +41,53 @@ public class AndroidWebDriverManager {
         //capabilities.setCapability("chromedriverExecutableDir",System.getProperty("user.dir")+"/src/main/resources/");
         capabilities.setCapability("chromedriverExecutable", System.getProperty("user.dir") + "/src/main/resources/chromedriver");
         //capabilities.setCapability("chromedriverUseSystemExecutable",true);
-        capabilities.setCapability("systemPort", 8200 + new Random().nextInt(20));
-        logger.info("Capabilities are set");
-        logger.info(capabilities.toJson());
         try {
+            portLease = PortAllocator.getInstance().lease();
+            capabilities.setCapability("systemPort", portLease.getSystemPort());
+            capabilities.setCapability("chromedriverPort", portLease.getChromedriverPort());
+            capabilities.setCapability("mjpegServerPort", portLease.getMjpegServerPort());
+            logger.info("Capabilities are set");
+            logger.info(capabilities.toJson());
             URL url = appiumServerManager.startAppiumServer();
             appiumDriver = new AndroidDriver(url, capabilities);
         } catch (Exception e) {
-            e.printStackTrace();
+            appiumServerManager.stopAppiumServer();
+            releasePorts();
+            DeviceRegistry.getInstance().releaseDevice(deviceName);
+            deviceName = null;
+            throw new RuntimeException(e);
         }
-        appiumDriver.manage().timeouts().implicitlyWait(30, TimeUnit.SECONDS);
-        logger.info("Appium driver initiated");
+        appiumDriver.manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS); //waits are explicit, see WaitEngine
+        ownerThread = Thread.currentThread();
+        DriverHolder.setDriver(appiumDriver, deviceName);
+        logger.info("Appium driver initiated on " + deviceName);
         return appiumDriver;
     }
 
+    public void quitDriver() {
+        try {
+            if (appiumDriver != null) {
+                appiumDriver.quit();
+            }
+        } finally {
+            appiumDriver = null;
+            appiumServerManager.stopAppiumServer();
+            releasePorts();
+            if (ownerThread != null) {
+                DriverHolder.remove(ownerThread);
+                ownerThread = null;
+            }
+            if (deviceName != null) {
+                DeviceRegistry.getInstance().releaseDevice(deviceName);
+                deviceName = null;
+            }
+        }
+    }
 
+    private void releasePorts() {
+        if (portLease != null) {
+            portLease.close();
+            portLease = null;
+        }
+    }
 }
@@ -0,0 +1,161 @@
+package core.driver_manager;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Remembers which APK (by SHA-256) was installed on which device, so an unchanged APK is not pushed
+ * again. A hit also requires the device to still report the install stamp (versionName and
+ * lastUpdateTime) recorded at install time. lastUpdateTime changes on every install, which catches
+ * apps removed or replaced outside the suite even when the versionName stays the same, as it does
+ * for debug builds. Entries persist in a properties file,
+ * {@code ~/.appium-mobile-automation/apk-install-cache.properties} unless {@code apk.cache.file} is set,
+ * which is updated under a file lock so JVMs on the same host do not drop each other's entries.
+ */
+public class ApkInstallCache {
+
+    private static final String DEFAULT_STORE = System.getProperty("user.home")
+            + "/.appium-mobile-automation/apk-install-cache.properties";
+    private static Logger logger = Logger.getLogger(ApkInstallCache.class);
+    private static ApkInstallCache instance;
+
+    private final File store;
+    private final BiFunction<String, String, String> installStampLookup;
+    private final Properties entries = new Properties();
+    private final Map<String, String> apkHashes = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param installStampLookup returns a value that changes with every install of (device, package),
+     *                           read from the device and not cached, or null if it is not installed
+     */
+    public ApkInstallCache(File store, BiFunction<String, String, String> installStampLookup) {
+        this.store = store;
+        this.installStampLookup = installStampLookup;
+        load();
+    }
+
+    public static synchronized ApkInstallCache getInstance() {
+        if (instance == null) {
+            AppInstaller appInstaller = new AppInstaller();
+            instance = new ApkInstallCache(new File(System.getProperty("apk.cache.file", DEFAULT_STORE)),
+                    appInstaller::getInstallStamp);
+        }
+        return instance;
+    }
+
+    public boolean isInstalled(String device, String appPackage, File apk) {
+        String entry;
+        synchronized (this) {
+            entry = entries.getProperty(key(device, appPackage));
+        }
+        boolean hit = entry != null && entry.equals(hashOf(apk) + "|" + installStampLookup.apply(device, appPackage));
+        (hit ? hits : misses).incrementAndGet();
+        logger.info("APK install cache " + (hit ? "hit" : "miss") + " for " + appPackage + " on " + device);
+        return hit;
+    }
+
+    public void recordInstall(String device, String appPackage, File apk) {
+        String stamp = installStampLookup.apply(device, appPackage);
+        if (stamp == null) {
+            return;
+        }
+        String entry = hashOf(apk) + "|" + stamp;
+        update(stored -> stored.setProperty(key(device, appPackage), entry));
+    }
+
+    public void invalidate(String device) {
+        update(stored -> stored.keySet().removeIf(key -> ((String) key).startsWith(device + "|")));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    String hashOf(File apk) {
+        String cacheKey = apk.getAbsolutePath() + "|" + apk.length() + "|" + apk.lastModified();
+        return apkHashes.computeIfAbsent(cacheKey, k -> sha256(apk));
+    }
+
+    private static String key(String device, String appPackage) {
+        return device + "|" + appPackage;
+    }
+
+    private static String sha256(File file) {
+        try (InputStream is = new FileInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void load() {
+        if (!store.isFile()) {
+            return;
+        }
+        try (InputStream is = new FileInputStream(store)) {
+            entries.load(is);
+        } catch (IOException e) {
+            logger.warn("Could not read APK install cache " + store + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Re-reads the store, applies the change and writes it back while holding an exclusive lock on
+     * {@code <store>.lock}, so a concurrent update from another JVM is merged instead of overwritten.
+     */
+    private synchronized void update(Consumer<Properties> change) {
+        File parent = store.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            logger.warn("Could not create " + parent);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(new File(parent, store.getName() + ".lock").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.lock(); //released when the channel is closed
+            entries.clear();
+            load();
+            change.accept(entries);
+            Path temp = Files.createTempFile(parent.toPath(), store.getName(), ".tmp");
+            try (OutputStream os = Files.newOutputStream(temp)) {
+                entries.store(os, "APK sha256|versionName@lastUpdateTime per device|package");
+            }
+            Files.move(temp, store.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not write APK install cache " + store + " : " + e.getMessage());
+        }
+    }
+}
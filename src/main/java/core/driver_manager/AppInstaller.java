@@ -0,0 +1,119 @@
+package core.driver_manager;
+
+import core.device_manager.AdbShellSession;
+import core.device_manager.DevicePropertyCache;
+import core.utils.CommandUtils;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Installs the app under test and the UiAutomator2 server APKs over adb ahead of session creation,
+ * so Appium does not have to push them while the session is being created.
+ */
+class AppInstaller {
+
+    static final String UIAUTOMATOR2_SERVER_PACKAGE = "io.appium.uiautomator2.server";
+    private static final String UIAUTOMATOR2_APK_DIR = System.getProperty("user.dir")
+            + "/node_modules/appium/node_modules/appium-uiautomator2-server/apks";
+    private static final Pattern SERVER_APK_VERSION = Pattern.compile("appium-uiautomator2-server-v(.+)\\.apk");
+    private static final Pattern INSTALLED_VERSION = Pattern.compile("versionName=(\\S+)");
+    private static final Pattern LAST_UPDATE_TIME = Pattern.compile("lastUpdateTime=([^\\n]+)");
+    private static Logger logger = Logger.getLogger(AppInstaller.class);
+
+    private final CommandUtils commandUtils = new CommandUtils();
+
+    /**
+     * Installs the APK unless {@link ApkInstallCache} knows the same APK is already on the device,
+     * and verifies the package is present afterwards.
+     *
+     * @return true if the package is installed on the device
+     */
+    boolean installApp(String device, File apk, String appPackage) {
+        ApkInstallCache installCache = ApkInstallCache.getInstance();
+        if (installCache.isInstalled(device, appPackage, apk)) {
+            return true;
+        }
+        String output = adb(device, "install -r \"" + apk.getAbsolutePath() + "\"");
+        DevicePropertyCache.forDevice(device).onAppInstall(appPackage);
+        if (!output.contains("Success")) {
+            logger.warn("Installing " + apk.getName() + " on " + device + " failed : " + output.trim());
+            return false;
+        }
+        if (!isInstalled(device, appPackage)) {
+            return false;
+        }
+        installCache.recordInstall(device, appPackage, apk);
+        return true;
+    }
+
+    boolean isInstalled(String device, String appPackage) {
+        return AdbShellSession.forDevice(device).execute("pm path " + appPackage).getOutput().contains("package:");
+    }
+
+    /**
+     * Installs the UiAutomator2 server APKs bundled with the local Appium if the device does not
+     * already have that version.
+     *
+     * @return true if the device has the bundled server and Appium can skip installing it
+     */
+    boolean prewarmUiAutomator2Server(String device) {
+        File[] apks = new File(UIAUTOMATOR2_APK_DIR).listFiles((dir, name) -> name.endsWith(".apk"));
+        if (apks == null || apks.length == 0) {
+            logger.info("No bundled UiAutomator2 server APKs found in " + UIAUTOMATOR2_APK_DIR);
+            return false;
+        }
+        String bundledVersion = null;
+        for (File apk : apks) {
+            Matcher matcher = SERVER_APK_VERSION.matcher(apk.getName());
+            if (matcher.matches()) {
+                bundledVersion = matcher.group(1);
+            }
+        }
+        if (bundledVersion != null && bundledVersion.equals(getVersionName(device, UIAUTOMATOR2_SERVER_PACKAGE))
+                && isInstalled(device, UIAUTOMATOR2_SERVER_PACKAGE + ".test")) {
+            logger.debug("UiAutomator2 server " + bundledVersion + " already installed on " + device);
+            return true;
+        }
+        for (File apk : apks) {
+            String output = adb(device, "install -r -g \"" + apk.getAbsolutePath() + "\"");
+            DevicePropertyCache.forDevice(device).onAppInstall(UIAUTOMATOR2_SERVER_PACKAGE);
+            if (!output.contains("Success")) {
+                logger.warn("Installing " + apk.getName() + " on " + device + " failed : " + output.trim());
+                return false;
+            }
+        }
+        return bundledVersion != null;
+    }
+
+    String getVersionName(String device, String appPackage) {
+        return DevicePropertyCache.forDevice(device).getVersionName(appPackage);
+    }
+
+    /**
+     * versionName and lastUpdateTime of the installed package, e.g. {@code 8.1.0@2026-10-18 14:02:11},
+     * or null if it is not installed. Read live rather than through {@link DevicePropertyCache}:
+     * lastUpdateTime changes on every install, including installs made outside the suite.
+     */
+    String getInstallStamp(String device, String appPackage) {
+        String output = AdbShellSession.forDevice(device)
+                .execute("dumpsys package " + appPackage + " | grep -E 'versionName=|lastUpdateTime='").getOutput();
+        Matcher version = INSTALLED_VERSION.matcher(output);
+        Matcher updated = LAST_UPDATE_TIME.matcher(output);
+        if (!version.find() || !updated.find()) {
+            return null;
+        }
+        return version.group(1) + "@" + updated.group(1).trim();
+    }
+
+    private String adb(String device, String args) {
+        try {
+            return commandUtils.executeCommand("adb -s " + device + " " + args + " 2>&1");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
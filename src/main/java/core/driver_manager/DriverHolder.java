@@ -0,0 +1,54 @@
+package core.driver_manager;
+
+import io.appium.java_client.AppiumDriver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread scoped driver and device for parallel runs. Page objects and tests resolve the driver of
+ * the TestNG worker thread they run on. Entries are keyed by thread so a manager can clear the
+ * entry of the thread that created it even when teardown runs on another thread.
+ */
+public class DriverHolder {
+
+    private static final Map<Thread, AppiumDriver> drivers = new ConcurrentHashMap<>();
+    private static final Map<Thread, String> devices = new ConcurrentHashMap<>();
+
+    private DriverHolder() {
+    }
+
+    public static AppiumDriver getDriver() {
+        return drivers.get(Thread.currentThread());
+    }
+
+    public static String getDeviceName() {
+        return devices.get(Thread.currentThread());
+    }
+
+    public static void setDriver(AppiumDriver driver, String deviceName) {
+        drivers.put(Thread.currentThread(), driver);
+        devices.put(Thread.currentThread(), deviceName);
+    }
+
+    /**
+     * Serial of the device the driver runs on, from its udid capability; null if it has none.
+     */
+    public static String getDeviceSerial(AppiumDriver driver) {
+        Object udid = driver.getCapabilities().getCapability("udid");
+        return udid != null ? udid.toString() : null;
+    }
+
+    /**
+     * Key of a device in the per device registries (adb shell sessions, logcat, recordings...): its
+     * serial, or "" for a null serial, which adb resolves to the only attached device.
+     */
+    public static String deviceKey(String device) {
+        return device == null ? "" : device;
+    }
+
+    public static void remove(Thread thread) {
+        drivers.remove(thread);
+        devices.remove(thread);
+    }
+}
@@ -0,0 +1,92 @@
+package core.driver_manager;
+
+import org.apache.log4j.Logger;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent steps of a session startup as parallel stages and records how long each
+ * stage took, per bootstrap and summed over the JVM.
+ */
+class SessionBootstrap {
+
+    private static Logger logger = Logger.getLogger(SessionBootstrap.class);
+    private static final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "session-bootstrap");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Map<String, AtomicLong> totalStageTimesMs = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final long startTime = System.currentTimeMillis();
+    private final Map<String, Long> stageTimesMs = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    SessionBootstrap(String name) {
+        this.name = name;
+    }
+
+    <T> CompletableFuture<T> stage(String stageName, Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> timed(stageName, work), executor);
+    }
+
+    <T> T timed(String stageName, Supplier<T> work) {
+        long start = System.currentTimeMillis();
+        try {
+            return work.get();
+        } finally {
+            long elapsed = System.currentTimeMillis() - start;
+            stageTimesMs.put(stageName, elapsed);
+            totalStageTimesMs.computeIfAbsent(stageName, k -> new AtomicLong()).addAndGet(elapsed);
+            logger.debug(name + " stage " + stageName + " took " + elapsed + " ms");
+        }
+    }
+
+    /**
+     * Waits for a stage and returns its value, or {@code fallback} when the stage failed.
+     */
+    static <T> T joinOrDefault(CompletableFuture<T> stage, T fallback, String stageName) {
+        try {
+            return stage.join();
+        } catch (CompletionException e) {
+            logger.warn("Bootstrap stage " + stageName + " failed, falling back : " + e.getCause());
+            return fallback;
+        }
+    }
+
+    static <T> T join(CompletableFuture<T> stage) {
+        try {
+            return stage.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    Map<String, Long> getStageTimes() {
+        synchronized (stageTimesMs) {
+            return new LinkedHashMap<>(stageTimesMs);
+        }
+    }
+
+    static Map<String, Long> getTotalStageTimes() {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        totalStageTimesMs.forEach((stage, time) -> totals.put(stage, time.get()));
+        return totals;
+    }
+
+    void logSummary() {
+        logger.info(name + " bootstrapped in " + (System.currentTimeMillis() - startTime) + " ms, stages: " + getStageTimes());
+    }
+}
@@ -0,0 +1,277 @@
+package core.driver_manager;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of pre-created sessions. A released session is reset through its {@link SessionFactory}
+ * and handed to the next lease instead of being quit, idle sessions are evicted after
+ * {@code idleTimeoutMs} so they never outlive the server side newCommandTimeout, and replaced with
+ * fresh ones up to {@code minIdle}.
+ */
+public class SessionPool<S> {
+
+    public interface SessionFactory<S> {
+        S create();
+
+        void reset(S session);
+
+        boolean isAlive(S session);
+
+        void destroy(S session);
+    }
+
+    private static class IdleSession<S> {
+        final S session;
+        final long idleSince;
+
+        IdleSession(S session) {
+            this.session = session;
+            this.idleSince = System.currentTimeMillis();
+        }
+    }
+
+    private static Logger logger = Logger.getLogger(SessionPool.class);
+
+    private final String name;
+    private final SessionFactory<S> factory;
+    private final int minIdle;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final Deque<IdleSession<S>> idleSessions = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private int totalSessions = 0;
+    private boolean closed = false;
+
+    private final AtomicLong sessionsCreated = new AtomicLong();
+    private final AtomicLong totalCreationTimeMs = new AtomicLong();
+    private final AtomicLong sessionsReused = new AtomicLong();
+    private final AtomicLong totalResetTimeMs = new AtomicLong();
+
+    public SessionPool(String name, SessionFactory<S> factory, int minIdle, int maxSize, long idleTimeoutMs) {
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Invalid pool sizing min=" + minIdle + " max=" + maxSize);
+        }
+        this.name = name;
+        this.factory = factory;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-pool-evictor-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMs / 4);
+        evictor.scheduleWithFixedDelay(this::evictIdleSessions, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public S lease() {
+        while (true) {
+            IdleSession<S> idle;
+            synchronized (this) {
+                while (true) {
+                    if (closed) {
+                        throw new IllegalStateException("Session pool " + name + " is closed");
+                    }
+                    idle = idleSessions.pollFirst();
+                    if (idle != null || totalSessions < maxSize) {
+                        break;
+                    }
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    }
+                }
+                if (idle == null) {
+                    totalSessions++;
+                }
+            }
+            if (idle == null) {
+                return createSession();
+            }
+            if (factory.isAlive(idle.session)) {
+                sessionsReused.incrementAndGet();
+                logger.info("Reusing warm session from pool " + name);
+                return idle.session;
+            }
+            logger.warn("Discarding dead session from pool " + name);
+            destroySession(idle.session);
+        }
+    }
+
+    /**
+     * Resets the session and returns it to the pool. A session that can not be reset is destroyed.
+     */
+    public void release(S session) {
+        if (session == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            factory.reset(session);
+        } catch (Exception e) {
+            logger.warn("Resetting session failed, destroying it : " + e.getMessage());
+            destroySession(session);
+            return;
+        }
+        totalResetTimeMs.addAndGet(System.currentTimeMillis() - start);
+        boolean destroy;
+        synchronized (this) {
+            destroy = closed;
+            if (!closed) {
+                idleSessions.addFirst(new IdleSession<>(session));
+                notifyAll();
+            }
+        }
+        if (destroy) {
+            destroySession(session);
+        }
+    }
+
+    public void invalidate(S session) {
+        if (session != null) {
+            destroySession(session);
+        }
+    }
+
+    /**
+     * Creates sessions until {@code minIdle} are waiting in the pool.
+     */
+    public void prewarm() {
+        while (true) {
+            synchronized (this) {
+                if (closed || idleSessions.size() >= minIdle || totalSessions >= maxSize) {
+                    return;
+                }
+                totalSessions++;
+            }
+            S session = createSession();
+            synchronized (this) {
+                idleSessions.addLast(new IdleSession<>(session));
+                notifyAll();
+            }
+        }
+    }
+
+    public void close() {
+        Deque<IdleSession<S>> toDestroy;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toDestroy = new ArrayDeque<>(idleSessions);
+            idleSessions.clear();
+            notifyAll();
+        }
+        evictor.shutdownNow();
+        for (IdleSession<S> idle : toDestroy) {
+            destroySession(idle.session);
+        }
+        logger.info(getStats());
+    }
+
+    public synchronized int getIdleCount() {
+        return idleSessions.size();
+    }
+
+    public synchronized int getTotalCount() {
+        return totalSessions;
+    }
+
+    public long getSessionsCreated() {
+        return sessionsCreated.get();
+    }
+
+    public long getSessionsReused() {
+        return sessionsReused.get();
+    }
+
+    /**
+     * Estimated time saved by reusing sessions: average creation time per reuse minus time spent resetting.
+     */
+    public long getCreationTimeSavedMs() {
+        long created = sessionsCreated.get();
+        if (created == 0) {
+            return 0;
+        }
+        return sessionsReused.get() * (totalCreationTimeMs.get() / created) - totalResetTimeMs.get();
+    }
+
+    public String getStats() {
+        long created = sessionsCreated.get();
+        return "Session pool " + name + ": created=" + created
+                + ", avg creation ms=" + (created == 0 ? 0 : totalCreationTimeMs.get() / created)
+                + ", reused=" + sessionsReused.get()
+                + ", reset ms=" + totalResetTimeMs.get()
+                + ", creation ms saved=" + getCreationTimeSavedMs();
+    }
+
+    void evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        Deque<S> expired = new ArrayDeque<>();
+        synchronized (this) {
+            Iterator<IdleSession<S>> iterator = idleSessions.iterator();
+            while (iterator.hasNext()) {
+                IdleSession<S> idle = iterator.next();
+                if (now - idle.idleSince >= idleTimeoutMs) {
+                    iterator.remove();
+                    expired.add(idle.session);
+                }
+            }
+        }
+        for (S session : expired) {
+            logger.info("Evicting idle session from pool " + name);
+            destroySession(session);
+        }
+        if (!expired.isEmpty()) {
+            try {
+                prewarm();
+            } catch (RuntimeException e) {
+                logger.warn("Refilling session pool " + name + " failed : " + e.getMessage());
+            }
+        }
+    }
+
+    private S createSession() {
+        long start = System.currentTimeMillis();
+        S session;
+        try {
+            session = factory.create();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                totalSessions--;
+                notifyAll();
+            }
+            throw e;
+        }
+        long creationTime = System.currentTimeMillis() - start;
+        sessionsCreated.incrementAndGet();
+        totalCreationTimeMs.addAndGet(creationTime);
+        logger.info("Created session for pool " + name + " in " + creationTime + " ms");
+        return session;
+    }
+
+    private void destroySession(S session) {
+        try {
+            factory.destroy(session);
+        } catch (Exception e) {
+            logger.warn("Destroying session failed : " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                totalSessions--;
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package core.logcat;
+
+import java.util.List;
+
+/**
+ * Thrown from a wait when the app under test crashed, carrying the log lines of the crash.
+ */
+public class AppCrashException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+    private final CrashDetector.Kind kind;
+    private final int pid;
+    private final List<String> lines;
+
+    AppCrashException(CrashDetector.Kind kind, String packageName, int pid, List<String> lines) {
+        super(kind + " in " + packageName + " (pid " + pid + ")" + System.lineSeparator()
+                + String.join(System.lineSeparator(), lines));
+        this.kind = kind;
+        this.pid = pid;
+        this.lines = lines;
+    }
+
+    public CrashDetector.Kind getKind() {
+        return kind;
+    }
+
+    public int getPid() {
+        return pid;
+    }
+
+    /**
+     * Messages of the crash in logcat order, e.g. the exception and its stack trace.
+     */
+    public List<String> getLines() {
+        return lines;
+    }
+}
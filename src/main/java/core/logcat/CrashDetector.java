@@ -0,0 +1,221 @@
+package core.logcat;
+
+import core.driver_manager.DriverHolder;
+import core.utils.LogcatCollector;
+import core.utils.WaitEngine;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Watches the logcat stream of a device for Java crashes, ANRs, native tombstones and StrictMode
+ * violations of the app under test. While one is pending, every {@link WaitEngine} poll on the
+ * device's thread throws an {@link AppCrashException} with the captured stack trace, so the step
+ * fails right away instead of waiting out its timeout for an element that will never appear.
+ * Kinds listed in {@code crash.detector.ignore} (default STRICT_MODE, which debug builds log
+ * without failing) are only logged.
+ */
+public class CrashDetector {
+
+    public enum Kind {FATAL_EXCEPTION, ANR, NATIVE_CRASH, STRICT_MODE}
+
+    /**
+     * Quiet time after the last line of a crash before it is reported, so the trace is complete.
+     */
+    public static final long SETTLE_MS = Long.getLong("crash.detector.settle.ms", 200);
+    private static final int MAX_LINES = Integer.getInteger("crash.detector.max.lines", 200);
+    private static final Set<Kind> IGNORED = Arrays.stream(System.getProperty("crash.detector.ignore", "STRICT_MODE").split(","))
+            .map(String::trim).filter(kind -> !kind.isEmpty()).map(Kind::valueOf)
+            .collect(Collectors.toCollection(() -> EnumSet.noneOf(Kind.class)));
+    private static final Pattern START_PROC = Pattern.compile("Start proc (\\d+):([^/\\s]+)");
+    private static final Pattern PROCESS = Pattern.compile("^Process: ([^,\\s]+), PID: (\\d+)");
+    private static final Pattern ANR = Pattern.compile("^ANR in ([^\\s(]+)");
+    private static final Pattern TOMBSTONE_PID = Pattern.compile("pid: (\\d+)");
+    private static Logger logger = Logger.getLogger(CrashDetector.class);
+    private static final Map<String, CrashDetector> detectors = new ConcurrentHashMap<>();
+
+    static {
+        WaitEngine.addAbortCheck(CrashDetector::throwIfCurrentDeviceCrashed);
+    }
+
+    private final String packageName;
+    private final long settleMs;
+    private final Set<Kind> ignored;
+    private final Set<Integer> appPids = new HashSet<>();
+    private Crash open;
+    private Crash pending;
+    private int reported = 0;
+
+    CrashDetector(String packageName, long settleMs) {
+        this(packageName, settleMs, IGNORED);
+    }
+
+    CrashDetector(String packageName, long settleMs, Set<Kind> ignored) {
+        this.packageName = packageName;
+        this.settleMs = settleMs;
+        this.ignored = ignored;
+    }
+
+    /**
+     * The detector of a device, fed by its {@link LogcatCollector}, see {@link DriverHolder#deviceKey(String)}.
+     */
+    public static CrashDetector forDevice(String device, String packageName) {
+        return detectors.computeIfAbsent(DriverHolder.deviceKey(device), key -> {
+            CrashDetector detector = new CrashDetector(packageName, SETTLE_MS);
+            LogcatCollector.forDevice(device).getStore().addListener(detector::accept);
+            return detector;
+        });
+    }
+
+    /**
+     * Abort check of {@link WaitEngine}, resolving the device from {@link DriverHolder}.
+     */
+    static void throwIfCurrentDeviceCrashed() {
+        CrashDetector detector = detectors.get(DriverHolder.deviceKey(DriverHolder.getDeviceName()));
+        if (detector != null) {
+            detector.throwIfCrashed();
+        }
+    }
+
+    synchronized void accept(LogcatEntry entry) {
+        Matcher started = START_PROC.matcher(entry.getMessage());
+        if (started.find() && started.group(2).equals(packageName)) {
+            int pid = Integer.parseInt(started.group(1));
+            //a crash of an earlier process, e.g. replayed from the device buffer, is not this run's
+            if (pending != null && pending.pid != pid) {
+                pending = null;
+            }
+            appPids.clear();
+            appPids.add(pid);
+            return;
+        }
+        if (open != null) {
+            if (open.continuedBy(entry)) {
+                open.add(entry);
+                return;
+            }
+            open = null;
+        }
+        Crash crash = startedBy(entry);
+        if (crash != null) {
+            open = crash;
+        }
+    }
+
+    private Crash startedBy(LogcatEntry entry) {
+        String tag = entry.getTag();
+        String message = entry.getMessage();
+        if (tag.equals("AndroidRuntime") && message.startsWith("FATAL EXCEPTION")) {
+            return new Crash(Kind.FATAL_EXCEPTION, entry, appPids.contains(entry.getPid()));
+        }
+        if (tag.equals("ActivityManager")) {
+            Matcher anr = ANR.matcher(message);
+            if (anr.find()) {
+                return new Crash(Kind.ANR, entry, anr.group(1).equals(packageName));
+            }
+        }
+        //the tombstone header comes before the line naming the process
+        if (tag.equals("DEBUG") && message.startsWith("*** *** ***")) {
+            return new Crash(Kind.NATIVE_CRASH, entry, false);
+        }
+        if (tag.equals("StrictMode") && appPids.contains(entry.getPid())) {
+            return new Crash(Kind.STRICT_MODE, entry, true);
+        }
+        return null;
+    }
+
+    /**
+     * The first unreported crash of the app once its lines have settled, else null.
+     */
+    public synchronized AppCrashException getCrash() {
+        if (pending == null || (pending == open && System.currentTimeMillis() - pending.lastLineAt < settleMs)) {
+            return null;
+        }
+        return new AppCrashException(pending.kind, packageName, pending.pid, new ArrayList<>(pending.lines));
+    }
+
+    /**
+     * Throws a pending crash once; later waits of the step run normally.
+     */
+    public synchronized void throwIfCrashed() {
+        AppCrashException crash = getCrash();
+        if (crash != null) {
+            pending = null;
+            reported++;
+            logger.error("App crashed: " + crash.getMessage());
+            throw crash;
+        }
+    }
+
+    public synchronized int getReportedCount() {
+        return reported;
+    }
+
+    private class Crash {
+        private final Kind kind;
+        private final String tag;
+        private final int sourcePid;
+        private final List<String> lines = new ArrayList<>();
+        private int pid;
+        private long lastLineAt;
+
+        Crash(Kind kind, LogcatEntry first, boolean ofApp) {
+            this.kind = kind;
+            this.tag = first.getTag();
+            this.sourcePid = first.getPid();
+            this.pid = first.getPid();
+            add(first);
+            if (ofApp) {
+                claim();
+            }
+        }
+
+        boolean continuedBy(LogcatEntry entry) {
+            return entry.getPid() == sourcePid && entry.getTag().equals(tag);
+        }
+
+        void add(LogcatEntry entry) {
+            if (lines.size() < MAX_LINES) {
+                lines.add(entry.getMessage());
+            }
+            lastLineAt = System.currentTimeMillis();
+            String message = entry.getMessage();
+            Matcher process = PROCESS.matcher(message);
+            if (kind == Kind.FATAL_EXCEPTION && process.find()) {
+                pid = Integer.parseInt(process.group(2));
+                if (process.group(1).equals(packageName)) {
+                    claim();
+                }
+            } else if (kind == Kind.ANR && message.startsWith("PID: ")) {
+                pid = Integer.parseInt(message.substring(5).trim());
+            } else if (kind == Kind.NATIVE_CRASH && message.contains(">>> " + packageName + " <<<")) {
+                Matcher tombstone = TOMBSTONE_PID.matcher(message);
+                if (tombstone.find()) {
+                    pid = Integer.parseInt(tombstone.group(1));
+                }
+                claim();
+            }
+        }
+
+        /**
+         * Marks the crash as the app's; the first one is kept as it is usually the root cause.
+         */
+        private void claim() {
+            if (ignored.contains(kind)) {
+                logger.warn(kind + " in " + packageName + " (pid " + pid + "), not failing the step: " + lines.get(0));
+            } else if (pending == null) {
+                pending = this;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package core.logcat;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One logcat line in {@code -v threadtime} format, parsed once into its fields.
+ */
+public class LogcatEntry {
+
+    static final String LEVELS = "VDIWEFA";
+    private static final Pattern THREADTIME = Pattern.compile(
+            "^(\\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d\\.\\d{3})\\s+(\\d+)\\s+(\\d+)\\s+([VDIWEFA])\\s+(.*?)\\s*: (.*)$");
+
+    private final long sequence;
+    private final String time;
+    private final int pid;
+    private final int tid;
+    private final char level;
+    private final String tag;
+    private final String message;
+
+    public LogcatEntry(long sequence, String time, int pid, int tid, char level, String tag, String message) {
+        this.sequence = sequence;
+        this.time = time;
+        this.pid = pid;
+        this.tid = tid;
+        this.level = level;
+        this.tag = tag;
+        this.message = message;
+    }
+
+    /**
+     * @return null for lines that are not log entries, e.g. {@code --------- beginning of main}
+     */
+    public static LogcatEntry parse(long sequence, String line) {
+        Matcher matcher = THREADTIME.matcher(line);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new LogcatEntry(sequence, matcher.group(1), Integer.parseInt(matcher.group(2)),
+                Integer.parseInt(matcher.group(3)), matcher.group(4).charAt(0), matcher.group(5), matcher.group(6));
+    }
+
+    /**
+     * Orders levels from V(erbose) to A(ssert), e.g. {@code isAtLeast('E')} for errors and fatals.
+     */
+    public boolean isAtLeast(char minLevel) {
+        return LEVELS.indexOf(level) >= LEVELS.indexOf(minLevel);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(sequence);
+        out.writeUTF(time);
+        out.writeInt(pid);
+        out.writeInt(tid);
+        out.writeChar(level);
+        out.writeUTF(tag);
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(text.length);
+        out.write(text);
+    }
+
+    static LogcatEntry readFrom(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        String time = in.readUTF();
+        int pid = in.readInt();
+        int tid = in.readInt();
+        char level = in.readChar();
+        String tag = in.readUTF();
+        byte[] text = new byte[in.readInt()];
+        in.readFully(text);
+        return new LogcatEntry(sequence, time, pid, tid, level, tag, new String(text, StandardCharsets.UTF_8));
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public int getPid() {
+        return pid;
+    }
+
+    public int getTid() {
+        return tid;
+    }
+
+    public char getLevel() {
+        return level;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %5d %5d %c %s: %s", time, pid, tid, level, tag, message);
+    }
+}
@@ -0,0 +1,154 @@
+package core.logcat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Entries spilled to disk as a file of separately GZIP compressed blocks. The file is memory
+ * mapped and only blocks whose pid, tag and level bitmaps match a query are decompressed.
+ */
+class LogcatSegment {
+
+    private final Path file;
+    private final MappedByteBuffer mapped;
+    private final int[] blockOffsets;
+    private final int[] blockLengths;
+    private final long[] blockLastSequences;
+    private final Map<Integer, BitSet> pidBlocks;
+    private final Map<String, BitSet> tagBlocks;
+    private final BitSet[] levelBlocks;
+    private final long lastSequence;
+
+    private LogcatSegment(Path file, MappedByteBuffer mapped, int[] blockOffsets, int[] blockLengths,
+                          long[] blockLastSequences, Map<Integer, BitSet> pidBlocks, Map<String, BitSet> tagBlocks,
+                          BitSet[] levelBlocks, long lastSequence) {
+        this.file = file;
+        this.mapped = mapped;
+        this.blockOffsets = blockOffsets;
+        this.blockLengths = blockLengths;
+        this.blockLastSequences = blockLastSequences;
+        this.pidBlocks = pidBlocks;
+        this.tagBlocks = tagBlocks;
+        this.levelBlocks = levelBlocks;
+        this.lastSequence = lastSequence;
+    }
+
+    static LogcatSegment write(Path file, List<LogcatEntry> entries, int blockSize) throws IOException {
+        int blocks = (entries.size() + blockSize - 1) / blockSize;
+        int[] offsets = new int[blocks];
+        int[] lengths = new int[blocks];
+        long[] lastSequences = new long[blocks];
+        Map<Integer, BitSet> pidBlocks = new HashMap<>();
+        Map<String, BitSet> tagBlocks = new HashMap<>();
+        BitSet[] levelBlocks = new BitSet[LogcatEntry.LEVELS.length()];
+        for (int level = 0; level < levelBlocks.length; level++) {
+            levelBlocks[level] = new BitSet(blocks);
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int offset = 0;
+            for (int block = 0; block < blocks; block++) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                List<LogcatEntry> blockEntries = entries.subList(block * blockSize,
+                        Math.min(entries.size(), (block + 1) * blockSize));
+                try (DataOutputStream data = new DataOutputStream(new GZIPOutputStream(compressed))) {
+                    data.writeInt(blockEntries.size());
+                    for (LogcatEntry entry : blockEntries) {
+                        entry.writeTo(data);
+                        pidBlocks.computeIfAbsent(entry.getPid(), k -> new BitSet()).set(block);
+                        tagBlocks.computeIfAbsent(entry.getTag(), k -> new BitSet()).set(block);
+                        levelBlocks[LogcatEntry.LEVELS.indexOf(entry.getLevel())].set(block);
+                    }
+                }
+                offsets[block] = offset;
+                lengths[block] = compressed.size();
+                lastSequences[block] = blockEntries.get(blockEntries.size() - 1).getSequence();
+                compressed.writeTo(out);
+                offset += compressed.size();
+            }
+        }
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new LogcatSegment(file, mapped, offsets, lengths, lastSequences, pidBlocks, tagBlocks, levelBlocks,
+                entries.get(entries.size() - 1).getSequence());
+    }
+
+    /**
+     * Candidate blocks for the query from the bitmaps; the caller still filters their entries.
+     */
+    BitSet candidateBlocks(LogcatStore.Query query) {
+        BitSet candidates = new BitSet(blockOffsets.length);
+        candidates.set(0, blockOffsets.length);
+        if (query.getFromSequence() > lastSequence) {
+            return new BitSet();
+        }
+        for (int block = 0; block < blockLastSequences.length && blockLastSequences[block] < query.getFromSequence(); block++) {
+            candidates.clear(block);
+        }
+        if (query.getPids() != null) {
+            BitSet pids = new BitSet();
+            for (int pid : query.getPids()) {
+                BitSet blocks = pidBlocks.get(pid);
+                if (blocks != null) {
+                    pids.or(blocks);
+                }
+            }
+            candidates.and(pids);
+        }
+        if (query.getTag() != null) {
+            candidates.and(tagBlocks.getOrDefault(query.getTag(), new BitSet()));
+        }
+        if (query.getMinLevel() != 'V') {
+            BitSet levels = new BitSet();
+            for (int level = LogcatEntry.LEVELS.indexOf(query.getMinLevel()); level < levelBlocks.length; level++) {
+                levels.or(levelBlocks[level]);
+            }
+            candidates.and(levels);
+        }
+        return candidates;
+    }
+
+    void read(BitSet blocks, Predicate<LogcatEntry> filter, List<LogcatEntry> results) throws IOException {
+        for (int block = blocks.nextSetBit(0); block >= 0; block = blocks.nextSetBit(block + 1)) {
+            byte[] compressed = new byte[blockLengths[block]];
+            ByteBuffer view = mapped.duplicate();
+            view.position(blockOffsets[block]);
+            view.get(compressed);
+            try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(compressed)))) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    LogcatEntry entry = LogcatEntry.readFrom(in);
+                    if (filter.test(entry)) {
+                        results.add(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    int getBlockCount() {
+        return blockOffsets.length;
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,330 @@
+package core.logcat;
+
+import core.driver_manager.DriverHolder;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Structured, indexed logcat of one device. Lines are parsed once into {@link LogcatEntry} and the
+ * newest {@code logcat.store.hot.entries} are kept in memory with pid, tag and level posting lists.
+ * Older entries are spilled to compressed {@link LogcatSegment} files, so a query such as "all
+ * errors of the app since this checkpoint" only touches the entries and blocks that can match,
+ * however long the run.
+ */
+public class LogcatStore {
+
+    public static final int HOT_CAPACITY = Integer.getInteger("logcat.store.hot.entries", 50000);
+    public static final int BLOCK_SIZE = Integer.getInteger("logcat.store.block.entries", 512);
+    private static Logger logger = Logger.getLogger(LogcatStore.class);
+    private static final Pattern START_PROC = Pattern.compile("Start proc (\\d+):([^/\\s]+)");
+
+    private final Path directory;
+    private final int hotCapacity;
+    private final int blockSize;
+    private final List<LogcatSegment> segments = new ArrayList<>();
+    private final Map<String, Set<Integer>> packagePids = new HashMap<>();
+    private final List<Consumer<LogcatEntry>> listeners = new CopyOnWriteArrayList<>();
+    private List<LogcatEntry> hot = new ArrayList<>();
+    private Map<Integer, List<Integer>> hotPids = new HashMap<>();
+    private Map<String, List<Integer>> hotTags = new HashMap<>();
+    private List<List<Integer>> hotLevels = newLevelLists();
+    private long entries = 0;
+    private long blocksRead = 0;
+
+    public LogcatStore(Path directory, int hotCapacity, int blockSize) {
+        this.directory = directory;
+        this.hotCapacity = hotCapacity;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Store spilling to {@code logcat.store.dir}, the temp directory by default.
+     */
+    public static LogcatStore forDevice(String device) {
+        Path root = Paths.get(System.getProperty("logcat.store.dir",
+                Paths.get(System.getProperty("java.io.tmpdir"), "logcat").toString()));
+        String key = DriverHolder.deviceKey(device);
+        String name = (key.isEmpty() ? "default" : key.replaceAll("[^A-Za-z0-9._-]", "_"))
+                + "-" + System.nanoTime();
+        return new LogcatStore(root.resolve(name), HOT_CAPACITY, BLOCK_SIZE);
+    }
+
+    /**
+     * Parses and adds a {@code -v threadtime} line; other lines, e.g. buffer headers, are ignored.
+     */
+    public void add(long sequence, String line) {
+        LogcatEntry entry = LogcatEntry.parse(sequence, line);
+        if (entry != null) {
+            add(entry);
+        }
+    }
+
+    public synchronized void add(LogcatEntry entry) {
+        if (hot.size() >= hotCapacity) {
+            spill();
+        }
+        int position = hot.size();
+        hot.add(entry);
+        hotPids.computeIfAbsent(entry.getPid(), k -> new ArrayList<>()).add(position);
+        hotTags.computeIfAbsent(entry.getTag(), k -> new ArrayList<>()).add(position);
+        hotLevels.get(LogcatEntry.LEVELS.indexOf(entry.getLevel())).add(position);
+        entries++;
+        Matcher started = START_PROC.matcher(entry.getMessage());
+        if (started.find()) {
+            packagePids.computeIfAbsent(started.group(2), k -> new LinkedHashSet<>())
+                    .add(Integer.parseInt(started.group(1)));
+        }
+        listeners.forEach(listener -> listener.accept(entry));
+    }
+
+    /**
+     * Called with every entry as it is added, on the thread reading logcat.
+     */
+    public void addListener(Consumer<LogcatEntry> listener) {
+        listeners.add(listener);
+    }
+
+    private void spill() {
+        Path file = directory.resolve("segment-" + segments.size() + ".seg");
+        try {
+            Files.createDirectories(directory);
+            segments.add(LogcatSegment.write(file, hot, blockSize));
+            file.toFile().deleteOnExit();
+        } catch (IOException e) {
+            logger.error("Could not spill logcat to " + file + ", dropping " + hot.size() + " entries", e);
+        }
+        hot = new ArrayList<>();
+        hotPids = new HashMap<>();
+        hotTags = new HashMap<>();
+        hotLevels = newLevelLists();
+    }
+
+    /**
+     * Pids the app ran as, from the {@code Start proc <pid>:<package>} lines seen so far.
+     */
+    public synchronized Set<Integer> pidsOf(String packageName) {
+        return new LinkedHashSet<>(packagePids.getOrDefault(packageName, Collections.emptySet()));
+    }
+
+    public synchronized List<LogcatEntry> query(Query query) {
+        if (query.packageName != null) {
+            Set<Integer> pids = query.pids != null ? new HashSet<>(query.pids) : new HashSet<>();
+            pids.addAll(packagePids.getOrDefault(query.packageName, Collections.emptySet()));
+            query = query.copy().withPids(pids);
+        }
+        Predicate<LogcatEntry> filter = query::matches;
+        List<LogcatEntry> results = new ArrayList<>();
+        for (LogcatSegment segment : segments) {
+            BitSet blocks = segment.candidateBlocks(query);
+            blocksRead += blocks.cardinality();
+            try {
+                segment.read(blocks, filter, results);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not read logcat segment", e);
+            }
+        }
+        int start = firstHotPosition(query.fromSequence);
+        List<Integer> candidates = hotCandidates(query);
+        if (candidates == null) {
+            for (int position = start; position < hot.size(); position++) {
+                if (filter.test(hot.get(position))) {
+                    results.add(hot.get(position));
+                }
+            }
+        } else {
+            for (int position : candidates) {
+                if (position >= start && filter.test(hot.get(position))) {
+                    results.add(hot.get(position));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Smallest sorted posting list among the indexed criteria, null when none is set.
+     */
+    private List<Integer> hotCandidates(Query query) {
+        List<List<Integer>> lists = new ArrayList<>();
+        if (query.pids != null) {
+            lists.add(union(query.pids.stream().map(hotPids::get)));
+        }
+        if (query.tag != null) {
+            lists.add(hotTags.getOrDefault(query.tag, Collections.emptyList()));
+        }
+        if (query.minLevel != 'V') {
+            lists.add(union(hotLevels.subList(LogcatEntry.LEVELS.indexOf(query.minLevel), hotLevels.size()).stream()));
+        }
+        List<Integer> smallest = null;
+        for (List<Integer> list : lists) {
+            if (smallest == null || list.size() < smallest.size()) {
+                smallest = list;
+            }
+        }
+        return smallest;
+    }
+
+    private static List<Integer> union(Stream<List<Integer>> lists) {
+        List<Integer> union = new ArrayList<>();
+        lists.filter(list -> list != null).forEach(union::addAll);
+        Collections.sort(union);
+        return union;
+    }
+
+    private int firstHotPosition(long sequence) {
+        int low = 0;
+        int high = hot.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (hot.get(middle).getSequence() < sequence) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static List<List<Integer>> newLevelLists() {
+        List<List<Integer>> levels = new ArrayList<>();
+        for (int i = 0; i < LogcatEntry.LEVELS.length(); i++) {
+            levels.add(new ArrayList<>());
+        }
+        return levels;
+    }
+
+    public synchronized long getEntryCount() {
+        return entries;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Compressed blocks decompressed by queries so far.
+     */
+    public synchronized long getBlocksRead() {
+        return blocksRead;
+    }
+
+    public synchronized void close() {
+        for (LogcatSegment segment : segments) {
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                logger.warn("Could not delete logcat segment", e);
+            }
+        }
+        segments.clear();
+        directory.toFile().delete();
+    }
+
+    /**
+     * Criteria of a {@link #query}, all optional, e.g.
+     * {@code new Query().packageName("com.zoomcar.debug").minLevel('E').since(checkpoint)}.
+     */
+    public static class Query {
+
+        private Set<Integer> pids;
+        private String packageName;
+        private String tag;
+        private char minLevel = 'V';
+        private long fromSequence = 0;
+        private String text;
+
+        public Query pid(int pid) {
+            if (pids == null) {
+                pids = new HashSet<>();
+            }
+            pids.add(pid);
+            return this;
+        }
+
+        /**
+         * Entries of any pid the package was started as.
+         */
+        public Query packageName(String packageName) {
+            this.packageName = packageName;
+            return this;
+        }
+
+        public Query tag(String tag) {
+            this.tag = tag;
+            return this;
+        }
+
+        public Query minLevel(char minLevel) {
+            this.minLevel = minLevel;
+            return this;
+        }
+
+        public Query since(long checkpoint) {
+            this.fromSequence = checkpoint;
+            return this;
+        }
+
+        public Query containing(String text) {
+            this.text = text;
+            return this;
+        }
+
+        boolean matches(LogcatEntry entry) {
+            return entry.getSequence() >= fromSequence
+                    && (pids == null || pids.contains(entry.getPid()))
+                    && (tag == null || tag.equals(entry.getTag()))
+                    && entry.isAtLeast(minLevel)
+                    && (text == null || entry.getMessage().contains(text));
+        }
+
+        private Query copy() {
+            Query copy = new Query();
+            copy.pids = pids;
+            copy.tag = tag;
+            copy.minLevel = minLevel;
+            copy.fromSequence = fromSequence;
+            copy.text = text;
+            return copy;
+        }
+
+        private Query withPids(Set<Integer> pids) {
+            this.pids = pids;
+            return this;
+        }
+
+        Set<Integer> getPids() {
+            return pids;
+        }
+
+        String getTag() {
+            return tag;
+        }
+
+        char getMinLevel() {
+            return minLevel;
+        }
+
+        long getFromSequence() {
+            return fromSequence;
+        }
+    }
+}
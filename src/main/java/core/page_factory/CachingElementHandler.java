@@ -0,0 +1,47 @@
+package core.page_factory;
+
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Proxy handler for page object fields. Calls go to the cached element; a StaleElementReference
+ * drops it and the call is retried once on a freshly found element.
+ */
+class CachingElementHandler implements InvocationHandler {
+
+    private final CachingElementLocator locator;
+
+    CachingElementHandler(CachingElementLocator locator) {
+        this.locator = locator;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        //toString is used as the WaitEngine key, it must not trigger a find
+        if ("toString".equals(method.getName()) && method.getParameterCount() == 0) {
+            return locator.toString();
+        }
+        WebElement element = locator.findElement();
+        if ("getWrappedElement".equals(method.getName())) {
+            return element;
+        }
+        try {
+            return method.invoke(element, args);
+        } catch (InvocationTargetException e) {
+            if (!(e.getCause() instanceof StaleElementReferenceException)) {
+                throw e.getCause();
+            }
+        }
+        locator.invalidate();
+        locator.getCache().recordStaleRetry();
+        try {
+            return method.invoke(locator.findElement(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
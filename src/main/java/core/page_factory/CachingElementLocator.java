@@ -0,0 +1,63 @@
+package core.page_factory;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+
+import java.util.List;
+
+/**
+ * Keeps the element a locator resolved until it goes stale or the screen changes. Lists are not
+ * cached, waits such as waitForElementsCount rely on every call seeing the current list. When the
+ * field's native locator is known, a miss is first resolved through the page's snapshot.
+ */
+class CachingElementLocator implements ElementLocator {
+
+    private final ElementLocator delegate;
+    private final ElementCache cache;
+    private final By by;
+    private WebElement cachedElement;
+    private long cachedGeneration;
+
+    CachingElementLocator(ElementLocator delegate, ElementCache cache) {
+        this(delegate, cache, null);
+    }
+
+    CachingElementLocator(ElementLocator delegate, ElementCache cache, By by) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.by = by;
+    }
+
+    @Override
+    public synchronized WebElement findElement() {
+        long generation = cache.getScreenGeneration();
+        if (cachedElement != null && cachedGeneration == generation) {
+            cache.recordHit();
+            return cachedElement;
+        }
+        cache.recordMiss();
+        WebElement element = by == null ? null : cache.findWithSnapshot(by);
+        cachedElement = element != null ? element : delegate.findElement();
+        cachedGeneration = generation;
+        return cachedElement;
+    }
+
+    @Override
+    public List<WebElement> findElements() {
+        return delegate.findElements();
+    }
+
+    synchronized void invalidate() {
+        cachedElement = null;
+    }
+
+    ElementCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
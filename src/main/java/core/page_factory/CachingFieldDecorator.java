@@ -0,0 +1,149 @@
+package core.page_factory;
+
+import io.appium.java_client.HasSessionDetails;
+import io.appium.java_client.pagefactory.AndroidFindAll;
+import io.appium.java_client.pagefactory.AndroidFindBy;
+import io.appium.java_client.pagefactory.AndroidFindBySet;
+import io.appium.java_client.pagefactory.AndroidFindBys;
+import io.appium.java_client.pagefactory.AppiumElementLocatorFactory;
+import io.appium.java_client.pagefactory.DefaultElementByBuilder;
+import io.appium.java_client.remote.AutomationName;
+import io.appium.java_client.remote.MobilePlatform;
+import org.apache.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Locatable;
+import org.openqa.selenium.internal.WrapsElement;
+import org.openqa.selenium.support.pagefactory.DefaultFieldDecorator;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Drop-in replacement for {@code new AppiumFieldDecorator(driver, Duration.ZERO)} that resolves each
+ * element once per page instance instead of on every call. Locators are still built by java-client,
+ * so {@code @AndroidFindBy} and {@code @FindBy} fields keep working unchanged. XPath fields are
+ * resolved through the page source snapshot of {@link ElementCache}.
+ */
+public class CachingFieldDecorator extends DefaultFieldDecorator {
+
+    private static Logger logger = Logger.getLogger(CachingFieldDecorator.class);
+
+    private final ElementCache cache;
+    private final Function<Field, By> nativeBys;
+
+    public CachingFieldDecorator(SearchContext searchContext) {
+        this(searchContext, new ElementCache(searchContext));
+    }
+
+    public CachingFieldDecorator(SearchContext searchContext, ElementCache cache) {
+        this(searchContext, cache, getPlatform(searchContext), getAutomation(searchContext));
+    }
+
+    private CachingFieldDecorator(SearchContext searchContext, ElementCache cache, String platform, String automation) {
+        this(new AppiumElementLocatorFactory(searchContext, Duration.ZERO, new DefaultElementByBuilder(platform, automation)),
+                cache, field -> new NativeByBuilder(platform, automation).build(field));
+    }
+
+    CachingFieldDecorator(ElementLocatorFactory factory, ElementCache cache) {
+        this(factory, cache, field -> null);
+    }
+
+    CachingFieldDecorator(ElementLocatorFactory factory, ElementCache cache, Function<Field, By> nativeBys) {
+        super(factory);
+        this.cache = cache;
+        this.nativeBys = nativeBys;
+    }
+
+    public ElementCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public Object decorate(ClassLoader loader, Field field) {
+        if (!WebElement.class.equals(field.getType()) && !isDecoratableList(field)) {
+            return null;
+        }
+        ElementLocator locator = factory.createLocator(field);
+        if (locator == null) {
+            return null;
+        }
+        if (WebElement.class.equals(field.getType())) {
+            return proxyForLocator(loader, new CachingElementLocator(locator, cache, nativeBys.apply(field)));
+        }
+        return proxyForListLocator(loader, locator);
+    }
+
+    @Override
+    protected boolean isDecoratableList(Field field) {
+        if (super.isDecoratableList(field)) {
+            return true;
+        }
+        if (!List.class.equals(field.getType()) || !(field.getGenericType() instanceof ParameterizedType)) {
+            return false;
+        }
+        Type listType = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+        return WebElement.class.equals(listType) && (field.getAnnotation(AndroidFindBy.class) != null
+                || field.getAnnotation(AndroidFindBySet.class) != null
+                || field.getAnnotation(AndroidFindBys.class) != null
+                || field.getAnnotation(AndroidFindAll.class) != null);
+    }
+
+    @Override
+    protected WebElement proxyForLocator(ClassLoader loader, ElementLocator locator) {
+        return (WebElement) Proxy.newProxyInstance(loader,
+                new Class<?>[]{WebElement.class, WrapsElement.class, Locatable.class},
+                new CachingElementHandler((CachingElementLocator) locator));
+    }
+
+    private static String getPlatform(SearchContext searchContext) {
+        if (searchContext instanceof HasSessionDetails) {
+            String platform = ((HasSessionDetails) searchContext).getPlatformName();
+            if (platform != null) {
+                return platform;
+            }
+        }
+        logger.debug("No platform in session details, building Android locators");
+        return MobilePlatform.ANDROID;
+    }
+
+    private static String getAutomation(SearchContext searchContext) {
+        if (searchContext instanceof HasSessionDetails) {
+            String automation = ((HasSessionDetails) searchContext).getAutomationName();
+            if (automation != null) {
+                return automation;
+            }
+        }
+        return AutomationName.ANDROID_UIAUTOMATOR2;
+    }
+
+    /**
+     * The locator java-client would send for a native app, without the content mapping wrapper
+     * {@link DefaultElementByBuilder#buildBy()} adds. Null when the annotations can not be read.
+     */
+    private static class NativeByBuilder extends DefaultElementByBuilder {
+
+        NativeByBuilder(String platform, String automation) {
+            super(platform, automation);
+        }
+
+        By build(Field field) {
+            setAnnotated(field);
+            try {
+                By by = buildMobileNativeBy();
+                return by != null ? by : buildDefaultBy();
+            } catch (RuntimeException e) {
+                logger.debug("No native locator for " + field.getName() + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package core.page_factory;
+
+import core.page_source.SnapshotLocatorEngine;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit/miss bookkeeping for the elements of one page object, and the screen generation its cached
+ * elements belong to. Actions that leave the current screen (back, activateApp, startActivity, app
+ * reset) call {@link #markScreenTransition(SearchContext)}, which makes every element cached for
+ * that driver stale without a round trip.
+ * <p>
+ * XPath fields are looked up in one page source snapshot shared by the page's elements and found
+ * on the server by the id or content-desc of the matching node. Disable with
+ * {@code -Dpage.snapshot.xpath=false}.
+ */
+public class ElementCache {
+
+    private static final Map<SearchContext, AtomicLong> screenGenerations =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    private static final AtomicLong totalHits = new AtomicLong();
+    private static final AtomicLong totalMisses = new AtomicLong();
+    private static final AtomicLong totalStaleRetries = new AtomicLong();
+    private static final boolean SNAPSHOT_XPATH = Boolean.parseBoolean(System.getProperty("page.snapshot.xpath", "true"));
+    private static final long SNAPSHOT_MAX_AGE_MS = Long.getLong("page.snapshot.max.age.ms", 2000);
+
+    private final SearchContext searchContext;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleRetries = new AtomicLong();
+    private final SnapshotLocatorEngine snapshotEngine;
+    private long snapshotGeneration = -1;
+    private long snapshotTakenAt;
+
+    public ElementCache(SearchContext searchContext) {
+        this(searchContext, SNAPSHOT_XPATH && searchContext instanceof WebDriver
+                ? new SnapshotLocatorEngine(((WebDriver) searchContext)::getPageSource, searchContext) : null);
+    }
+
+    ElementCache(SearchContext searchContext, SnapshotLocatorEngine snapshotEngine) {
+        this.searchContext = searchContext;
+        this.snapshotEngine = snapshotEngine;
+    }
+
+    public static void markScreenTransition(SearchContext searchContext) {
+        screenGenerations.computeIfAbsent(searchContext, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    long getScreenGeneration() {
+        AtomicLong generation = screenGenerations.get(searchContext);
+        return generation == null ? 0 : generation.get();
+    }
+
+    /**
+     * Live element for an XPath locator, resolved through the page source snapshot of the current
+     * screen. Returns null when there is no snapshot engine or no matching node, the caller then
+     * asks the server with the original locator.
+     */
+    WebElement findWithSnapshot(By by) {
+        if (snapshotEngine == null || !(by instanceof By.ByXPath)) {
+            return null;
+        }
+        synchronized (this) {
+            long generation = getScreenGeneration();
+            long now = System.currentTimeMillis();
+            if (generation != snapshotGeneration || now - snapshotTakenAt > SNAPSHOT_MAX_AGE_MS) {
+                snapshotEngine.invalidate();
+                snapshotGeneration = generation;
+                snapshotTakenAt = now;
+            }
+        }
+        try {
+            return snapshotEngine.resolve(by);
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    SnapshotLocatorEngine getSnapshotEngine() {
+        return snapshotEngine;
+    }
+
+    SearchContext getSearchContext() {
+        return searchContext;
+    }
+
+    void recordHit() {
+        hits.incrementAndGet();
+        totalHits.incrementAndGet();
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+        totalMisses.incrementAndGet();
+    }
+
+    void recordStaleRetry() {
+        staleRetries.incrementAndGet();
+        totalStaleRetries.incrementAndGet();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getStaleRetries() {
+        return staleRetries.get();
+    }
+
+    public double getHitRate() {
+        return hitRate(hits.get(), misses.get());
+    }
+
+    /**
+     * Hit rate over all page objects since the JVM started.
+     */
+    public static String getStats() {
+        return "Element cache: hits=" + totalHits.get() + ", misses=" + totalMisses.get()
+                + ", stale retries=" + totalStaleRetries.get()
+                + ", hit rate=" + String.format("%.1f%%", hitRate(totalHits.get(), totalMisses.get()) * 100);
+    }
+
+    private static double hitRate(long hits, long misses) {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
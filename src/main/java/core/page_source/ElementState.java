@@ -0,0 +1,99 @@
+package core.page_source;
+
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * The state attributes page objects and tests check on an element, read in one go.
+ */
+public class ElementState {
+
+    private static final ElementState ABSENT = new ElementState(false, "", false, false, false, null, false);
+
+    private final boolean present;
+    private final String text;
+    private final boolean enabled;
+    private final boolean checked;
+    private final boolean checkable;
+    private final Rectangle bounds;
+    private final boolean displayed;
+
+    private ElementState(boolean present, String text, boolean enabled, boolean checked, boolean checkable,
+                         Rectangle bounds, boolean displayed) {
+        this.present = present;
+        this.text = text;
+        this.enabled = enabled;
+        this.checked = checked;
+        this.checkable = checkable;
+        this.bounds = bounds;
+        this.displayed = displayed;
+    }
+
+    public static ElementState absent() {
+        return ABSENT;
+    }
+
+    public static ElementState of(SnapshotElement element) {
+        if (element == null) {
+            return ABSENT;
+        }
+        return new ElementState(true, element.getText(), element.isEnabled(), element.isChecked(),
+                element.isCheckable(), element.getBounds(), element.isDisplayed());
+    }
+
+    /**
+     * Reads the state from the server one attribute at a time, six round trips. Only for elements a
+     * snapshot can not locate.
+     */
+    public static ElementState read(WebElement element) {
+        try {
+            return new ElementState(true, element.getText(), element.isEnabled(),
+                    Boolean.parseBoolean(element.getAttribute("checked")),
+                    Boolean.parseBoolean(element.getAttribute("checkable")),
+                    element.getRect(), element.isDisplayed());
+        } catch (NoSuchElementException | StaleElementReferenceException e) {
+            return ABSENT;
+        }
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isChecked() {
+        return checked;
+    }
+
+    public boolean isCheckable() {
+        return checkable;
+    }
+
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    public boolean isDisplayed() {
+        return displayed;
+    }
+
+    @Override
+    public String toString() {
+        if (!present) {
+            return "ElementState[absent]";
+        }
+        return "ElementState[text=" + text + ", enabled=" + enabled + ", checked=" + checked
+                + ", checkable=" + checkable + ", displayed=" + displayed + ", bounds="
+                + (bounds == null ? null : "[" + bounds.getX() + "," + bounds.getY() + "," + bounds.getWidth()
+                + "x" + bounds.getHeight() + "]") + "]";
+    }
+}
@@ -0,0 +1,266 @@
+package core.page_source;
+
+import com.google.common.hash.Hashing;
+import org.openqa.selenium.By;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A UiAutomator2 page source parsed once into an in-memory tree, indexed by resource-id, text,
+ * content-desc and class. id, accessibility id, class name and XPath locators are evaluated
+ * locally; simple {@code //class[@attr='value']} XPaths are answered from the indexes.
+ */
+public class PageSourceSnapshot {
+
+    private static final Pattern SIMPLE_XPATH = Pattern.compile(
+            "^//([\\w.$]+|\\*)\\[@(text|resource-id|content-desc)=(?:'([^']*)'|\"([^\"]*)\")\\]$");
+    private static final Map<String, XPathExpression> compiledXpaths = new ConcurrentHashMap<>();
+
+    private final String pageSource;
+    private final Element root;
+    private final List<SnapshotElement> elements = new ArrayList<>();
+    private final Map<Element, SnapshotElement> elementsByNode = new IdentityHashMap<>();
+    private final Map<String, List<SnapshotElement>> byResourceId = new HashMap<>();
+    private final Map<String, List<SnapshotElement>> byText = new HashMap<>();
+    private final Map<String, List<SnapshotElement>> byContentDesc = new HashMap<>();
+    private final Map<String, List<SnapshotElement>> byClassName = new HashMap<>();
+    private final long createdAt = System.currentTimeMillis();
+    private String fingerprint;
+
+    private PageSourceSnapshot(String pageSource, Element root) {
+        this.pageSource = pageSource;
+        this.root = root;
+        index(root, "");
+    }
+
+    public static PageSourceSnapshot parse(String pageSource) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            Element root = builder.parse(new InputSource(new StringReader(pageSource))).getDocumentElement();
+            return new PageSourceSnapshot(pageSource, root);
+        } catch (Exception e) {
+            throw new RuntimeException("Page source is not valid XML", e);
+        }
+    }
+
+    public String getPageSource() {
+        return pageSource;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<SnapshotElement> getElements() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * Hash of what is on screen: class, resource-id, text, content-desc and bounds of every node.
+     * Two snapshots with the same fingerprint show the same content, e.g. a list that did not move.
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            StringBuilder visible = new StringBuilder();
+            for (SnapshotElement element : elements) {
+                visible.append(element.getClassName()).append('|').append(element.getResourceId()).append('|')
+                        .append(element.getText()).append('|').append(element.getContentDesc()).append('|')
+                        .append(element.getAttribute("bounds")).append('\n');
+            }
+            fingerprint = Hashing.murmur3_128().hashString(visible, StandardCharsets.UTF_8).toString();
+        }
+        return fingerprint;
+    }
+
+    public List<SnapshotElement> findByResourceId(String resourceId) {
+        return byResourceId.getOrDefault(resourceId, Collections.emptyList());
+    }
+
+    public List<SnapshotElement> findByText(String text) {
+        return byText.getOrDefault(text, Collections.emptyList());
+    }
+
+    public List<SnapshotElement> findByContentDesc(String contentDesc) {
+        return byContentDesc.getOrDefault(contentDesc, Collections.emptyList());
+    }
+
+    public List<SnapshotElement> findByClassName(String className) {
+        return byClassName.getOrDefault(className, Collections.emptyList());
+    }
+
+    /**
+     * Evaluates the locator against this snapshot.
+     *
+     * @throws UnsupportedOperationException for strategies that only the server can evaluate,
+     *                                       such as -android uiautomator or chained locators
+     */
+    public List<SnapshotElement> findAll(By by) {
+        return findAll(by.toString());
+    }
+
+    /**
+     * Same as {@link #findAll(By)} for a locator description such as {@code By.id: button_find_cars}.
+     */
+    public List<SnapshotElement> findAll(String description) {
+        int separator = description.indexOf(": ");
+        if (separator < 0) {
+            throw new UnsupportedOperationException("Can not evaluate " + description + " on a snapshot");
+        }
+        String strategy = description.substring(0, separator);
+        String value = description.substring(separator + 2);
+        switch (strategy) {
+            case "By.id":
+                return findById(value);
+            case "By.AccessibilityId":
+                return findByContentDesc(value);
+            case "By.className":
+                return findByClassName(value);
+            case "By.xpath":
+                return findByXpath(value);
+            default:
+                throw new UnsupportedOperationException("Can not evaluate " + description + " on a snapshot");
+        }
+    }
+
+    public SnapshotElement findFirst(By by) {
+        List<SnapshotElement> found = findAll(by);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * UiAutomator2 prefixes ids without a package with the package of the app under test, so an
+     * unqualified id matches any {@code <package>:id/<value>} resource-id.
+     */
+    private List<SnapshotElement> findById(String id) {
+        if (id.contains(":id/")) {
+            return findByResourceId(id);
+        }
+        List<SnapshotElement> found = new ArrayList<>();
+        String suffix = ":id/" + id;
+        for (Map.Entry<String, List<SnapshotElement>> entry : byResourceId.entrySet()) {
+            if (entry.getKey().endsWith(suffix) || entry.getKey().equals(id)) {
+                found.addAll(entry.getValue());
+            }
+        }
+        return found;
+    }
+
+    private List<SnapshotElement> findByXpath(String xpath) {
+        Matcher matcher = SIMPLE_XPATH.matcher(xpath);
+        if (matcher.matches()) {
+            String className = matcher.group(1);
+            String attribute = matcher.group(2);
+            String value = matcher.group(3) != null ? matcher.group(3) : matcher.group(4);
+            List<SnapshotElement> candidates = attribute.equals("text") ? findByText(value)
+                    : attribute.equals("resource-id") ? findByResourceId(value) : findByContentDesc(value);
+            if (className.equals("*")) {
+                return candidates;
+            }
+            List<SnapshotElement> found = new ArrayList<>();
+            for (SnapshotElement candidate : candidates) {
+                if (candidate.getClassName().equals(className)) {
+                    found.add(candidate);
+                }
+            }
+            return found;
+        }
+        try {
+            XPathExpression expression = compiledXpaths.computeIfAbsent(xpath, PageSourceSnapshot::compile);
+            NodeList nodes;
+            synchronized (expression) { //compiled expressions are shared but not thread safe
+                nodes = (NodeList) expression.evaluate(root.getOwnerDocument(), XPathConstants.NODESET);
+            }
+            List<SnapshotElement> found = new ArrayList<>();
+            for (int i = 0; i < nodes.getLength(); i++) {
+                SnapshotElement element = elementsByNode.get(nodes.item(i));
+                if (element != null) {
+                    found.add(element);
+                }
+            }
+            return found;
+        } catch (XPathExpressionException e) {
+            throw new RuntimeException("Invalid XPath " + xpath, e);
+        }
+    }
+
+    private static XPathExpression compile(String xpath) {
+        try {
+            XPath compiler = XPathFactory.newInstance().newXPath();
+            return compiler.compile(xpath);
+        } catch (XPathExpressionException e) {
+            throw new RuntimeException("Invalid XPath " + xpath, e);
+        }
+    }
+
+    private void index(Element node, String parentPath) {
+        String className = node.getAttribute("class");
+        if (className.isEmpty()) {
+            className = node.getTagName();
+        }
+        String path = parentPath + "/" + node.getTagName() + "[" + positionAmongSameTag(node) + "]";
+        if (node != root) {
+            Map<String, String> attributes = new LinkedHashMap<>();
+            NamedNodeMap nodeAttributes = node.getAttributes();
+            for (int i = 0; i < nodeAttributes.getLength(); i++) {
+                Node attribute = nodeAttributes.item(i);
+                attributes.put(attribute.getNodeName(), attribute.getNodeValue());
+            }
+            SnapshotElement element = new SnapshotElement(this, className, attributes, path);
+            elements.add(element);
+            elementsByNode.put(node, element);
+            addToIndex(byResourceId, attributes.get("resource-id"), element);
+            addToIndex(byText, attributes.get("text"), element);
+            addToIndex(byContentDesc, attributes.get("content-desc"), element);
+            addToIndex(byClassName, className, element);
+        }
+        NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (children.item(i) instanceof Element) {
+                index((Element) children.item(i), node == root ? "/" + root.getTagName() : path);
+            }
+        }
+    }
+
+    private static int positionAmongSameTag(Element node) {
+        int position = 1;
+        for (Node sibling = node.getPreviousSibling(); sibling != null; sibling = sibling.getPreviousSibling()) {
+            if (sibling instanceof Element && ((Element) sibling).getTagName().equals(node.getTagName())) {
+                position++;
+            }
+        }
+        return position;
+    }
+
+    private static void addToIndex(Map<String, List<SnapshotElement>> index, String key, SnapshotElement element) {
+        if (key != null && !key.isEmpty()) {
+            index.computeIfAbsent(key, k -> new ArrayList<>()).add(element);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package core.page_source;
+
+import io.appium.java_client.MobileBy;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One node of a {@link PageSourceSnapshot}. Attribute reads are local, only {@link #toServerLocator()}
+ * is meant to reach the server, for the actual interaction.
+ */
+public class SnapshotElement {
+
+    private final PageSourceSnapshot snapshot;
+    private final String className;
+    private final Map<String, String> attributes;
+    private final String absoluteXpath;
+    private final Rectangle bounds;
+
+    SnapshotElement(PageSourceSnapshot snapshot, String className, Map<String, String> attributes, String absoluteXpath) {
+        this.snapshot = snapshot;
+        this.className = className;
+        this.attributes = Collections.unmodifiableMap(attributes);
+        this.absoluteXpath = absoluteXpath;
+        this.bounds = parseBounds(attributes.get("bounds"));
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public String getText() {
+        return attributes.getOrDefault("text", "");
+    }
+
+    public String getResourceId() {
+        return attributes.getOrDefault("resource-id", "");
+    }
+
+    public String getContentDesc() {
+        return attributes.getOrDefault("content-desc", "");
+    }
+
+    public boolean isEnabled() {
+        return Boolean.parseBoolean(attributes.get("enabled"));
+    }
+
+    public boolean isChecked() {
+        return Boolean.parseBoolean(attributes.get("checked"));
+    }
+
+    public boolean isCheckable() {
+        return Boolean.parseBoolean(attributes.get("checkable"));
+    }
+
+    /**
+     * UiAutomator2 only reports {@code displayed} on newer servers, without it a node with a
+     * non-empty area is treated as displayed.
+     */
+    public boolean isDisplayed() {
+        String displayed = attributes.get("displayed");
+        if (displayed != null) {
+            return Boolean.parseBoolean(displayed);
+        }
+        return bounds != null && bounds.getWidth() > 0 && bounds.getHeight() > 0;
+    }
+
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    public Point getCenter() {
+        return bounds == null ? null
+                : new Point(bounds.getX() + bounds.getWidth() / 2, bounds.getY() + bounds.getHeight() / 2);
+    }
+
+    public String getAbsoluteXpath() {
+        return absoluteXpath;
+    }
+
+    /**
+     * Cheapest server side locator that matches exactly this node: a unique resource-id, a unique
+     * content-desc, else the absolute XPath of the node.
+     */
+    public By toServerLocator() {
+        String resourceId = getResourceId();
+        if (!resourceId.isEmpty() && snapshot.findByResourceId(resourceId).size() == 1) {
+            return By.id(resourceId);
+        }
+        String contentDesc = getContentDesc();
+        if (!contentDesc.isEmpty() && snapshot.findByContentDesc(contentDesc).size() == 1) {
+            return MobileBy.AccessibilityId(contentDesc);
+        }
+        return By.xpath(absoluteXpath);
+    }
+
+    private static Rectangle parseBounds(String bounds) {
+        if (bounds == null || !bounds.startsWith("[")) {
+            return null;
+        }
+        String[] values = bounds.replace("][", ",").replace("[", "").replace("]", "").split(",");
+        if (values.length != 4) {
+            return null;
+        }
+        int left = Integer.parseInt(values[0].trim());
+        int top = Integer.parseInt(values[1].trim());
+        int right = Integer.parseInt(values[2].trim());
+        int bottom = Integer.parseInt(values[3].trim());
+        return new Rectangle(left, top, bottom - top, right - left);
+    }
+
+    @Override
+    public String toString() {
+        return className + "{resource-id=" + getResourceId() + ", text=" + getText()
+                + ", content-desc=" + getContentDesc() + ", bounds=" + attributes.get("bounds") + "}";
+    }
+}
@@ -0,0 +1,148 @@
+package core.page_source;
+
+import io.appium.java_client.AppiumDriver;
+import org.apache.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Resolves many locators with a single getPageSource round trip. Lookups run against the current
+ * {@link PageSourceSnapshot}; the server is only contacted to refresh the snapshot and, through
+ * {@link #resolve(By)}, to get a live element for the actual interaction.
+ */
+public class SnapshotLocatorEngine {
+
+    private static Logger logger = Logger.getLogger(SnapshotLocatorEngine.class);
+
+    private static final String PROXY_PREFIX = "Located by ";
+
+    private final Supplier<String> pageSourceSupplier;
+    private final SearchContext searchContext;
+    private final AtomicLong serverRoundTrips = new AtomicLong();
+    private volatile PageSourceSnapshot snapshot;
+
+    public SnapshotLocatorEngine(AppiumDriver driver) {
+        this(driver::getPageSource, driver);
+    }
+
+    public SnapshotLocatorEngine(Supplier<String> pageSourceSupplier, SearchContext searchContext) {
+        this.pageSourceSupplier = pageSourceSupplier;
+        this.searchContext = searchContext;
+    }
+
+    public PageSourceSnapshot refresh() {
+        serverRoundTrips.incrementAndGet();
+        long start = System.currentTimeMillis();
+        snapshot = PageSourceSnapshot.parse(pageSourceSupplier.get());
+        logger.debug("Page source snapshot with " + snapshot.getElements().size() + " nodes taken in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return snapshot;
+    }
+
+    public PageSourceSnapshot getSnapshot() {
+        PageSourceSnapshot current = snapshot;
+        return current == null ? refresh() : current;
+    }
+
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    public SnapshotElement find(By by) {
+        return getSnapshot().findFirst(by);
+    }
+
+    public List<SnapshotElement> findAll(By by) {
+        return getSnapshot().findAll(by);
+    }
+
+    /**
+     * Evaluates all locators against one snapshot.
+     */
+    public Map<By, List<SnapshotElement>> findAll(By... bys) {
+        PageSourceSnapshot current = getSnapshot();
+        Map<By, List<SnapshotElement>> found = new LinkedHashMap<>();
+        for (By by : bys) {
+            found.put(by, current.findAll(by));
+        }
+        return found;
+    }
+
+    /**
+     * State of the first match of every locator, from one fresh snapshot.
+     */
+    public Map<By, ElementState> getStates(By... bys) {
+        PageSourceSnapshot current = refresh();
+        Map<By, ElementState> states = new LinkedHashMap<>();
+        for (By by : bys) {
+            states.put(by, ElementState.of(current.findFirst(by)));
+        }
+        return states;
+    }
+
+    /**
+     * State of page object elements, from one fresh snapshot. Page object proxies describe
+     * themselves as {@code Located by <locator>}; elements whose locator the snapshot can not
+     * evaluate are read from the server one by one.
+     */
+    public List<ElementState> getStates(List<WebElement> elements) {
+        PageSourceSnapshot current = refresh();
+        List<ElementState> states = new ArrayList<>();
+        for (WebElement element : elements) {
+            String description = element.toString();
+            if (description.startsWith(PROXY_PREFIX)) {
+                try {
+                    List<SnapshotElement> found = current.findAll(description.substring(PROXY_PREFIX.length()));
+                    states.add(ElementState.of(found.isEmpty() ? null : found.get(0)));
+                    continue;
+                } catch (UnsupportedOperationException e) {
+                    logger.debug(description + " is not evaluable on a snapshot, reading it from the server");
+                }
+            }
+            serverRoundTrips.addAndGet(6);
+            states.add(ElementState.read(element));
+        }
+        return states;
+    }
+
+    /**
+     * Live element for interacting with the first match, looked up on the server with the
+     * cheapest locator that identifies the snapshot node. Locators the snapshot can not evaluate
+     * go to the server as they are.
+     */
+    public WebElement resolve(By by) {
+        By serverLocator;
+        try {
+            SnapshotElement element = find(by);
+            if (element == null) {
+                throw new NoSuchElementException("No element in page source snapshot for " + by);
+            }
+            serverLocator = element.toServerLocator();
+        } catch (UnsupportedOperationException e) {
+            serverLocator = by;
+        }
+        serverRoundTrips.incrementAndGet();
+        return searchContext.findElement(serverLocator);
+    }
+
+    /**
+     * All matches looked up on the server, for locators the snapshot can not evaluate.
+     */
+    public List<WebElement> findAllOnServer(By by) {
+        serverRoundTrips.incrementAndGet();
+        return searchContext.findElements(by);
+    }
+
+    public long getServerRoundTrips() {
+        return serverRoundTrips.get();
+    }
+}
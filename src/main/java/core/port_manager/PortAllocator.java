@@ -0,0 +1,122 @@
+package core.port_manager;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Leases the systemPort, chromedriverPort and mjpegServerPort of a session as one slot. Slot i owns
+ * port {@code base + i} of each range, so leased slots never overlap. A slot is held through an
+ * exclusive lock on {@code <java.io.tmpdir>/appium-port-locks/slot-i.lock}, which also keeps other
+ * JVMs on the host away and is dropped by the OS if the JVM dies. Ports already bound by something
+ * else are skipped with a socket probe.
+ */
+public class PortAllocator {
+
+    public static final int SYSTEM_PORT_BASE = Integer.getInteger("port.system.base", 8200);
+    public static final int CHROMEDRIVER_PORT_BASE = Integer.getInteger("port.chromedriver.base", 9600);
+    public static final int MJPEG_SERVER_PORT_BASE = Integer.getInteger("port.mjpeg.base", 7810);
+    public static final int SLOT_COUNT = Integer.getInteger("port.slot.count", 100);
+
+    private static Logger logger = Logger.getLogger(PortAllocator.class);
+    private static PortAllocator instance;
+
+    private final File lockDir;
+    private final int slotCount;
+    private final Set<Integer> slotsInUse = new HashSet<>();
+
+    public PortAllocator(File lockDir, int slotCount) {
+        this.lockDir = lockDir;
+        this.slotCount = slotCount;
+        if (!lockDir.isDirectory() && !lockDir.mkdirs()) {
+            throw new IllegalStateException("Can not create port lock directory " + lockDir);
+        }
+    }
+
+    public static synchronized PortAllocator getInstance() {
+        if (instance == null) {
+            instance = new PortAllocator(new File(System.getProperty("java.io.tmpdir"), "appium-port-locks"), SLOT_COUNT);
+        }
+        return instance;
+    }
+
+    public synchronized PortLease lease() {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotsInUse.contains(slot)) {
+                continue;
+            }
+            PortLease lease = tryLeaseSlot(slot);
+            if (lease != null) {
+                slotsInUse.add(slot);
+                logger.info("Leased " + lease);
+                return lease;
+            }
+        }
+        throw new RuntimeException("No free port slot out of " + slotCount + " in " + lockDir);
+    }
+
+    synchronized void release(PortLease lease) {
+        try {
+            lease.getLock().release();
+            lease.getChannel().close();
+        } catch (IOException e) {
+            logger.warn("Releasing port lock failed : " + e.getMessage());
+        }
+        slotsInUse.remove(lease.getSlot());
+        logger.info("Released " + lease);
+    }
+
+    private PortLease tryLeaseSlot(int slot) {
+        int systemPort = SYSTEM_PORT_BASE + slot;
+        int chromedriverPort = CHROMEDRIVER_PORT_BASE + slot;
+        int mjpegServerPort = MJPEG_SERVER_PORT_BASE + slot;
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(new File(lockDir, "slot-" + slot + ".lock").toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+                return null;
+            }
+            if (!isFree(systemPort) || !isFree(chromedriverPort) || !isFree(mjpegServerPort)) {
+                logger.debug("Port slot " + slot + " is bound by another process, skipping it");
+                lock.release();
+                channel.close();
+                return null;
+            }
+            return new PortLease(slot, systemPort, chromedriverPort, mjpegServerPort, channel, lock, this);
+        } catch (IOException | OverlappingFileLockException e) {
+            logger.debug("Port slot " + slot + " can not be locked : " + e.getMessage());
+            closeQuietly(channel);
+            return null;
+        }
+    }
+
+    private static boolean isFree(int port) {
+        try (ServerSocket socket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            socket.setReuseAddress(true);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package core.port_manager;
+
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+/**
+ * The per session ports of one allocator slot. Closing the lease frees the slot for other
+ * sessions in this and every other JVM on the host.
+ */
+public class PortLease implements AutoCloseable {
+
+    private final int slot;
+    private final int systemPort;
+    private final int chromedriverPort;
+    private final int mjpegServerPort;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final PortAllocator allocator;
+    private boolean released = false;
+
+    PortLease(int slot, int systemPort, int chromedriverPort, int mjpegServerPort,
+              FileChannel channel, FileLock lock, PortAllocator allocator) {
+        this.slot = slot;
+        this.systemPort = systemPort;
+        this.chromedriverPort = chromedriverPort;
+        this.mjpegServerPort = mjpegServerPort;
+        this.channel = channel;
+        this.lock = lock;
+        this.allocator = allocator;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public int getSystemPort() {
+        return systemPort;
+    }
+
+    public int getChromedriverPort() {
+        return chromedriverPort;
+    }
+
+    public int getMjpegServerPort() {
+        return mjpegServerPort;
+    }
+
+    FileChannel getChannel() {
+        return channel;
+    }
+
+    FileLock getLock() {
+        return lock;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!released) {
+            released = true;
+            allocator.release(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PortLease{slot=" + slot + ", systemPort=" + systemPort + ", chromedriverPort=" + chromedriverPort
+                + ", mjpegServerPort=" + mjpegServerPort + "}";
+    }
+}
@@ -0,0 +1,318 @@
+package core.utils;
+
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Talks to the adb server over its smart socket protocol on port 5037 instead of forking the adb
+ * binary for every device operation.
+ * <p>
+ * Every request is a 4 digit hex length followed by the service name and is answered with OKAY or
+ * FAIL and a message. The server closes the socket once a host or device service is done, so only
+ * a {@link SyncSession} reuses its connection, for any number of push, pull and stat requests.
+ */
+public class AdbClient {
+
+    public static final String DEFAULT_HOST = System.getProperty("adb.host", "127.0.0.1");
+    public static final int DEFAULT_PORT = Integer.getInteger("adb.port", 5037);
+    private static final int CONNECT_TIMEOUT_MS = Integer.getInteger("adb.connect.timeout.ms", 2000);
+    private static final int READ_TIMEOUT_MS = Integer.getInteger("adb.read.timeout.ms", 60000);
+    private static final int SYNC_MAX_CHUNK = 64 * 1024;
+    private static Logger logger = Logger.getLogger(AdbClient.class);
+
+    private final String host;
+    private final int port;
+    private final AtomicLong connections = new AtomicLong();
+
+    public AdbClient() {
+        this(DEFAULT_HOST, DEFAULT_PORT);
+    }
+
+    public AdbClient(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Serials of the attached devices with their state, e.g. {@code device}, {@code offline} or
+     * {@code unauthorized}, like {@code adb devices}.
+     */
+    public Map<String, String> devices() throws IOException {
+        try (Socket socket = connect()) {
+            request(socket, "host:devices");
+            Map<String, String> devices = new LinkedHashMap<>();
+            for (String line : readLengthPrefixed(socket.getInputStream()).split("\n")) {
+                String[] columns = line.trim().split("\\s+");
+                if (columns.length >= 2) {
+                    devices.put(columns[0], columns[1]);
+                }
+            }
+            return devices;
+        }
+    }
+
+    /**
+     * Output of a command in the device shell, stdout and stderr together.
+     *
+     * @param serial device serial, null for the only attached device
+     */
+    public String shell(String serial, String command) throws IOException {
+        return new String(openService(serial, "shell:" + command), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Raw stdout of a command, unlike {@link #shell} binary output such as {@code screencap -p}
+     * is not mangled by line ending translation.
+     */
+    public byte[] exec(String serial, String command) throws IOException {
+        return openService(serial, "exec:" + command);
+    }
+
+    /**
+     * Opens a sync connection for file transfers, close it when done.
+     */
+    public SyncSession openSync(String serial) throws IOException {
+        Socket socket = connect();
+        try {
+            transport(socket, serial);
+            request(socket, "sync:");
+            return new SyncSession(socket);
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    public void push(String serial, File local, String remotePath) throws IOException {
+        try (SyncSession sync = openSync(serial); InputStream in = new FileInputStream(local)) {
+            sync.push(in, remotePath, 0644, local.lastModified() / 1000);
+        }
+    }
+
+    public void pull(String serial, String remotePath, File local) throws IOException {
+        try (SyncSession sync = openSync(serial); OutputStream out = new FileOutputStream(local)) {
+            sync.pull(remotePath, out);
+        }
+    }
+
+    /**
+     * Number of sockets opened to the adb server so far.
+     */
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    private byte[] openService(String serial, String service) throws IOException {
+        try (Socket socket = connect()) {
+            transport(socket, serial);
+            request(socket, service);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[SYNC_MAX_CHUNK];
+            InputStream in = socket.getInputStream();
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(READ_TIMEOUT_MS);
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        connections.incrementAndGet();
+        return socket;
+    }
+
+    private void transport(Socket socket, String serial) throws IOException {
+        request(socket, serial == null ? "host:transport-any" : "host:transport:" + serial);
+    }
+
+    /**
+     * Sends a request and reads the OKAY, a FAIL is thrown with the server's message.
+     */
+    private void request(Socket socket, String service) throws IOException {
+        byte[] payload = service.getBytes(StandardCharsets.UTF_8);
+        OutputStream out = socket.getOutputStream();
+        out.write(String.format("%04x", payload.length).getBytes(StandardCharsets.US_ASCII));
+        out.write(payload);
+        out.flush();
+        String status = readAscii(socket.getInputStream(), 4);
+        if (status.equals("FAIL")) {
+            throw new IOException("adb " + service + " failed : " + readLengthPrefixed(socket.getInputStream()));
+        }
+        if (!status.equals("OKAY")) {
+            throw new IOException("adb " + service + " answered " + status);
+        }
+        logger.debug("adb " + service + " OKAY");
+    }
+
+    private static String readLengthPrefixed(InputStream in) throws IOException {
+        int length = Integer.parseInt(readAscii(in, 4), 16);
+        byte[] data = new byte[length];
+        new DataInputStream(in).readFully(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private static String readAscii(InputStream in, int length) throws IOException {
+        byte[] data = new byte[length];
+        new DataInputStream(in).readFully(data);
+        return new String(data, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * A sync: connection. Requests are a 4 byte id and a little endian length followed by data,
+     * files go in chunks of at most 64 KB.
+     */
+    public static class SyncSession implements AutoCloseable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final OutputStream out;
+
+        SyncSession(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(socket.getInputStream());
+            this.out = socket.getOutputStream();
+        }
+
+        public void push(InputStream content, String remotePath, int mode, long mtimeSeconds) throws IOException {
+            byte[] target = (remotePath + "," + mode).getBytes(StandardCharsets.UTF_8);
+            writeHeader("SEND", target.length);
+            out.write(target);
+            byte[] buffer = new byte[SYNC_MAX_CHUNK];
+            int read;
+            while ((read = readChunk(content, buffer)) > 0) {
+                writeHeader("DATA", read);
+                out.write(buffer, 0, read);
+            }
+            writeHeader("DONE", (int) mtimeSeconds);
+            out.flush();
+            String id = readId();
+            int length = readLittleEndianInt();
+            if (id.equals("FAIL")) {
+                throw new IOException("adb push to " + remotePath + " failed : " + readString(length));
+            }
+            if (!id.equals("OKAY")) {
+                throw new IOException("adb push to " + remotePath + " answered " + id);
+            }
+        }
+
+        /**
+         * @return number of bytes written to {@code target}
+         */
+        public long pull(String remotePath, OutputStream target) throws IOException {
+            byte[] path = remotePath.getBytes(StandardCharsets.UTF_8);
+            writeHeader("RECV", path.length);
+            out.write(path);
+            out.flush();
+            byte[] buffer = new byte[SYNC_MAX_CHUNK];
+            long total = 0;
+            while (true) {
+                String id = readId();
+                int length = readLittleEndianInt();
+                if (id.equals("DONE")) {
+                    return total;
+                }
+                if (id.equals("FAIL")) {
+                    throw new IOException("adb pull of " + remotePath + " failed : " + readString(length));
+                }
+                if (!id.equals("DATA") || length > SYNC_MAX_CHUNK) {
+                    throw new IOException("adb pull of " + remotePath + " answered " + id + " " + length);
+                }
+                in.readFully(buffer, 0, length);
+                target.write(buffer, 0, length);
+                total += length;
+            }
+        }
+
+        /**
+         * Size of a remote file, -1 if it does not exist.
+         */
+        public long size(String remotePath) throws IOException {
+            byte[] path = remotePath.getBytes(StandardCharsets.UTF_8);
+            writeHeader("STAT", path.length);
+            out.write(path);
+            out.flush();
+            String id = readId();
+            if (!id.equals("STAT")) {
+                throw new IOException("adb stat of " + remotePath + " answered " + id);
+            }
+            int mode = readLittleEndianInt();
+            long size = readLittleEndianInt() & 0xffffffffL;
+            readLittleEndianInt();
+            return mode == 0 ? -1 : size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writeHeader("QUIT", 0);
+                out.flush();
+            } finally {
+                socket.close();
+            }
+        }
+
+        private void writeHeader(String id, int length) throws IOException {
+            byte[] header = new byte[8];
+            System.arraycopy(id.getBytes(StandardCharsets.US_ASCII), 0, header, 0, 4);
+            header[4] = (byte) length;
+            header[5] = (byte) (length >> 8);
+            header[6] = (byte) (length >> 16);
+            header[7] = (byte) (length >> 24);
+            out.write(header);
+        }
+
+        private String readId() throws IOException {
+            return readAscii(in, 4);
+        }
+
+        private int readLittleEndianInt() throws IOException {
+            int b0 = in.read();
+            int b1 = in.read();
+            int b2 = in.read();
+            int b3 = in.read();
+            if ((b0 | b1 | b2 | b3) < 0) {
+                throw new EOFException();
+            }
+            return b0 | (b1 << 8) | (b2 << 16) | (b3 << 24);
+        }
+
+        private String readString(int length) throws IOException {
+            byte[] data = new byte[length];
+            in.readFully(data);
+            return new String(data, StandardCharsets.UTF_8);
+        }
+
+        private static int readChunk(InputStream content, byte[] buffer) throws IOException {
+            int total = 0;
+            int read;
+            while (total < buffer.length && (read = content.read(buffer, total, buffer.length - total)) != -1) {
+                total += read;
+            }
+            return total;
+        }
+    }
+}
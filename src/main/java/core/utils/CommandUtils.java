@@ -2,11 +2,7 @@ package core.utils;
 
 import org.apache.log4j.Logger;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,34 +14,26 @@ public class CommandUtils {
         osType = System.getProperty("os.name");
     }
 
-    private BufferedReader getBufferedReader(String command) throws IOException {
-        List<String> commands = new ArrayList<>();
-        if (osType.contains("Windows")) {
-            commands.add("cmd");
-            commands.add("/c");
-        } else {
-            commands.add("/bin/sh");
-            commands.add("-c");
-        }
-        commands.add(command);
-        ProcessBuilder builder = new ProcessBuilder(commands);
-        final Process process = builder.start();
-        InputStream is = process.getInputStream();
-        InputStreamReader isr = new InputStreamReader(is);
-        return new BufferedReader(isr);
-    }
-
+    /**
+     * Runs the command through the shell and returns its stdout, stderr is drained and logged.
+     *
+     * @throws IOException if the command could not be started or ran past {@code process.timeout.ms}
+     */
     public String executeCommand(String command) throws IOException {
-        logger.debug("command to execute : " + command);
-        BufferedReader br = getBufferedReader(command);
-        String line = null;
-        String cmdResponse = "";
-        while ((line = br.readLine()) != null) {
-            cmdResponse = String.format("%s%s\n", cmdResponse, line);
+        ProcessExecutor.Result result = ProcessExecutor.shell(command).execute();
+        if (result.isTimedOut()) {
+            throw new IOException("command timed out after " + result.getElapsedMs() + " ms : " + command);
+        }
+        if (!result.getStderr().isEmpty()) {
+            logger.debug("stderr of " + command + " : " + result.getStderr());
         }
-        return cmdResponse;
+        return result.getStdout();
     }
 
+    /**
+     * Starts the command through the shell, the process is tracked by the {@link ProcessSupervisor}
+     * and killed on JVM exit if still running.
+     */
     public Process getProcessForCommand(String cmd) throws IOException {
         Process process;
         List<String> commands = new ArrayList<>();
@@ -60,34 +48,19 @@ public class CommandUtils {
         commands.add(cmd);
         ProcessBuilder builder = new ProcessBuilder(commands);
         process = builder.start();
-        return process;
+        return ProcessSupervisor.getInstance().track(process, cmd.trim().split("\\s+")[0]);
     }
 
     public int getProcessId(String command) {
         try {
-            Process process = getProcessForCommand(command);
-
-            Class<?> processClass = process.getClass();
-            Field fPid = processClass.getDeclaredField("pid");
-            if (!fPid.isAccessible()) {
-                fPid.setAccessible(true);
-            }
-            return fPid.getInt(process);
-        } catch (Exception e) {
+            return getProcessId(getProcessForCommand(command));
+        } catch (IOException e) {
+            logger.error(e.getMessage());
             return -1;
         }
     }
 
     public int getProcessId(Process process) {
-        try {
-            Class<?> processClass = process.getClass();
-            Field fPid = processClass.getDeclaredField("pid");
-            if (!fPid.isAccessible()) {
-                fPid.setAccessible(true);
-            }
-            return fPid.getInt(process);
-        } catch (Exception e) {
-            return -1;
-        }
+        return (int) process.pid();
     }
 }
@@ -1,30 +1,30 @@
 package core.utils;
 
+import core.device_manager.DevicePropertyCache;
+import core.logcat.AppCrashException;
+import core.visual.VisualBaselines;
+import core.visual.VisualDiff;
 import io.appium.java_client.android.AndroidDriver;
-import io.appium.java_client.android.AndroidStartScreenRecordingOptions;
-import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
+import org.openqa.selenium.By;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
+import java.awt.Rectangle;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.Duration;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.List;
 
 
 public class CommonActions {
 
     private WebDriver localWebDriver;
+    private WaitEngine waitEngine = new WaitEngine();
     private static Logger logger = Logger.getLogger(CommonActions.class);
+    private static final int MASK_TOP_PX = Integer.getInteger("visual.mask.top.px", 100);
+    private static final VisualBaselines baselines = new VisualBaselines();
 
     public CommonActions(WebDriver localWebDriver) {
         this.localWebDriver = localWebDriver;
@@ -32,8 +32,7 @@ public class CommonActions {
 
     public void waitForElementToBeClickable(WebElement myElement) {
         try {
-            WebDriverWait wait = new WebDriverWait(localWebDriver, 20);
-            wait.until(ExpectedConditions.elementToBeClickable(myElement));
+            waitEngine.until(myElement.toString(), () -> myElement.isDisplayed() && myElement.isEnabled());
         } catch (Exception e) {
            // takeScreenShot();
             throw new RuntimeException(e);
@@ -43,8 +42,28 @@ public class CommonActions {
 
     public void waitForElementVisibility(WebElement myElement) {
         try {
-            WebDriverWait wait = new WebDriverWait(localWebDriver, 20);
-            wait.until(ExpectedConditions.visibilityOf(myElement));
+            waitEngine.until(myElement.toString(), myElement::isDisplayed);
+        } catch (Exception e) {
+            takeScreenShot();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param listName stable name used as wait key, list proxies do not describe their locator
+     */
+    public void waitForElementsCount(String listName, List<WebElement> myElements, int minimumCount) {
+        try {
+            waitEngine.until(listName, () -> myElements.size() >= minimumCount);
+        } catch (Exception e) {
+            takeScreenShot();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public WebElement findElement(By by) {
+        try {
+            return waitEngine.until(by.toString(), () -> localWebDriver.findElement(by));
         } catch (Exception e) {
             takeScreenShot();
             throw new RuntimeException(e);
@@ -74,7 +93,7 @@ public class CommonActions {
     public String getText(WebElement myElement) {
         try {
             String text;
-            text = myElement.getText();
+            text = waitEngine.until(myElement.toString(), myElement::getText);
             return text;
         } catch (Exception e) {
             takeScreenShot();
@@ -85,9 +104,11 @@ public class CommonActions {
     public boolean isDisplayed(WebElement myElement) {
         boolean displayed = false;
         try {
-            displayed = myElement.isDisplayed();
+            displayed = waitEngine.check(myElement::isDisplayed);
+        } catch (AppCrashException e) {
+            throw e; //a crashed app is not an element that is merely hidden
         } catch (Exception e) {
-            takeScreenShot();
+            takeNegativeCheckScreenShot();
             logger.warn("Element is not displayed. \t Exception found is: " + e.getMessage());
         }
         return displayed;
@@ -99,83 +120,90 @@ public class CommonActions {
             enabled = myElement.isEnabled();
         } catch (Exception e) {
             logger.warn("Element is not enabled. \t Exception found is: " + e.getMessage());
-            takeScreenShot();
+            takeNegativeCheckScreenShot();
         }
         return enabled;
     }
 
+    /**
+     * Failure screenshot, written in the background by {@link ScreenshotService}.
+     *
+     * @return the PNG bytes, null if the grab failed
+     */
     //@Attachment(value = "Page screenshot", type = "image/png")
     public byte[] takeScreenShot() {
-        logger.info("taking screenshot!");
         try {
-            return ((TakesScreenshot) localWebDriver).getScreenshotAs(OutputType.BYTES);
+            return ScreenshotService.getInstance().captureOnFailure((TakesScreenshot) localWebDriver);
         } catch (Exception e) {
-            logger.error(e.getMessage());
-            logger.error(e.getStackTrace().toString());
+            logger.error("Could not take screenshot", e);
             return null;
         }
     }
 
+    private void takeNegativeCheckScreenShot() {
+        try {
+            ScreenshotService.getInstance().captureOnNegativeCheck((TakesScreenshot) localWebDriver);
+        } catch (Exception e) {
+            logger.error("Could not take screenshot", e);
+        }
+    }
+
+    /**
+     * Saves a screenshot as {@code target/screenshots/<name>_<time>}, see {@link ScreenshotService}.
+     */
     public void takeScreenShot(String name) {
         logger.info("taking screenshot!");
-
-        File scrFile;
         try {
-            scrFile = ((TakesScreenshot) localWebDriver).getScreenshotAs(OutputType.FILE);
+            ScreenshotService.getInstance().capture((TakesScreenshot) localWebDriver, name);
         } catch (Exception e) {
-            logger.error(e.getMessage());
-            logger.error(e.getStackTrace());
-            return;
-        }
-        String path = System.getProperty("user.dir") + "/target/screenshots/";
-        String timeStamp;
-        timeStamp = String.valueOf(DateUtils.getTimeInMilliSecond());
-        String fileName = path + (name == null ? "" : name + "_") + timeStamp + ".png";
-        logger.info(fileName);
-        try {
-            FileUtils.copyFile(scrFile, new File(fileName));
-        } catch (IOException e) {
-            e.printStackTrace();
+            logger.error("Could not take screenshot", e);
         }
-        Path content = Paths.get(fileName);
-        try (InputStream is = Files.newInputStream(content)) {
-           // Allure.addAttachment("Failed Test Screenshot - " + fileName.split(path)[1], is);
-        } catch (IOException e) {
-            logger.error("attachment error");
+    }
+
+    /**
+     * Compares the screen with its baseline named {@code name}, ignoring the status bar (the top
+     * {@code visual.mask.top.px}) and the given elements, e.g. clocks and carousels.
+     */
+    public VisualDiff verifyScreen(String name, List<WebElement> dynamicElements) {
+        byte[] screen = ((TakesScreenshot) localWebDriver).getScreenshotAs(OutputType.BYTES);
+        List<Rectangle> masks = new ArrayList<>();
+        masks.add(new Rectangle(0, 0, Integer.MAX_VALUE, MASK_TOP_PX));
+        for (WebElement element : dynamicElements) {
+            try {
+                org.openqa.selenium.Rectangle rect = element.getRect();
+                masks.add(new Rectangle(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()));
+            } catch (Exception e) {
+                logger.debug("Not masking missing element " + element + ": " + e.getMessage());
+            }
         }
+        return baselines.verify(name, screen, masks);
     }
 
     public void startScreenRecord(AndroidDriver androidDriver) {
         try {
-            androidDriver.startRecordingScreen(
-                    new AndroidStartScreenRecordingOptions().withTimeLimit(Duration.ofMinutes(15)));
-            logger.info("screen record started");
+            RecordingManager.forDriver(androidDriver).start("screenrecord");
         } catch (Exception e) {
             logger.error(e.getMessage());
         }
     }
 
-    public byte[] stopScreenRecord(AndroidDriver androidDriver) {
+    /**
+     * @return the recorded segments on disk, see {@link RecordingManager}
+     */
+    public List<Path> stopScreenRecord(AndroidDriver androidDriver) {
         try {
-            Thread.sleep(1000);
-            String video = androidDriver.stopRecordingScreen();
-            logger.info("screen record stopped");
-            return Base64.getMimeDecoder().decode(video);
+            new Synchronizer(androidDriver).waitForUiIdle(1000); //let the last frames reach the recording
+            return RecordingManager.forDriver(androidDriver).stop();
         } catch (Exception e) {
             logger.error(e.getMessage());
         }
-        return null;
+        return new ArrayList<>();
     }
 
     public static String getAndroidAppVersion(String device, String packageName) {
         try {
-            CommandUtils commandUtils = new CommandUtils();
-            return commandUtils
-                    .executeCommand(
-                            "adb -s " + device + " shell dumpsys package " + packageName + " | grep versionName")
-                    .trim()
-                    .split("=")[1];
-        } catch (IOException e) {
+            return DevicePropertyCache.forDevice(device).getVersionName(packageName);
+        } catch (RuntimeException e) {
             logger.error(e.getMessage());
         }
         return null;
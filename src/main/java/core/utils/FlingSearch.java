@@ -0,0 +1,319 @@
+package core.utils;
+
+import core.page_source.PageSourceSnapshot;
+import core.page_source.SnapshotElement;
+import core.page_source.SnapshotLocatorEngine;
+import org.apache.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fling-first search in long scrollable lists, an alternative to UiScrollable.scrollIntoView which
+ * only ever scrolls one step at a time on the device.
+ * <p>
+ * The search flings towards the end, checking every screen it lands on; reaching the end measures
+ * the list extent in flings, and lists that turn out to be short are searched with step scrolls
+ * from then on. When the texts seen while flinging are sorted (city lists, A-Z listings) and a fling
+ * lands past the target text, or the end is reached, it flings back to the region the target sorts
+ * into and steps from there. In unsorted lists it steps back from the end through the whole list
+ * so no row is skipped. Extents are remembered per device and screen, the same list id can hold
+ * different content elsewhere.
+ */
+public class FlingSearch {
+
+    public enum Orientation {VERTICAL, HORIZONTAL}
+
+    private static final int STEP_MAX_EXTENT = Integer.getInteger("scroll.fling.step.max.extent", 3);
+    private static final int MAX_MOVES = Integer.getInteger("scroll.fling.max.moves", 60);
+    private static final int FLING_VELOCITY = Integer.getInteger("scroll.fling.velocity.px.per.s", 10000);
+    private static final int STEP_VELOCITY = Integer.getInteger("scroll.step.velocity.px.per.s", 1000);
+    private static Logger logger = Logger.getLogger(FlingSearch.class);
+    private static final Map<String, Integer> knownExtents = new ConcurrentHashMap<>();
+
+    /**
+     * Moves the list content: forward means towards the end of the list.
+     */
+    interface Scroller {
+        void fling(Rectangle list, boolean forward);
+
+        void step(Rectangle list, boolean forward);
+    }
+
+    private final SnapshotLocatorEngine snapshotEngine;
+    private final String screen;
+    private final By list;
+    private final Scroller scroller;
+    private int flings;
+    private int steps;
+
+    /**
+     * @param screen identifies the device and screen the list is on, e.g. udid plus current activity
+     */
+    public FlingSearch(SnapshotLocatorEngine snapshotEngine, String screen, By list, Orientation orientation,
+                       GestureEngine gestureEngine) {
+        this(snapshotEngine, screen, list, new GestureScroller(gestureEngine, orientation));
+    }
+
+    FlingSearch(SnapshotLocatorEngine snapshotEngine, String screen, By list, Scroller scroller) {
+        this.snapshotEngine = snapshotEngine;
+        this.screen = screen;
+        this.list = list;
+        this.scroller = scroller;
+    }
+
+    /**
+     * Number of flings from the top to the end of a list measured by an earlier search on the same
+     * screen, -1 if unknown.
+     */
+    public static int getKnownExtent(String screen, By list) {
+        return knownExtents.getOrDefault(extentKey(screen, list), -1);
+    }
+
+    /**
+     * XPath locator for the element whose {@code attribute} equals {@code value}, any quotes in the
+     * value included.
+     */
+    public static By byAttribute(String attribute, String value) {
+        return By.xpath("//*[@" + attribute + "=" + xpathLiteral(value) + "]");
+    }
+
+    static String xpathLiteral(String value) {
+        if (!value.contains("'")) {
+            return "'" + value + "'";
+        }
+        if (!value.contains("\"")) {
+            return "\"" + value + "\"";
+        }
+        //XPath 1.0 has no escapes, the ' parts are quoted with " and joined
+        return "concat('" + value.replace("'", "', \"'\", '") + "')";
+    }
+
+    private static String extentKey(String screen, By list) {
+        return screen + "|" + list;
+    }
+
+    /**
+     * @param targetText text of the target if it has one, used to jump to its region in sorted lists
+     */
+    public ScrollSearch.Result search(By target, String targetText) {
+        long start = System.currentTimeMillis();
+        flings = 0;
+        steps = 0;
+        PageSourceSnapshot snapshot = snapshotEngine.refresh();
+        SnapshotElement listElement = snapshot.findFirst(list);
+        if (listElement == null) {
+            throw new NoSuchElementException("Scrollable list " + list + " is not on screen");
+        }
+        Rectangle bounds = listElement.getBounds();
+        SnapshotElement found = snapshot.findFirst(target);
+
+        Integer extent = knownExtents.get(extentKey(screen, list));
+        if (found == null && extent != null && extent <= STEP_MAX_EXTENT) {
+            found = stepUntilEnd(target, bounds, true, snapshot.getFingerprint());
+            if (found == null) {
+                found = stepUntilEnd(target, bounds, false, null);
+            }
+        } else if (found == null) {
+            List<List<String>> samples = new ArrayList<>();
+            samples.add(visibleTexts(snapshot, bounds));
+            String previousFingerprint = snapshot.getFingerprint();
+            boolean endReached = false;
+            boolean overshot = false;
+            while (found == null && !overshot && flings < MAX_MOVES) {
+                scroller.fling(bounds, true);
+                flings++;
+                snapshot = snapshotEngine.refresh();
+                found = snapshot.findFirst(target);
+                if (snapshot.getFingerprint().equals(previousFingerprint)) {
+                    endReached = true;
+                    break;
+                }
+                previousFingerprint = snapshot.getFingerprint();
+                List<String> visible = visibleTexts(snapshot, bounds);
+                samples.add(visible);
+                //in a sorted list a first row past the target means the fling skipped over it
+                overshot = targetText != null && !visible.isEmpty() && compare(targetText, visible.get(0)) < 0
+                        && isSorted(samples);
+            }
+            if (endReached) {
+                extent = samples.size() - 1;
+                knownExtents.put(extentKey(screen, list), extent);
+            }
+            boolean sortedRegion = targetText != null && isSorted(samples)
+                    && (overshot || samples.size() - 1 > STEP_MAX_EXTENT);
+            if (found == null && sortedRegion) {
+                found = jumpToRegion(target, targetText, bounds, samples, endReached);
+            } else if (found == null) {
+                found = stepUntilEnd(target, bounds, false, previousFingerprint);
+            }
+        }
+        ScrollSearch.Result result = new ScrollSearch.Result(found, null, flings + steps,
+                System.currentTimeMillis() - start, found == null);
+        logger.info((found != null ? "Found " : "Did not find ") + target + " in " + list + " with " + flings
+                + " flings and " + steps + " steps in " + result.getElapsedMs() + " ms"
+                + (extent == null ? "" : ", list extent " + extent + " flings"));
+        return result;
+    }
+
+    /**
+     * Flings back until the list stops moving.
+     *
+     * @return number of flings
+     */
+    public int flingToStart() {
+        PageSourceSnapshot snapshot = snapshotEngine.refresh();
+        SnapshotElement listElement = snapshot.findFirst(list);
+        if (listElement == null) {
+            throw new NoSuchElementException("Scrollable list " + list + " is not on screen");
+        }
+        String fingerprint = snapshot.getFingerprint();
+        int moves = 0;
+        while (moves < MAX_MOVES) {
+            scroller.fling(listElement.getBounds(), false);
+            moves++;
+            String current = snapshotEngine.refresh().getFingerprint();
+            if (current.equals(fingerprint)) {
+                break;
+            }
+            fingerprint = current;
+        }
+        return moves;
+    }
+
+    private SnapshotElement stepUntilEnd(By target, Rectangle bounds, boolean forward, String fingerprint) {
+        while (flings + steps < MAX_MOVES) {
+            scroller.step(bounds, forward);
+            steps++;
+            PageSourceSnapshot snapshot = snapshotEngine.refresh();
+            SnapshotElement found = snapshot.findFirst(target);
+            if (found != null || snapshot.getFingerprint().equals(fingerprint)) {
+                return found;
+            }
+            fingerprint = snapshot.getFingerprint();
+        }
+        return null;
+    }
+
+    /**
+     * Flings back to the last position whose first text sorts before the target, then steps
+     * towards the target until it shows up or the step direction has to turn around.
+     */
+    private SnapshotElement jumpToRegion(By target, String targetText, Rectangle bounds, List<List<String>> samples,
+                                       boolean atEnd) {
+        int region = 0;
+        for (int position = 0; position < samples.size(); position++) {
+            if (!samples.get(position).isEmpty() && compare(samples.get(position).get(0), targetText) <= 0) {
+                region = position;
+            }
+        }
+        for (int position = samples.size() - 1; position > region && flings + steps < MAX_MOVES; position--) {
+            scroller.fling(bounds, false);
+            flings++;
+            atEnd = false;
+        }
+        Boolean lastDirection = null;
+        String fingerprint = null;
+        while (flings + steps < MAX_MOVES) {
+            PageSourceSnapshot snapshot = snapshotEngine.refresh();
+            SnapshotElement found = snapshot.findFirst(target);
+            if (found != null || snapshot.getFingerprint().equals(fingerprint)) {
+                return found;
+            }
+            fingerprint = snapshot.getFingerprint();
+            List<String> visible = visibleTexts(snapshot, bounds);
+            if (visible.isEmpty()) {
+                return null;
+            }
+            boolean forward;
+            if (compare(targetText, visible.get(0)) < 0) {
+                forward = false;
+            } else if (compare(targetText, visible.get(visible.size() - 1)) > 0) {
+                forward = true;
+            } else {
+                return null;
+            }
+            if ((lastDirection != null && lastDirection != forward) || (forward && atEnd)) {
+                return null;
+            }
+            lastDirection = forward;
+            scroller.step(bounds, forward);
+            steps++;
+        }
+        return null;
+    }
+
+    private static List<String> visibleTexts(PageSourceSnapshot snapshot, Rectangle bounds) {
+        List<String> texts = new ArrayList<>();
+        for (SnapshotElement element : snapshot.getElements()) {
+            Rectangle rect = element.getBounds();
+            if (!element.getText().isEmpty() && rect != null && contains(bounds, rect)) {
+                texts.add(element.getText());
+            }
+        }
+        return texts;
+    }
+
+    static boolean isSorted(List<List<String>> samples) {
+        String previous = null;
+        int count = 0;
+        for (List<String> sample : samples) {
+            for (String text : sample) {
+                if (previous != null && compare(previous, text) > 0) {
+                    return false;
+                }
+                previous = text;
+                count++;
+            }
+        }
+        return count > 1;
+    }
+
+    private static int compare(String first, String second) {
+        return first.compareToIgnoreCase(second);
+    }
+
+    private static boolean contains(Rectangle outer, Rectangle inner) {
+        return inner.getX() >= outer.getX() && inner.getY() >= outer.getY()
+                && inner.getX() + inner.getWidth() <= outer.getX() + outer.getWidth()
+                && inner.getY() + inner.getHeight() <= outer.getY() + outer.getHeight();
+    }
+
+    private static class GestureScroller implements Scroller {
+        private final GestureEngine flingEngine;
+        private final GestureEngine stepEngine;
+        private final Orientation orientation;
+
+        GestureScroller(GestureEngine gestureEngine, Orientation orientation) {
+            this.flingEngine = gestureEngine.withVelocity(FLING_VELOCITY);
+            this.stepEngine = gestureEngine.withVelocity(STEP_VELOCITY);
+            this.orientation = orientation;
+        }
+
+        @Override
+        public void fling(Rectangle list, boolean forward) {
+            flingEngine.fling(point(list, forward ? 0.85 : 0.15), point(list, forward ? 0.15 : 0.85));
+        }
+
+        /**
+         * Precise scroll over 70% of the list, consecutive screens overlap and no row is skipped.
+         */
+        @Override
+        public void step(Rectangle list, boolean forward) {
+            stepEngine.scrollPrecisely(point(list, forward ? 0.85 : 0.15), point(list, forward ? 0.15 : 0.85));
+        }
+
+        private Point point(Rectangle list, double fraction) {
+            if (orientation == Orientation.VERTICAL) {
+                return new Point(list.getX() + list.getWidth() / 2, list.getY() + (int) (list.getHeight() * fraction));
+            }
+            return new Point(list.getX() + (int) (list.getWidth() * fraction), list.getY() + list.getHeight() / 2);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package core.utils;
+
+import core.device_manager.DevicePropertyCache;
+import io.appium.java_client.AppiumDriver;
+import org.apache.log4j.Logger;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.ScreenOrientation;
+import org.openqa.selenium.interactions.Interactive;
+import org.openqa.selenium.interactions.Pause;
+import org.openqa.selenium.interactions.PointerInput;
+import org.openqa.selenium.interactions.Sequence;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Gestures as single W3C pointer action requests. Swipe duration follows from the distance and a
+ * configurable velocity ({@code gesture.velocity.px.per.s}) instead of a fixed one second hold, and
+ * the orientation and viewport size come from the {@link DevicePropertyCache} instead of two
+ * server calls per swipe.
+ * Rotate through {@link #rotate(ScreenOrientation)} so the cached orientation stays right.
+ */
+public class GestureEngine {
+
+    private static final int VELOCITY_PX_PER_S = Integer.getInteger("gesture.velocity.px.per.s", 2500);
+    private static final long MIN_SWIPE_MS = Long.getLong("gesture.swipe.min.ms", 100);
+    private static final long LONG_PRESS_MS = Long.getLong("gesture.long.press.ms", 600);
+    private static final long SETTLE_MS = Long.getLong("gesture.settle.ms", 200);
+    private static final long RELEASE_PAUSE_MS = Long.getLong("gesture.release.pause.ms", 100);
+    private static final long TAP_MS = 50;
+    private static Logger logger = Logger.getLogger(GestureEngine.class);
+
+    private final Interactive performer;
+    private final Supplier<Dimension> windowSize;
+    private final Supplier<ScreenOrientation> currentOrientation;
+    private final Consumer<ScreenOrientation> rotator;
+    private final DevicePropertyCache properties;
+    private final int velocity;
+
+    public GestureEngine(AppiumDriver driver) {
+        this(driver, () -> driver.manage().window().getSize(), driver::getOrientation, driver::rotate,
+                DevicePropertyCache.forDriver(driver), VELOCITY_PX_PER_S);
+    }
+
+    GestureEngine(Interactive performer, Supplier<Dimension> windowSize, Supplier<ScreenOrientation> currentOrientation,
+                  Consumer<ScreenOrientation> rotator, DevicePropertyCache properties, int velocity) {
+        this.performer = performer;
+        this.windowSize = windowSize;
+        this.currentOrientation = currentOrientation;
+        this.rotator = rotator;
+        this.properties = properties;
+        this.velocity = velocity;
+    }
+
+    /**
+     * Same engine with a different swipe velocity in pixels per second, lower is more precise,
+     * higher flings further.
+     */
+    public GestureEngine withVelocity(int pixelsPerSecond) {
+        return new GestureEngine(performer, windowSize, currentOrientation, rotator, properties, pixelsPerSecond);
+    }
+
+    public Dimension getViewport() {
+        ScreenOrientation orientation = getOrientation();
+        return properties.get(DevicePropertyCache.windowSizeKey(orientation), () -> {
+            Dimension viewport = windowSize.get();
+            //the other orientation is the same screen turned, no need to ask for it again
+            ScreenOrientation other = orientation == ScreenOrientation.PORTRAIT
+                    ? ScreenOrientation.LANDSCAPE : ScreenOrientation.PORTRAIT;
+            properties.put(DevicePropertyCache.windowSizeKey(other),
+                    new Dimension(viewport.getHeight(), viewport.getWidth()), DevicePropertyCache.DEFAULT_TTL_MS);
+            return viewport;
+        });
+    }
+
+    /**
+     * The orientation for gesture coordinates, cached for {@code device.property.orientation.ttl.ms}.
+     */
+    public ScreenOrientation getOrientation() {
+        return properties.get(DevicePropertyCache.ORIENTATION, DevicePropertyCache.ORIENTATION_TTL_MS,
+                currentOrientation);
+    }
+
+    /**
+     * The orientation as the device reports it now, for checks that must see a rotation the app
+     * made itself.
+     */
+    public ScreenOrientation getCurrentOrientation() {
+        ScreenOrientation orientation = currentOrientation.get();
+        properties.onRotation(orientation);
+        return orientation;
+    }
+
+    public void rotate(ScreenOrientation orientation) {
+        rotator.accept(orientation);
+        properties.onRotation(orientation);
+    }
+
+    /**
+     * Forgets the cached orientation, for rotations that did not go through {@link #rotate}.
+     */
+    public void invalidateOrientation() {
+        properties.invalidate(DevicePropertyCache.ORIENTATION);
+    }
+
+    /**
+     * Swipes between two fractions of the viewport, e.g. (0.5, 0.8) to (0.5, 0.2) scrolls down.
+     */
+    public void swipeByFraction(double startX, double startY, double endX, double endY) {
+        Dimension viewport = getViewport();
+        swipe(pointAt(viewport, startX, startY), pointAt(viewport, endX, endY));
+    }
+
+    /**
+     * {@link #scrollPrecisely} between two fractions of the viewport.
+     */
+    public void scrollPreciselyByFraction(double startX, double startY, double endX, double endY) {
+        Dimension viewport = getViewport();
+        scrollPrecisely(pointAt(viewport, startX, startY), pointAt(viewport, endX, endY));
+    }
+
+    private static Point pointAt(Dimension viewport, double x, double y) {
+        return new Point((int) (viewport.getWidth() * x), (int) (viewport.getHeight() * y));
+    }
+
+    /**
+     * Swipes at the engine velocity and rests for {@code gesture.release.pause.ms} before lifting the
+     * finger, so the content stops close to the swiped distance instead of flinging on.
+     */
+    public void swipe(Point from, Point to) {
+        swipe(from, to, Duration.ZERO);
+    }
+
+    /**
+     * Like {@link #swipe(Point, Point)}, after holding on {@code from} for {@code hold} first.
+     */
+    public void swipe(Point from, Point to, Duration hold) {
+        swipe(from, to, hold, getSwipeDuration(from, to));
+    }
+
+    /**
+     * Presses at {@code from}, holds for {@code hold}, moves to {@code to} in {@code move}, rests and releases.
+     */
+    public void swipe(Point from, Point to, Duration hold, Duration move) {
+        swipe(from, to, hold, move, Duration.ofMillis(RELEASE_PAUSE_MS));
+    }
+
+    /**
+     * Releases right at {@code to} while still moving, so the content keeps scrolling with the
+     * swipe velocity, e.g. to cover a long list quickly.
+     */
+    public void fling(Point from, Point to) {
+        swipe(from, to, Duration.ZERO, getSwipeDuration(from, to), Duration.ZERO);
+    }
+
+    /**
+     * Swipe that rests on {@code to} before lifting the finger, so the content moves exactly the
+     * swiped distance and does not fling on.
+     */
+    public void scrollPrecisely(Point from, Point to) {
+        swipe(from, to, Duration.ZERO, getSwipeDuration(from, to), Duration.ofMillis(SETTLE_MS));
+    }
+
+    private void swipe(Point from, Point to, Duration hold, Duration move, Duration settle) {
+        PointerInput finger = new PointerInput(PointerInput.Kind.TOUCH, "finger");
+        Sequence swipe = new Sequence(finger, 0)
+                .addAction(finger.createPointerMove(Duration.ZERO, PointerInput.Origin.viewport(), from.getX(), from.getY()))
+                .addAction(finger.createPointerDown(PointerInput.MouseButton.LEFT.asArg()));
+        if (!hold.isZero()) {
+            swipe.addAction(new Pause(finger, hold));
+        }
+        swipe.addAction(finger.createPointerMove(move, PointerInput.Origin.viewport(), to.getX(), to.getY()));
+        if (!settle.isZero()) {
+            swipe.addAction(new Pause(finger, settle));
+        }
+        swipe.addAction(finger.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+        logger.debug("Swipe " + from + " to " + to + " in " + move.toMillis() + " ms");
+        performer.perform(Collections.singletonList(swipe));
+    }
+
+    public void tap(Point point) {
+        press(point, Duration.ofMillis(TAP_MS), 1);
+    }
+
+    public void doubleTap(Point point) {
+        press(point, Duration.ofMillis(TAP_MS), 2);
+    }
+
+    public void longPress(Point point) {
+        longPress(point, Duration.ofMillis(LONG_PRESS_MS));
+    }
+
+    public void longPress(Point point, Duration duration) {
+        press(point, duration, 1);
+    }
+
+    /**
+     * Long presses to pick the item up, then moves slowly enough for the drop target to register it.
+     */
+    public void dragAndDrop(Point from, Point to) {
+        swipe(from, to, Duration.ofMillis(LONG_PRESS_MS), getSwipeDuration(from, to).multipliedBy(3));
+    }
+
+    public static Point getCenter(Rectangle rect) {
+        return new Point(rect.getX() + rect.getWidth() / 2, rect.getY() + rect.getHeight() / 2);
+    }
+
+    Duration getSwipeDuration(Point from, Point to) {
+        double distance = Math.hypot(to.getX() - from.getX(), to.getY() - from.getY());
+        return Duration.ofMillis(Math.max(MIN_SWIPE_MS, (long) (distance * 1000 / velocity)));
+    }
+
+    private void press(Point point, Duration hold, int times) {
+        PointerInput finger = new PointerInput(PointerInput.Kind.TOUCH, "finger");
+        Sequence press = new Sequence(finger, 0)
+                .addAction(finger.createPointerMove(Duration.ZERO, PointerInput.Origin.viewport(), point.getX(), point.getY()));
+        for (int i = 0; i < times; i++) {
+            if (i > 0) {
+                press.addAction(new Pause(finger, Duration.ofMillis(TAP_MS)));
+            }
+            press.addAction(finger.createPointerDown(PointerInput.MouseButton.LEFT.asArg()))
+                    .addAction(new Pause(finger, hold))
+                    .addAction(finger.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+        }
+        performer.perform(Collections.singletonList(press));
+    }
+}
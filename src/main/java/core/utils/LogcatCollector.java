@@ -0,0 +1,194 @@
+package core.utils;
+
+import core.driver_manager.DriverHolder;
+import core.logcat.LogcatEntry;
+import core.logcat.LogcatStore;
+import io.appium.java_client.AppiumDriver;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Streams {@code adb logcat} of a device continuously into a ring buffer of the last
+ * {@code logcat.buffer.lines} lines, instead of pulling the whole logcat buffer over HTTP for every
+ * query. Lines are numbered as they arrive; a {@link #checkpoint()} taken before a step lets
+ * {@link #since(long)} return only what the step logged. Every line is also parsed into the
+ * device's {@link LogcatStore} for indexed queries by pid, tag and level under the same numbers.
+ */
+public class LogcatCollector {
+
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("logcat.buffer.lines", 100000);
+    private static Logger logger = Logger.getLogger(LogcatCollector.class);
+    private static final Map<String, LogcatCollector> collectors = new ConcurrentHashMap<>();
+
+    private final String device;
+    private final String[] ring;
+    private final LogcatStore store;
+    private long next = 0;
+    private ProcessExecutor.Execution logcat;
+    private String lastTime;
+    private final Set<String> linesAtLastTime = new HashSet<>();
+    private boolean resuming;
+
+    LogcatCollector(String device, int capacity) {
+        this.device = device;
+        this.ring = new String[capacity];
+        this.store = LogcatStore.forDevice(device);
+    }
+
+    /**
+     * The running collector of a device, started on first use, see {@link DriverHolder#deviceKey(String)}.
+     */
+    public static LogcatCollector forDevice(String device) {
+        LogcatCollector collector = collectors.computeIfAbsent(DriverHolder.deviceKey(device),
+                key -> new LogcatCollector(device, DEFAULT_CAPACITY));
+        collector.start();
+        return collector;
+    }
+
+    public static LogcatCollector forDriver(AppiumDriver driver) {
+        return forDevice(DriverHolder.getDeviceSerial(driver));
+    }
+
+    public static void stopAll() {
+        collectors.values().forEach(collector -> {
+            collector.stop();
+            collector.store.close();
+        });
+        collectors.clear();
+    }
+
+    /**
+     * Starts {@code adb logcat}, or restarts it if it exited, e.g. after the device reconnected.
+     * The existing device buffer is read first, then new lines as they are logged. A restart
+     * continues from the time of the last entry collected instead of reading the buffer again.
+     */
+    public synchronized void start() {
+        if (logcat != null && logcat.isAlive()) {
+            return;
+        }
+        try {
+            logcat = new ProcessExecutor(resumeCommand(), "logcat")
+                    .timeout(Long.MAX_VALUE)
+                    .maxBufferedChars(0)
+                    .onStdoutLine(this::append)
+                    .start();
+            logger.debug("Collecting logcat of " + device);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not start logcat on " + device, e);
+        }
+    }
+
+    public synchronized void stop() {
+        if (logcat != null) {
+            logcat.cancel();
+            logcat = null;
+        }
+    }
+
+    /**
+     * The logcat command, from the time of the last entry collected if there is one; repeated
+     * entries at that time are dropped as they arrive.
+     */
+    synchronized List<String> resumeCommand() {
+        resuming = lastTime != null;
+        List<String> command = new ArrayList<>(device == null ? Arrays.asList("adb", "logcat")
+                : Arrays.asList("adb", "-s", device, "logcat"));
+        command.addAll(Arrays.asList("-v", "threadtime"));
+        if (lastTime != null) {
+            command.addAll(Arrays.asList("-T", lastTime));
+        }
+        return command;
+    }
+
+    synchronized void append(String line) {
+        LogcatEntry entry = LogcatEntry.parse(next, line);
+        if (entry != null) {
+            if (!entry.getTime().equals(lastTime)) {
+                resuming = false;
+                lastTime = entry.getTime();
+                linesAtLastTime.clear();
+            } else if (resuming && linesAtLastTime.contains(line)) {
+                //-T starts at the time of the last entry, those already collected come again
+                return;
+            }
+            linesAtLastTime.add(line);
+        }
+        ring[(int) (next % ring.length)] = line;
+        if (entry != null) {
+            store.add(entry);
+        }
+        next++;
+    }
+
+    /**
+     * Parsed entries of this device, checkpoints of the collector apply to its queries.
+     */
+    public LogcatStore getStore() {
+        return store;
+    }
+
+    /**
+     * Number of the next line to arrive, pass it to {@link #since(long)} later.
+     */
+    public synchronized long checkpoint() {
+        return next;
+    }
+
+    /**
+     * Lines that arrived after the checkpoint and are still in the buffer.
+     */
+    public List<String> since(long checkpoint) {
+        return since(checkpoint, line -> true);
+    }
+
+    public synchronized List<String> since(long checkpoint, Predicate<String> filter) {
+        List<String> lines = new ArrayList<>();
+        for (long sequence = Math.max(checkpoint, getOldest()); sequence < next; sequence++) {
+            String line = ring[(int) (sequence % ring.length)];
+            if (filter.test(line)) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * The oldest {@code n} lines still in the buffer.
+     */
+    public synchronized List<String> head(int n) {
+        long oldest = getOldest();
+        return slice(oldest, Math.min(next, oldest + n));
+    }
+
+    public synchronized List<String> tail(int n) {
+        return slice(Math.max(getOldest(), next - n), next);
+    }
+
+    private List<String> slice(long from, long to) {
+        List<String> lines = new ArrayList<>((int) Math.max(0, to - from));
+        for (long sequence = from; sequence < to; sequence++) {
+            lines.add(ring[(int) (sequence % ring.length)]);
+        }
+        return lines;
+    }
+
+    private long getOldest() {
+        return Math.max(0, next - ring.length);
+    }
+
+    /**
+     * Lines pushed out of the buffer by newer ones, raise {@code logcat.buffer.lines} if tests need them.
+     */
+    public synchronized long getDroppedLines() {
+        return getOldest();
+    }
+}
@@ -1,10 +1,16 @@
 package core.utils;
 
+import core.logcat.LogcatEntry;
+import core.logcat.LogcatStore;
 import io.appium.java_client.AppiumDriver;
 import org.apache.log4j.Logger;
-import org.openqa.selenium.logging.LogEntries;
-import java.util.stream.StreamSupport;
 
+import java.util.List;
+
+/**
+ * Prints logcat lines of the driver's device from its {@link LogcatCollector}, no query pulls the
+ * logcat buffer from the server.
+ */
 public class LogcatUtils {
 
     private static Logger logger = Logger.getLogger(LogcatUtils.class);
@@ -12,37 +18,53 @@ public class LogcatUtils {
 
     public static void getFirstNLinesofLogcats(int n, AppiumDriver localAppiumDriver){
         logger.info("Getting logcats");
-        LogEntries logEnteries = localAppiumDriver.manage().logs().get("logcat");
         logger.info("First "+n+ " lines of log: ");
-        StreamSupport.stream(logEnteries.spliterator(), false).limit(n).forEach(System.out::println);
+        LogcatCollector.forDriver(localAppiumDriver).head(n).forEach(System.out::println);
         logger.info("**********************");
     }
 
     public static void getLastNLinesofLogcats(int n, AppiumDriver localAppiumDriver){
         logger.info("Getting logcats");
-        LogEntries logEnteries = localAppiumDriver.manage().logs().get("logcat");
         logger.info("Last "+n+ " lines of log: ");
-        StreamSupport.stream(logEnteries.spliterator(), false).skip(logEnteries.getAll().size() - 10).forEach(System.out::println);
+        LogcatCollector.forDriver(localAppiumDriver).tail(n).forEach(System.out::println);
+        logger.info("**********************");
+    }
+
+    /**
+     * Marks the current end of the log, pass it to {@link #getLogcatsSince} to print what a step logged.
+     */
+    public static long checkpoint(AppiumDriver localAppiumDriver){
+        return LogcatCollector.forDriver(localAppiumDriver).checkpoint();
+    }
+
+    public static void getLogcatsSince(long checkpoint, AppiumDriver localAppiumDriver){
+        logger.info("Getting logcats");
+        LogcatCollector.forDriver(localAppiumDriver).since(checkpoint).forEach(System.out::println);
         logger.info("**********************");
     }
 
     public static void getPackageSpecificLogcats(AppiumDriver localAppiumDriver, int packageId){
-        LogEntries logEnteries = localAppiumDriver.manage().logs().get("logcat");
         logger.info("Getting logcats");
-        StreamSupport.stream(logEnteries.spliterator(), false)
-                .filter(s -> s.toString()
-                        .contains(String.valueOf(packageId)))
+        LogcatCollector.forDriver(localAppiumDriver).getStore().query(new LogcatStore.Query().pid(packageId))
                 .forEach(System.out::println);
         logger.info("**********************");
     }
 
     public static void getPackageSpecificLogcatsFilteredByString(AppiumDriver localAppiumDriver, int packageId,String key){
-        LogEntries logEnteries = localAppiumDriver.manage().logs().get("logcat");
         logger.info("Getting logcats");
-        StreamSupport.stream(logEnteries.spliterator(), false)
-                .filter(s -> s.toString()
-                        .contains(String.valueOf(packageId))).filter(s-> s.toString().contains(key))
+        LogcatCollector.forDriver(localAppiumDriver).getStore()
+                .query(new LogcatStore.Query().pid(packageId).containing(key))
                 .forEach(System.out::println);
         logger.info("**********************");
     }
+
+    /**
+     * Error and fatal lines of any process the package ran as since the checkpoint.
+     */
+    public static List<LogcatEntry> getPackageErrorsSince(long checkpoint, AppiumDriver localAppiumDriver, String packageName){
+        List<LogcatEntry> errors = LogcatCollector.forDriver(localAppiumDriver).getStore()
+                .query(new LogcatStore.Query().packageName(packageName).minLevel('E').since(checkpoint));
+        errors.forEach(error -> logger.info(error));
+        return errors;
+    }
 }
@@ -1,38 +1,38 @@
 package core.utils;
 
-import com.google.common.collect.ImmutableMap;
 import core.constants.Constants;
+import core.device_manager.AdbShellSession;
+import core.device_manager.DevicePropertyCache;
+import core.driver_manager.DriverHolder;
+import core.page_factory.ElementCache;
+import core.page_source.ElementState;
+import core.page_source.SnapshotLocatorEngine;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.MobileBy;
 import io.appium.java_client.MobileElement;
-import io.appium.java_client.TouchAction;
 import io.appium.java_client.android.*;
 import io.appium.java_client.android.nativekey.AndroidKey;
 import io.appium.java_client.android.nativekey.KeyEvent;
 import io.appium.java_client.android.nativekey.KeyEventMetaModifier;
 import io.appium.java_client.screenrecording.CanRecordScreen;
-import io.appium.java_client.touch.WaitOptions;
-import io.appium.java_client.touch.offset.PointOption;
 import io.appium.java_client.windows.PressesKeyCode;
 import org.apache.log4j.Logger;
 import org.openqa.selenium.*;
 import org.openqa.selenium.html5.Location;
 
-import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 
-import static io.appium.java_client.touch.LongPressOptions.longPressOptions;
-import static io.appium.java_client.touch.TapOptions.tapOptions;
-import static io.appium.java_client.touch.offset.ElementOption.element;
-import static java.time.Duration.ofMillis;
 import static java.time.Duration.ofSeconds;
 
 public class MobileCommonActions extends CommonActions {
+    private static final Duration WITHIN_ELEMENT_HOLD = Duration.ofMillis(500);
     public AppiumDriver localAppiumDriver;
+    private GestureEngine gestureEngine;
 
     String packageName = Constants.PACKAGE_NAME.DEBUG_PACKAGE.getPackageName();
 
@@ -40,24 +40,19 @@ public class MobileCommonActions extends CommonActions {
 
 
    public int getPackageId(){
-       List<String> args = Arrays.asList(
-               "-s",
-               packageName
-       );
-
-       Map<String, Object> cmd = ImmutableMap.of(
-               "command", "pidof",
-               "args", args
-       );
-
-       String pid = (String) localAppiumDriver.executeScript("mobile: shell", cmd);
-       int packageId = Integer.parseInt(pid.replace("\n", ""));
-       return packageId;
+       String device = DriverHolder.getDeviceSerial(localAppiumDriver);
+       return DevicePropertyCache.forDevice(device).get(DevicePropertyCache.pidKey(packageName),
+               DevicePropertyCache.PID_TTL_MS, () -> {
+                   String pid = AdbShellSession.forDevice(device)
+                           .execute("pidof -s " + packageName).getOutput();
+                   return Integer.parseInt(pid.replace("\n", ""));
+               });
    }
 
     public MobileCommonActions(WebDriver localAppiumDriver) {
         super(localAppiumDriver);
         this.localAppiumDriver = (AppiumDriver) localAppiumDriver;
+        this.gestureEngine = new GestureEngine(this.localAppiumDriver);
     }
 
     public void clickElement(WebElement myElement) {
@@ -74,7 +69,7 @@ public class MobileCommonActions extends CommonActions {
             String scrollableListResourceId, String text) {
 
         WebElement element =
-                this.localAppiumDriver.findElement(
+                findElement(
                         MobileBy.AndroidUIAutomator(
                                 "new UiScrollable(new UiSelector().resourceId(\""
                                         + scrollableListResourceId
@@ -89,8 +84,8 @@ public class MobileCommonActions extends CommonActions {
             String scrollableListResourceId, String uiSelectorClassName, String text) {
         try {
             WebElement element =
-                    ((AndroidDriver) this.localAppiumDriver)
-                            .findElementByAndroidUIAutomator(
+                    findElement(
+                            MobileBy.AndroidUIAutomator(
                                     "new UiScrollable(new UiSelector().resourceId(\""
                                             + scrollableListResourceId
                                             + "\")).getChildByText("
@@ -98,7 +93,7 @@ public class MobileCommonActions extends CommonActions {
                                             + uiSelectorClassName
                                             + "\"), \""
                                             + text
-                                            + "\")");
+                                            + "\")"));
             return element;
         } catch (Exception e) {
            // takeScreenShot();
@@ -109,7 +104,7 @@ public class MobileCommonActions extends CommonActions {
             String scrollableListResourceId, String text, int maxNumberOfSwipes) {
         try {
             WebElement element =
-                    this.localAppiumDriver.findElement(
+                    findElement(
                             MobileBy.AndroidUIAutomator(
                                     "new UiScrollable(new UiSelector().resourceId(\""
                                             + scrollableListResourceId
@@ -130,7 +125,7 @@ public class MobileCommonActions extends CommonActions {
             String scrollableListResourceId, String uiSelectorClassName, String contentDesc) {
         try {
             WebElement element =
-                    this.localAppiumDriver.findElement(
+                    findElement(
                             MobileBy.AndroidUIAutomator(
                                     "new UiScrollable(new UiSelector().resourceId(\""
                                             + scrollableListResourceId
@@ -152,7 +147,7 @@ public class MobileCommonActions extends CommonActions {
             String scrollableListResourceId, String contentDesc) {
         try {
             WebElement element =
-                    this.localAppiumDriver.findElement(
+                    findElement(
                             MobileBy.AndroidUIAutomator(
                                     "new UiScrollable(new UiSelector().resourceId(\""
                                             + scrollableListResourceId
@@ -172,7 +167,7 @@ public class MobileCommonActions extends CommonActions {
             String scrollableListResourceId, String text) {
         try {
             WebElement element =
-                    this.localAppiumDriver.findElement(
+                    findElement(
                             MobileBy.AndroidUIAutomator(
                                     "new UiScrollable(new UiSelector().resourceId(\""
                                             + scrollableListResourceId
@@ -187,12 +182,51 @@ public class MobileCommonActions extends CommonActions {
         }
     }
 
+    /**
+     * Fling-first alternative to {@link #scrollToElementUsingText(String, String, int)} for long
+     * lists, see {@link FlingSearch}.
+     */
+    public WebElement flingToElementUsingText(String scrollableListResourceId, String text) {
+        return flingToElement(scrollableListResourceId, FlingSearch.Orientation.VERTICAL, "text", text);
+    }
+
+    public WebElement flingHorizontallyToElementUsingText(String scrollableListResourceId, String text) {
+        return flingToElement(scrollableListResourceId, FlingSearch.Orientation.HORIZONTAL, "text", text);
+    }
+
+    public WebElement flingToElementUsingContentDescription(String scrollableListResourceId, String contentDesc) {
+        return flingToElement(scrollableListResourceId, FlingSearch.Orientation.VERTICAL, "content-desc", contentDesc);
+    }
+
+    public void flingToStartOfList(String scrollableListResourceId, FlingSearch.Orientation orientation) {
+        new FlingSearch(new SnapshotLocatorEngine(localAppiumDriver), currentScreen(), By.id(scrollableListResourceId),
+                orientation, gestureEngine).flingToStart();
+    }
+
+    private WebElement flingToElement(String scrollableListResourceId, FlingSearch.Orientation orientation,
+                                      String attribute, String value) {
+        By target = FlingSearch.byAttribute(attribute, value);
+        SnapshotLocatorEngine snapshotEngine = new SnapshotLocatorEngine(localAppiumDriver);
+        ScrollSearch.Result result = new FlingSearch(snapshotEngine, currentScreen(), By.id(scrollableListResourceId),
+                orientation, gestureEngine).search(target, attribute.equals("text") ? value : null);
+        if (!result.isFound()) {
+            throw new NoSuchElementException(value + " not found in " + scrollableListResourceId
+                    + " after " + result.getSwipes() + " swipes");
+        }
+        return snapshotEngine.resolve(target);
+    }
+
+    private String currentScreen() {
+        return DriverHolder.getDeviceSerial(localAppiumDriver) + "/"
+                + ((AndroidDriver) localAppiumDriver).currentActivity();
+    }
+
     public WebElement findNthOccuranceOfElementUsingPartialText(
             String scrollableListResourceId, String partialText, int occurrence) {
         try {
 
             WebElement element =
-                    this.localAppiumDriver.findElement(
+                    findElement(
                             MobileBy.AndroidUIAutomator(
                                     "new UiScrollable(new UiSelector().resourceId(\""
                                             + scrollableListResourceId
@@ -214,7 +248,7 @@ public class MobileCommonActions extends CommonActions {
             String scrollableListResourceId, String text, int occurrence) {
         try {
             WebElement element =
-                    this.localAppiumDriver.findElement(
+                    findElement(
                             MobileBy.AndroidUIAutomator(
                                     "new UiScrollable(new UiSelector().resourceId(\""
                                             + scrollableListResourceId
@@ -266,92 +300,6 @@ public class MobileCommonActions extends CommonActions {
         }
     }
 
-    private void scrollInAnyDirection(Scroll direction){
-        try {
-            TouchAction action = new TouchAction(localAppiumDriver);
-            int height;
-            int width;
-
-            height = this.localAppiumDriver.manage().window().getSize().getHeight();
-            width = this.localAppiumDriver.manage().window().getSize().getWidth();
-
-            int startX, startY, endX, endY;
-
-            switch (direction) {
-                case UP:
-                    startX = width / 2;
-                    startY = (int) (height * 0.2); // starting from 20% of the height
-                    endX = width / 2;
-                    endY = (int) (height * 0.8); // ending to 80% of the height
-                    logger.debug("start - x : " + startX + ", y : " + startY);
-                    logger.debug("end - x : " + endX + ", y : " + endX);
-                    action
-                            .press(new PointOption().point(startX, startY))
-                            .waitAction(new WaitOptions().withDuration(ofSeconds(1)))
-                            .moveTo(new PointOption().point(endX, endY))
-                            .release()
-                            .perform();
-                    logger.info("Swiping up done!");
-                    break;
-
-                case DOWN:
-                    startX = width / 2;
-                    startY = (int) (height * 0.8); // starting from 80% of the height
-                    endX = width / 2;
-                    endY = (int) (height * 0.2); // ending to 20% of the height
-                    logger.debug("start - x : " + startX + ", y : " + startY);
-                    logger.debug("end - x : " + endX + ", y : " + endX);
-                    action
-                            .press(new PointOption().point(startX, startY))
-                            .waitAction(new WaitOptions().withDuration(ofSeconds(1)))
-                            .moveTo(new PointOption().point(endX, endY))
-                            .release()
-                            .perform();
-                    logger.info("Swiping down done!");
-                    break;
-
-                case LEFT:
-                    startX = (int) (width * 0.8); // starting from 80% of the width
-                    startY = height / 2;
-                    endX = (int) (width * 0.2); // ending to 20% of the width
-                    endY = height / 2;
-                    logger.debug("start - x : " + startX + ", y : " + startY);
-                    logger.debug("end - x : " + endX + ", y : " + endX);
-                    action
-                            .press(new PointOption().point(startX, startY))
-                            .waitAction(new WaitOptions().withDuration(ofSeconds(1)))
-                            .moveTo(new PointOption().point(endX, endY))
-                            .release()
-                            .perform();
-                    logger.info("Swiping left done!");
-                    break;
-
-                case RIGHT:
-                    startX = (int) (width * 0.2); // starting from 80% of the width
-                    startY = height / 2;
-                    endX = (int) (width * 0.2); // ending to 20% of the width
-                    endY = height / 2;
-                    logger.debug("start - x : " + startX + ", y : " + startY);
-                    logger.debug("end - x : " + endX + ", y : " + endX);
-                    action
-                            .press(new PointOption().point(startX, startY))
-                            .waitAction(new WaitOptions().withDuration(ofSeconds(1)))
-                            .moveTo(new PointOption().point(endX, endY))
-                            .release()
-                            .perform();
-                    logger.info("Swiping right done!");
-                    break;
-
-                default:
-                    logger.info("Invalid scroll direction");
-                    break;
-            }
-        } catch (Exception e) {
-           // takeScreenShot();
-            throw new RuntimeException(e);
-        }
-    }
-
     /**
      * this methed scroll with in the location of given element
      *
@@ -361,79 +309,28 @@ public class MobileCommonActions extends CommonActions {
 
     public void scrollInAnyDirectionWithinElement(String direction, WebElement element) {
         try {
-            Point pointLeft =
-                    new Point(
-                            (int) (element.getLocation().getX() * 1.05f),
-                            (int) (element.getLocation().getY() * 1.05f));
-            Point pointRight =
-                    new Point(
-                            (int) ((pointLeft.getX() + element.getSize().getWidth()) * 0.95f), pointLeft.getY());
-            Point pointCenter =
-                    new Point(
-                            (pointLeft.getX() + pointRight.getX()) / 2,
-                            (element.getSize().getHeight() + element.getLocation().getY() * 2) / 2);
-            Point pointTop = new Point(pointCenter.getX(), pointLeft.getY());
-            Point pointBottom =
-                    new Point(
-                            pointCenter.getX(),
-                            (int) (((pointLeft.getY() + element.getSize().getHeight()) * 0.95f)));
-            TouchAction touchAction = new TouchAction(localAppiumDriver);
+            ElementPoints points = new ElementPoints(element.getRect());
             if (direction.equalsIgnoreCase(Tap.LEFT.getValue())) {
                 logger.debug(
-                        "Swiping Left " + pointLeft.toString() + " to Right : " + pointRight.toString());
-                touchAction
-                        .longPress(
-                                longPressOptions()
-                                        .withPosition(PointOption.point(pointLeft))
-                                        .withDuration(ofMillis(500)))
-                        .moveTo(PointOption.point(pointRight))
-                        .release()
-                        .perform();
+                        "Swiping Left " + points.left.toString() + " to Right : " + points.right.toString());
+                gestureEngine.swipe(points.left, points.right, WITHIN_ELEMENT_HOLD);
             } else if (direction.equalsIgnoreCase(Tap.RIGHT.getValue())) {
                 logger.debug(
-                        "Swiping Right " + pointRight.toString() + " to Left : " + pointLeft.toString());
-                touchAction
-                        .longPress(
-                                longPressOptions()
-                                        .withPosition(PointOption.point(pointRight))
-                                        .withDuration(ofMillis(500)))
-                        .moveTo(PointOption.point(pointLeft))
-                        .release()
-                        .perform();
+                        "Swiping Right " + points.right.toString() + " to Left : " + points.left.toString());
+                gestureEngine.swipe(points.right, points.left, WITHIN_ELEMENT_HOLD);
             } else if (direction.equalsIgnoreCase(Tap.CENTER.getValue())
                     || direction.equalsIgnoreCase("centre")) {
                 logger.debug(
-                        "Swiping top " + pointCenter.toString() + " to center : " + pointCenter.toString());
-                touchAction
-                        .longPress(
-                                longPressOptions()
-                                        .withPosition(PointOption.point(pointTop))
-                                        .withDuration(ofMillis(500)))
-                        .moveTo(PointOption.point(pointCenter))
-                        .release()
-                        .perform();
+                        "Swiping top " + points.top.toString() + " to center : " + points.center.toString());
+                gestureEngine.swipe(points.top, points.center, WITHIN_ELEMENT_HOLD);
             } else if (direction.equalsIgnoreCase(Tap.TOP.getValue())) {
                 logger.debug(
-                        "Swiping center " + pointCenter.toString() + " to top : " + pointTop.toString());
-                touchAction
-                        .longPress(
-                                longPressOptions()
-                                        .withPosition(PointOption.point(pointCenter))
-                                        .withDuration(ofMillis(500)))
-                        .moveTo(PointOption.point(pointTop))
-                        .release()
-                        .perform();
+                        "Swiping center " + points.center.toString() + " to top : " + points.top.toString());
+                gestureEngine.swipe(points.center, points.top, WITHIN_ELEMENT_HOLD);
             } else if (direction.equalsIgnoreCase(Tap.BOTTOM.getValue())) {
                 logger.debug(
-                        "Swiping center " + pointCenter.toString() + " to bottom : " + pointBottom.toString());
-                touchAction
-                        .longPress(
-                                longPressOptions()
-                                        .withPosition(PointOption.point(pointCenter))
-                                        .withDuration(ofMillis(500)))
-                        .moveTo(PointOption.point(pointBottom))
-                        .release()
-                        .perform();
+                        "Swiping center " + points.center.toString() + " to bottom : " + points.bottom.toString());
+                gestureEngine.swipe(points.center, points.bottom, WITHIN_ELEMENT_HOLD);
             } else logger.info("Invalid tap location");
         } catch (Exception e) {
            // takeScreenShot();
@@ -449,54 +346,23 @@ public class MobileCommonActions extends CommonActions {
      */
     public void tapWithinElement(WebElement element, String direction) {
         try {
-            Point pointLeft =
-                    new Point(
-                            (int) (element.getLocation().getX() * 1.05f),
-                            (int) (element.getLocation().getY() * 1.05f));
-            Point pointRight =
-                    new Point(
-                            (int) ((pointLeft.getX() + element.getSize().getWidth()) * 0.95f), pointLeft.getY());
-            Point pointCenter =
-                    new Point(
-                            (pointLeft.getX() + pointRight.getX()) / 2,
-                            (element.getSize().getHeight() + element.getLocation().getY() * 2) / 2);
-            Point pointTop = new Point(pointCenter.getX(), pointLeft.getY());
-            Point pointBottom =
-                    new Point(
-                            pointCenter.getX(),
-                            (int) (((pointLeft.getY() + element.getSize().getHeight()) * 0.95f)));
-            TouchAction touchAction = new TouchAction(localAppiumDriver);
+            ElementPoints points = new ElementPoints(element.getRect());
             if (direction.equalsIgnoreCase(Tap.LEFT.getValue())) {
                 logger.info("tap left");
-                touchAction
-                        .tap(PointOption.point(pointLeft))
-                        .waitAction(WaitOptions.waitOptions(Duration.ofMillis(250)))
-                        .perform();
+                gestureEngine.tap(points.left);
             } else if (direction.equalsIgnoreCase(Tap.RIGHT.getValue())) {
                 logger.info("tap right");
-                touchAction
-                        .tap(PointOption.point(pointRight))
-                        .waitAction(WaitOptions.waitOptions(Duration.ofMillis(250)))
-                        .perform();
+                gestureEngine.tap(points.right);
             } else if (direction.equalsIgnoreCase(Tap.CENTER.getValue())
                     || direction.equalsIgnoreCase("centre")) {
                 logger.info("tap center");
-                touchAction
-                        .tap(PointOption.point(pointCenter))
-                        .waitAction(WaitOptions.waitOptions(Duration.ofMillis(250)))
-                        .perform();
+                gestureEngine.tap(points.center);
             } else if (direction.equalsIgnoreCase(Tap.TOP.getValue())) {
-                logger.info("tap top : " + pointTop.toString());
-                touchAction
-                        .tap(PointOption.point(pointTop))
-                        .waitAction(WaitOptions.waitOptions(Duration.ofMillis(250)))
-                        .perform();
+                logger.info("tap top : " + points.top.toString());
+                gestureEngine.tap(points.top);
             } else if (direction.equalsIgnoreCase(Tap.BOTTOM.getValue())) {
-                logger.info("tap bottom : " + pointBottom.toString());
-                touchAction
-                        .tap(PointOption.point(pointBottom))
-                        .waitAction(WaitOptions.waitOptions(Duration.ofMillis(250)))
-                        .perform();
+                logger.info("tap bottom : " + points.bottom.toString());
+                gestureEngine.tap(points.bottom);
             } else logger.info("Invalid tap location");
         } catch (Exception e) {
            // takeScreenShot();
@@ -504,44 +370,88 @@ public class MobileCommonActions extends CommonActions {
         }
     }
 
-    public void scrollTillElementVertically(By myElement) {
-        try {
-            List<WebElement> elements = this.localAppiumDriver.findElements(myElement);
-            while (elements.size() == 0) {
-                scrollInAnyDirection(Scroll.DOWN);
-                elements = this.localAppiumDriver.findElements(myElement);
-            }
-        } catch (Exception e) {
-           // takeScreenShot();
-            throw new RuntimeException(e);
+    /**
+     * Points near the edges and the center of an element, computed from a single getRect call.
+     */
+    private static class ElementPoints {
+        final Point left;
+        final Point right;
+        final Point center;
+        final Point top;
+        final Point bottom;
+
+        ElementPoints(Rectangle rect) {
+            left = new Point((int) (rect.getX() * 1.05f), (int) (rect.getY() * 1.05f));
+            right = new Point((int) ((left.getX() + rect.getWidth()) * 0.95f), left.getY());
+            center = new Point((left.getX() + right.getX()) / 2, (rect.getHeight() + rect.getY() * 2) / 2);
+            top = new Point(center.getX(), left.getY());
+            bottom = new Point(center.getX(), (int) ((left.getY() + rect.getHeight()) * 0.95f));
         }
     }
 
-    public void scrollTillElementVertically(By myElement, int maxSwipe) {
-        List<WebElement> elements = this.localAppiumDriver.findElements(myElement);
-        while (elements.size() == 0 && maxSwipe-- > 0) {
-            scrollInAnyDirection(Scroll.DOWN);
-            elements = this.localAppiumDriver.findElements(myElement);
+    /**
+     * Scrolls down until the element is on screen.
+     *
+     * @param myElement id, accessibility id, class name and XPath locators are evaluated on page source
+     *                  snapshots, any other locator with findElements
+     * @throws NoSuchElementException when the end of the list is reached without a match
+     */
+    public void scrollTillElementVertically(By myElement) {
+        ScrollSearch.Result result = scrollSearch(Scroll.DOWN).search(myElement);
+        if (!result.isFound()) {
+            throw new NoSuchElementException(myElement + " not found after " + result.getSwipes() + " swipes");
         }
     }
 
+    /**
+     * Scrolls down until the element is on screen, at most maxSwipe times.
+     *
+     * @return the search result, check {@link ScrollSearch.Result#isFound()}
+     */
+    public ScrollSearch.Result scrollTillElementVertically(By myElement, int maxSwipe) {
+        return scrollSearch(Scroll.DOWN).search(myElement, maxSwipe);
+    }
+
     public void scrollTillElementHorizontally(By myElement) {
-        try {
-            List<WebElement> elements = this.localAppiumDriver.findElements(myElement);
+        ScrollSearch.Result result = scrollSearch(Scroll.LEFT).search(myElement);
+        if (!result.isFound()) {
+            throw new NoSuchElementException(myElement + " not found after " + result.getSwipes() + " swipes");
+        }
+    }
 
-            while (elements.size() == 0) {
-                scrollInAnyDirection(Scroll.LEFT);
-                elements = this.localAppiumDriver.findElements(myElement);
-            }
-        } catch (Exception e) {
-           // takeScreenShot();
-            throw new RuntimeException(e);
+    private ScrollSearch scrollSearch(Scroll direction) {
+        return new ScrollSearch(new SnapshotLocatorEngine(localAppiumDriver), () -> scrollStep(direction));
+    }
+
+    /**
+     * Swipes over the middle 60% of the screen, resting before release so a search sees
+     * every row instead of the list flinging past them between two snapshots.
+     */
+    private void scrollStep(Scroll direction) {
+        switch (direction) {
+            case UP:
+                gestureEngine.scrollPreciselyByFraction(0.5, 0.2, 0.5, 0.8);
+                break;
+            case DOWN:
+                gestureEngine.scrollPreciselyByFraction(0.5, 0.8, 0.5, 0.2);
+                break;
+            case LEFT:
+                gestureEngine.scrollPreciselyByFraction(0.8, 0.5, 0.2, 0.5);
+                break;
+            case RIGHT:
+                gestureEngine.scrollPreciselyByFraction(0.2, 0.5, 0.8, 0.5);
+                break;
+            default:
+                logger.info("Invalid scroll direction");
+                break;
         }
     }
 
     public void bringAppInForeground(String packageName) {
         try {
             this.localAppiumDriver.activateApp(packageName);
+            ElementCache.markScreenTransition(localAppiumDriver);
+            DevicePropertyCache.forDriver(localAppiumDriver).onAppRestart(packageName);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -549,8 +459,7 @@ public class MobileCommonActions extends CommonActions {
 
     public void tapElement(WebElement myElement) {
         try {
-            TouchAction t = new TouchAction(this.localAppiumDriver);
-            t.tap(tapOptions().withElement(element(myElement))).perform();
+            gestureEngine.tap(GestureEngine.getCenter(myElement.getRect()));
         } catch (Exception e) {
             //takeScreenShot();
             throw new RuntimeException(e);
@@ -559,8 +468,7 @@ public class MobileCommonActions extends CommonActions {
 
     public void longPressOnElement(WebElement myElement) {
         try {
-            TouchAction t = new TouchAction(this.localAppiumDriver);
-            t.longPress(longPressOptions().withElement(element(myElement))).release().perform();
+            gestureEngine.longPress(GestureEngine.getCenter(myElement.getRect()));
         } catch (Exception e) {
            // takeScreenShot();
             throw new RuntimeException(e);
@@ -569,13 +477,7 @@ public class MobileCommonActions extends CommonActions {
 
     public void longPressOnElement(WebElement myElement, long durationInSeconds) {
         try {
-            TouchAction t = new TouchAction(this.localAppiumDriver);
-            t.longPress(
-                    longPressOptions()
-                            .withElement(element(myElement))
-                            .withDuration(ofSeconds(durationInSeconds)))
-                    .release()
-                    .perform();
+            gestureEngine.longPress(GestureEngine.getCenter(myElement.getRect()), ofSeconds(durationInSeconds));
         } catch (Exception e) {
             //takeScreenShot();
             throw new RuntimeException(e);
@@ -584,11 +486,9 @@ public class MobileCommonActions extends CommonActions {
 
     public void swipeFromOneElementToAnother(WebElement firstElement, WebElement secondElement) {
         try {
-            TouchAction t = new TouchAction(this.localAppiumDriver);
-            t.longPress(longPressOptions().withElement(element(firstElement)).withDuration(ofSeconds(1)))
-                    .moveTo(element(secondElement))
-                    .release()
-                    .perform();
+            Point from = GestureEngine.getCenter(firstElement.getRect());
+            Point to = GestureEngine.getCenter(secondElement.getRect());
+            gestureEngine.swipe(from, to, ofSeconds(1)); //long press picks the first element up
         } catch (Exception e) {
             //takeScreenShot();
             throw new RuntimeException(e);
@@ -597,9 +497,8 @@ public class MobileCommonActions extends CommonActions {
 
     public void dragAndDropElement(WebElement source, WebElement destination) {
         try {
-            TouchAction t = new TouchAction(this.localAppiumDriver);
-
-            t.longPress(element(source)).moveTo(element(destination)).release().perform();
+            gestureEngine.dragAndDrop(GestureEngine.getCenter(source.getRect()),
+                    GestureEngine.getCenter(destination.getRect()));
         } catch (Exception e) {
             //takeScreenShot();
             throw new RuntimeException(e);
@@ -622,6 +521,7 @@ public class MobileCommonActions extends CommonActions {
 
     public void pressBackButton() {
         localAppiumDriver.navigate().back();
+        ElementCache.markScreenTransition(localAppiumDriver);
     }
 
     public boolean isEnabled(WebElement myElement) {
@@ -660,60 +560,66 @@ public class MobileCommonActions extends CommonActions {
         return checkable;
     }
 
+    /**
+     * text, enabled, checked, checkable, bounds and displayed of all elements with a single page
+     * source round trip instead of one call per attribute per element.
+     */
+    public List<ElementState> getElementStates(WebElement... myElements) {
+        return new SnapshotLocatorEngine(localAppiumDriver).getStates(Arrays.asList(myElements));
+    }
+
+    public Map<By, ElementState> getElementStates(By... locators) {
+        return new SnapshotLocatorEngine(localAppiumDriver).getStates(locators);
+    }
+
     public void startScreenRecord(AndroidDriver androidDriver) {
         try {
-            androidDriver.startRecordingScreen(
-                    new AndroidStartScreenRecordingOptions().withTimeLimit(Duration.ofMinutes(15)));
-            logger.info("screen record started");
+            RecordingManager.forDriver(androidDriver).start("screenrecord");
         } catch (Exception e) {
             logger.error(e.getMessage());
         }
     }
 
+    /**
+     * @return the recorded segments on disk, see {@link RecordingManager}
+     */
   //  @Attachment(value = "ScreenRecord video", type = "video/mp4")
-    public byte[] stopScreenRecord(AndroidDriver androidDriver) {
+    public List<Path> stopScreenRecord(AndroidDriver androidDriver) {
         try {
-            Thread.sleep(1000);
-            String video = androidDriver.stopRecordingScreen();
-            logger.info("screen record stopped");
-            return Base64.getMimeDecoder().decode(video);
+            new Synchronizer(androidDriver).waitForUiIdle(1000); //let the last frames reach the recording
+            return RecordingManager.forDriver(androidDriver).stop();
         } catch (Exception e) {
             logger.error(e.getMessage());
         }
-        return null;
+        return new ArrayList<>();
     }
 
     public static void removeAndroidApps(String appName, boolean onlyApp) {
-        CommandUtils commandUtils = new CommandUtils();
+        AdbShellSession shell = AdbShellSession.forDevice(DriverHolder.getDeviceName());
         try {
             if (!onlyApp) {
-                commandUtils.executeCommand("adb uninstall io.appium.uiautomator2.server");
-                commandUtils.executeCommand("adb uninstall io.appium.uiautomator2.server.test");
-                commandUtils.executeCommand("adb uninstall io.appium.unlock");
-                commandUtils.executeCommand("adb uninstall io.appium.settings");
+                shell.execute("pm uninstall io.appium.uiautomator2.server");
+                shell.execute("pm uninstall io.appium.uiautomator2.server.test");
+                shell.execute("pm uninstall io.appium.unlock");
+                shell.execute("pm uninstall io.appium.settings");
                 logger.info("uninstalled appium files from devcie");
             }
             logger.info(
                     "remove "
                             + appName
                             + " app : "
-                            + commandUtils.executeCommand(
-                            "adb uninstall "
-                                    + "com.zoomcar"));
-        }  catch (IOException e) {
+                            + shell.execute(
+                            "pm uninstall "
+                                    + "com.zoomcar").getOutput());
+        }  catch (RuntimeException e) {
             logger.error(e.getMessage());
         }
     }
 
     public static String getAndroidAppVersion(String device, String packageName) {
         try {
-            CommandUtils commandUtils = new CommandUtils();
-            return commandUtils
-                    .executeCommand(
-                            "adb -s " + device + " shell dumpsys package " + packageName + " | grep versionName")
-                    .trim()
-                    .split("=")[1];
-        }  catch (IOException e) {
+            return DevicePropertyCache.forDevice(device).getVersionName(packageName);
+        }  catch (RuntimeException e) {
             logger.error(e.getMessage());
         }
         return null;
@@ -721,54 +627,35 @@ public class MobileCommonActions extends CommonActions {
 
    // How to check if current Orientation is Portrait?
    public boolean isCurrentOrientationPortrait() {
-       String ort = localAppiumDriver.getOrientation().name();
-       ScreenOrientation orientation = ScreenOrientation.valueOf(ort);
-
-       if (orientation == ScreenOrientation.PORTRAIT) {
-           return true;
-
-       } else {
-           return false;
-       }
+       return gestureEngine.getCurrentOrientation() == ScreenOrientation.PORTRAIT;
    }
 
 
   //  How to check if current Orientation is LandScape?
   public boolean isCurrentOrientationLandScape() {
-        String ort = localAppiumDriver.getOrientation().name();
-      ScreenOrientation orientation = ScreenOrientation.valueOf(ort);
-
-      if (orientation == ScreenOrientation.LANDSCAPE) {
-          return true;
-      } else {
-          return false;
-      }
+      return gestureEngine.getCurrentOrientation() == ScreenOrientation.LANDSCAPE;
   }
 
   //How to perform double click in android device using appium?
   public void doubleClick(MobileElement mobileElement){
-      AndroidTouchAction touch = new AndroidTouchAction(localAppiumDriver);
-      touch.press(PointOption.point(150, 200))
-              .release()
-              .perform()
-              .waitAction(WaitOptions.waitOptions(Duration.ofMillis(50))).
-              press(PointOption.point(100,300))
-              .release()
-              .perform();
+      gestureEngine.doubleTap(GestureEngine.getCenter(mobileElement.getRect()));
   }
 
   public void startRecording(){
       ((CanRecordScreen) localAppiumDriver).startRecordingScreen();
   }
 
-    public void stoptRecording(){
-        ((CanRecordScreen) localAppiumDriver).stopRecordingScreen();
+    public Path stoptRecording(){
+        return RecordingManager.decodeBase64(((CanRecordScreen) localAppiumDriver).stopRecordingScreen(),
+                RecordingManager.recordingFile("recording"));
     }
 
     public void launchAnotherApp(String appPackageName, String appActivityName){
         Activity activity = new Activity(appPackageName, appActivityName);
         activity.setStopApp(false);
         ((AndroidDriver<MobileElement>) localAppiumDriver).startActivity(activity);
+        ElementCache.markScreenTransition(localAppiumDriver);
+        DevicePropertyCache.forDriver(localAppiumDriver).onAppRestart(appPackageName);
     }
 
 }
@@ -0,0 +1,281 @@
+package core.utils;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs an external command and drains stdout and stderr concurrently, so a chatty child can not
+ * block on a full pipe. Each stream goes line by line to an optional listener and into a buffer
+ * that keeps the first {@code process.max.buffered.chars} characters. The command and its
+ * descendants are killed after {@code process.timeout.ms} or when cancelled.
+ */
+public class ProcessExecutor {
+
+    public static final long DEFAULT_TIMEOUT_MS = Long.getLong("process.timeout.ms", 120000);
+    public static final int DEFAULT_MAX_BUFFERED_CHARS = Integer.getInteger("process.max.buffered.chars", 16 * 1024 * 1024);
+    private static final long DRAIN_TIMEOUT_MS = Long.getLong("process.drain.timeout.ms", 2000);
+    private static Logger logger = Logger.getLogger(ProcessExecutor.class);
+    private static final AtomicInteger readerCount = new AtomicInteger();
+    private static final ExecutorService readers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "process-reader-" + readerCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<String> command;
+    private final String label;
+    private long timeoutMs = DEFAULT_TIMEOUT_MS;
+    private int maxBufferedChars = DEFAULT_MAX_BUFFERED_CHARS;
+    private Consumer<String> stdoutListener;
+    private Consumer<String> stderrListener;
+
+    public ProcessExecutor(List<String> command) {
+        this(command, Paths.get(command.get(0)).getFileName().toString());
+    }
+
+    /**
+     * @param label groups the process in the {@link ProcessSupervisor} stats
+     */
+    public ProcessExecutor(List<String> command, String label) {
+        this.command = new ArrayList<>(command);
+        this.label = label;
+    }
+
+    /**
+     * Runs the command line through {@code /bin/sh -c}, or {@code cmd /c} on Windows, so pipes and
+     * redirections work.
+     */
+    public static ProcessExecutor shell(String commandLine) {
+        String label = commandLine.trim().split("\\s+")[0];
+        if (System.getProperty("os.name").contains("Windows")) {
+            return new ProcessExecutor(Arrays.asList("cmd", "/c", commandLine), label);
+        }
+        return new ProcessExecutor(Arrays.asList("/bin/sh", "-c", commandLine), label);
+    }
+
+    public ProcessExecutor timeout(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        return this;
+    }
+
+    /**
+     * Characters kept per stream; lines past it still reach the listener.
+     */
+    public ProcessExecutor maxBufferedChars(int maxBufferedChars) {
+        this.maxBufferedChars = maxBufferedChars;
+        return this;
+    }
+
+    /**
+     * Called on a reader thread for every stdout line, while the command runs.
+     */
+    public ProcessExecutor onStdoutLine(Consumer<String> listener) {
+        this.stdoutListener = listener;
+        return this;
+    }
+
+    public ProcessExecutor onStderrLine(Consumer<String> listener) {
+        this.stderrListener = listener;
+        return this;
+    }
+
+    /**
+     * Runs the command and waits for it.
+     */
+    public Result execute() throws IOException {
+        return start().await();
+    }
+
+    /**
+     * Starts the command without waiting, the returned execution can be awaited or cancelled.
+     */
+    public Execution start() throws IOException {
+        logger.debug("command to execute : " + command);
+        Process process = ProcessSupervisor.getInstance().track(new ProcessBuilder(command).start(), label);
+        process.getOutputStream().close();
+        return new Execution(process);
+    }
+
+    public class Execution {
+        private final Process process;
+        private final long start = System.currentTimeMillis();
+        private final StreamBuffer stdout = new StreamBuffer(maxBufferedChars);
+        private final StreamBuffer stderr = new StreamBuffer(maxBufferedChars);
+        private final Future<?> stdoutReader;
+        private final Future<?> stderrReader;
+        private volatile boolean cancelled;
+
+        private Execution(Process process) {
+            this.process = process;
+            stdoutReader = readers.submit(() -> drain(process.getInputStream(), stdout, stdoutListener));
+            stderrReader = readers.submit(() -> drain(process.getErrorStream(), stderr, stderrListener));
+        }
+
+        /**
+         * Kills the command, a pending {@link #await()} returns a cancelled result.
+         */
+        public void cancel() {
+            cancelled = true;
+            ProcessSupervisor.getInstance().killTree(process);
+        }
+
+        public boolean isAlive() {
+            return process.isAlive();
+        }
+
+        /**
+         * Waits for the command to exit, killing it once the timeout has passed since it started.
+         */
+        public Result await() {
+            boolean timedOut = false;
+            try {
+                long remaining = timeoutMs - (System.currentTimeMillis() - start);
+                if (!process.waitFor(Math.max(0, remaining), TimeUnit.MILLISECONDS)) {
+                    timedOut = !cancelled;
+                    ProcessSupervisor.getInstance().killTree(process);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+            }
+            long drainDeadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+            awaitReader(stdoutReader, drainDeadline);
+            awaitReader(stderrReader, drainDeadline);
+            Result result = new Result(process.isAlive() ? -1 : process.exitValue(), stdout.toString(),
+                    stderr.toString(), stdout.truncated || stderr.truncated, timedOut, cancelled,
+                    System.currentTimeMillis() - start);
+            if (timedOut) {
+                logger.warn("command " + command + " timed out after " + timeoutMs + " ms");
+            }
+            return result;
+        }
+
+        private void awaitReader(Future<?> reader, long deadline) {
+            try {
+                reader.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                logger.error("reading output of " + command + " failed : " + e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                //a background grandchild that outlived the command can hold the pipe open
+                reader.cancel(true);
+                logger.warn("output of " + command + " was not closed after it exited");
+            }
+        }
+    }
+
+    private static void drain(InputStream stream, StreamBuffer buffer, Consumer<String> listener) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                buffer.append(line);
+                if (listener != null) {
+                    listener.accept(line);
+                }
+            }
+        } catch (IOException e) {
+            //stream closed when the process was killed
+            logger.debug(e.getMessage());
+        }
+    }
+
+    private static class StreamBuffer {
+        private final StringBuilder text = new StringBuilder();
+        private final int maxChars;
+        private volatile boolean truncated;
+
+        StreamBuffer(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        synchronized void append(String line) {
+            if (text.length() + line.length() + 1 > maxChars) {
+                truncated = true;
+                return;
+            }
+            text.append(line).append('\n');
+        }
+
+        @Override
+        public synchronized String toString() {
+            return text.toString();
+        }
+    }
+
+    public static class Result {
+        private final int exitCode;
+        private final String stdout;
+        private final String stderr;
+        private final boolean truncated;
+        private final boolean timedOut;
+        private final boolean cancelled;
+        private final long elapsedMs;
+
+        Result(int exitCode, String stdout, String stderr, boolean truncated, boolean timedOut, boolean cancelled,
+               long elapsedMs) {
+            this.exitCode = exitCode;
+            this.stdout = stdout;
+            this.stderr = stderr;
+            this.truncated = truncated;
+            this.timedOut = timedOut;
+            this.cancelled = cancelled;
+            this.elapsedMs = elapsedMs;
+        }
+
+        /**
+         * Exit code of the command, or of the kill signal when it timed out or was cancelled.
+         */
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public String getStdout() {
+            return stdout;
+        }
+
+        public String getStderr() {
+            return stderr;
+        }
+
+        /**
+         * True if a stream had more than the buffered characters and its tail was dropped.
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isSuccess() {
+            return exitCode == 0 && !timedOut && !cancelled;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package core.utils;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks every child process the framework starts (adb, logcat, screenrecord, the Appium node
+ * server) by its {@link ProcessHandle}. Tracked processes are sampled every
+ * {@code process.sample.interval.ms} for CPU time and resident memory, killed together with their
+ * descendants on timeout or cancel, and every tree still alive is killed on JVM exit.
+ */
+public class ProcessSupervisor {
+
+    private static final long SAMPLE_INTERVAL_MS = Long.getLong("process.sample.interval.ms", 5000);
+    private static final long KILL_WAIT_MS = 2000;
+    private static Logger logger = Logger.getLogger(ProcessSupervisor.class);
+    private static ProcessSupervisor instance;
+
+    private final Map<Long, Tracked> tracked = new ConcurrentHashMap<>();
+    private final Map<String, long[]> finished = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "process-supervisor-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    ProcessSupervisor() {
+    }
+
+    public static synchronized ProcessSupervisor getInstance() {
+        if (instance == null) {
+            instance = new ProcessSupervisor();
+            instance.sampler.scheduleWithFixedDelay(instance::sample, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS,
+                    TimeUnit.MILLISECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::shutdown, "process-supervisor-shutdown"));
+        }
+        return instance;
+    }
+
+    /**
+     * @param label groups the stats, e.g. {@code adb} or {@code logcat}
+     */
+    public Process track(Process process, String label) {
+        track(process.toHandle(), label);
+        return process;
+    }
+
+    public void track(ProcessHandle handle, String label) {
+        Tracked process = new Tracked(handle, label);
+        tracked.put(handle.pid(), process);
+        handle.onExit().thenRun(() -> reap(process));
+        logger.debug("tracking " + label + " process " + handle.pid());
+    }
+
+    /**
+     * Pids of the current children of this JVM, taken before a library starts a process that is
+     * adopted afterwards with {@link #trackNewChildren(Set, Predicate, String)}.
+     */
+    public static Set<Long> childPids() {
+        return ProcessHandle.current().children().map(ProcessHandle::pid).collect(Collectors.toSet());
+    }
+
+    /**
+     * Tracks children of this JVM that were started by a library, e.g. the node process of an
+     * Appium server: those not in {@code before} and not tracked yet that match {@code filter}, so
+     * processes other threads started meanwhile are left alone.
+     *
+     * @return number of children adopted
+     */
+    public int trackNewChildren(Set<Long> before, Predicate<ProcessHandle> filter, String label) {
+        List<ProcessHandle> children = ProcessHandle.current().children()
+                .filter(child -> !before.contains(child.pid()) && !tracked.containsKey(child.pid()))
+                .filter(filter)
+                .collect(Collectors.toList());
+        for (ProcessHandle child : children) {
+            track(child, label);
+        }
+        return children.size();
+    }
+
+    /**
+     * Kills the process and all its descendants, children first so none is re-parented and left
+     * behind. Only the root is waited for, killed grandchildren are reaped by init.
+     *
+     * @return true if the root exited within two seconds
+     */
+    public boolean killTree(ProcessHandle root) {
+        List<ProcessHandle> tree = root.descendants().collect(Collectors.toList());
+        tree.add(root);
+        for (ProcessHandle process : tree) {
+            sample(tracked.get(process.pid()));
+            process.destroyForcibly();
+        }
+        try {
+            root.onExit().get(KILL_WAIT_MS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (Exception e) {
+            logger.warn("process " + root.pid() + " did not exit after being killed");
+            return false;
+        }
+    }
+
+    public boolean killTree(Process process) {
+        return killTree(process.toHandle());
+    }
+
+    public int getTrackedCount() {
+        return tracked.size();
+    }
+
+    /**
+     * Per label: processes finished, total CPU ms and the highest resident memory seen, plus the
+     * processes still running.
+     */
+    public String getStats() {
+        StringBuilder summary = new StringBuilder("Processes:");
+        new TreeMap<>(finished).forEach((label, values) -> summary.append(' ').append(label)
+                .append("[finished=").append(values[0])
+                .append(", cpu ms=").append(values[1])
+                .append(", peak rss kb=").append(values[2]).append(']'));
+        summary.append(" running=").append(tracked.size());
+        return summary.toString();
+    }
+
+    void sample() {
+        for (Tracked process : tracked.values()) {
+            sample(process);
+        }
+    }
+
+    private void sample(Tracked process) {
+        if (process == null || !process.handle.isAlive()) {
+            return;
+        }
+        process.handle.info().totalCpuDuration().map(Duration::toMillis).ifPresent(cpu -> process.cpuMs = cpu);
+        long rssKb = readRssKb(process.handle.pid());
+        if (rssKb > process.peakRssKb) {
+            process.peakRssKb = rssKb;
+        }
+    }
+
+    private void reap(Tracked process) {
+        if (tracked.remove(process.handle.pid()) == null) {
+            return;
+        }
+        long[] values = finished.computeIfAbsent(process.label, label -> new long[3]);
+        synchronized (values) {
+            values[0]++;
+            values[1] += process.cpuMs;
+            values[2] = Math.max(values[2], process.peakRssKb);
+        }
+        logger.debug(process.label + " process " + process.handle.pid() + " exited after "
+                + (System.currentTimeMillis() - process.startMs) + " ms, cpu ms=" + process.cpuMs
+                + ", peak rss kb=" + process.peakRssKb);
+    }
+
+    /**
+     * Resident memory from /proc, -1 where there is no /proc.
+     */
+    static long readRssKb(long pid) {
+        Path status = Paths.get("/proc", String.valueOf(pid), "status");
+        try {
+            for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring(6).trim().split("\\s+")[0]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    void shutdown() {
+        sampler.shutdownNow();
+        List<Tracked> alive = new ArrayList<>(tracked.values());
+        for (Tracked process : alive) {
+            if (process.handle.isAlive()) {
+                logger.info("killing " + process.label + " process " + process.handle.pid() + " left running");
+                killTree(process.handle);
+            }
+        }
+        logger.info(getStats());
+    }
+
+    private static class Tracked {
+        private final ProcessHandle handle;
+        private final String label;
+        private final long startMs = System.currentTimeMillis();
+        private volatile long cpuMs;
+        private volatile long peakRssKb = -1;
+
+        Tracked(ProcessHandle handle, String label) {
+            this.handle = handle;
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package core.utils;
+
+import core.driver_manager.DriverHolder;
+import io.appium.java_client.AppiumDriver;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Records the screen of a device with {@code screenrecord} in segments of
+ * {@code recording.segment.seconds}, as one recording is capped at 3 minutes by Android. The
+ * segments are looped on the device and pulled over adb sync into {@code recording.dir} when
+ * recording stops, so the video never passes through the heap. Stopping signals only the
+ * screenrecord process of this recording, others on the device keep running.
+ */
+public class RecordingManager {
+
+    private static final int SEGMENT_SECONDS = Integer.getInteger("recording.segment.seconds", 180);
+    private static final String DIRECTORY = System.getProperty("recording.dir",
+            System.getProperty("user.dir") + "/target/recordings");
+    private static final String REMOTE_DIRECTORY = System.getProperty("recording.remote.dir", "/sdcard");
+    private static final long STOP_TIMEOUT_MS = Long.getLong("recording.stop.timeout.ms", 15000);
+    private static Logger logger = Logger.getLogger(RecordingManager.class);
+    private static final Map<String, RecordingManager> managers = new ConcurrentHashMap<>();
+
+    private final String device;
+    private final AdbClient adb;
+    private final Path directory;
+    private final int segmentSeconds;
+    private String name;
+    private ProcessExecutor.Execution recorder;
+
+    RecordingManager(String device, AdbClient adb, Path directory, int segmentSeconds) {
+        this.device = device;
+        this.adb = adb;
+        this.directory = directory;
+        this.segmentSeconds = segmentSeconds;
+    }
+
+    /**
+     * The recording manager of a device, see {@link DriverHolder#deviceKey(String)}.
+     */
+    public static RecordingManager forDevice(String device) {
+        return managers.computeIfAbsent(DriverHolder.deviceKey(device),
+                key -> new RecordingManager(device, new AdbClient(), Paths.get(DIRECTORY), SEGMENT_SECONDS));
+    }
+
+    public static RecordingManager forDriver(AppiumDriver driver) {
+        return forDevice(DriverHolder.getDeviceSerial(driver));
+    }
+
+    /**
+     * Starts recording until {@link #stop()}, a recording already running is kept.
+     */
+    public synchronized void start(String recordingName) {
+        if (recorder != null && recorder.isAlive()) {
+            logger.warn("Already recording " + name + " on " + device);
+            return;
+        }
+        name = (recordingName == null ? "recording" : recordingName.replaceAll("[^A-Za-z0-9._-]", "_"))
+                + "_" + DateUtils.getTimeInMilliSecond();
+        String script = loopScript(REMOTE_DIRECTORY + "/" + name, segmentSeconds);
+        List<String> command = new ArrayList<>(device == null ? Arrays.asList("adb", "shell")
+                : Arrays.asList("adb", "-s", device, "shell"));
+        command.add(script);
+        try {
+            recorder = new ProcessExecutor(command, "screenrecord")
+                    .timeout(Long.MAX_VALUE)
+                    .maxBufferedChars(64 * 1024)
+                    .start();
+            logger.info("screen record started: " + name);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not start screenrecord on " + device, e);
+        }
+    }
+
+    public synchronized boolean isRecording() {
+        return recorder != null && recorder.isAlive();
+    }
+
+    /**
+     * Stops recording, letting screenrecord finish the current segment file, and pulls the segments.
+     *
+     * @return the local segment files in recording order
+     */
+    public synchronized List<Path> stop() {
+        if (recorder == null) {
+            return new ArrayList<>();
+        }
+        try {
+            adb.shell(device, stopCommand(REMOTE_DIRECTORY + "/" + name));
+            long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MS;
+            while (recorder.isAlive() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            if (recorder.isAlive()) {
+                logger.warn("screenrecord did not stop within " + STOP_TIMEOUT_MS + " ms, killing it");
+                recorder.cancel();
+            }
+            List<Path> segments = collect(name);
+            logger.info("screen record stopped: " + segments);
+            return segments;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not stop screenrecord on " + device, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            recorder = null;
+        }
+    }
+
+    /**
+     * Pulls the segments of a recording in order and removes them from the device.
+     */
+    List<Path> collect(String recordingName) throws IOException {
+        String prefix = REMOTE_DIRECTORY + "/" + recordingName + "-";
+        List<String> remoteSegments = Arrays.stream(adb.shell(device, "ls " + prefix + "*.mp4").split("\\s+"))
+                .filter(path -> path.startsWith(prefix) && path.endsWith(".mp4"))
+                .sorted(Comparator.comparingInt(path -> Integer.parseInt(path.substring(prefix.length(), path.length() - 4))))
+                .collect(Collectors.toList());
+        Files.createDirectories(directory);
+        List<Path> segments = new ArrayList<>();
+        try (AdbClient.SyncSession sync = adb.openSync(device)) {
+            for (String remoteSegment : remoteSegments) {
+                Path segment = directory.resolve(remoteSegment.substring(remoteSegment.lastIndexOf('/') + 1));
+                try (OutputStream out = Files.newOutputStream(segment)) {
+                    sync.pull(remoteSegment, out);
+                }
+                segments.add(segment);
+            }
+        }
+        adb.shell(device, "rm -f " + prefix + "*.mp4 " + REMOTE_DIRECTORY + "/" + recordingName + ".stop "
+                + REMOTE_DIRECTORY + "/" + recordingName + ".pid");
+        return segments;
+    }
+
+    /**
+     * Records segments {@code <base>-0.mp4}, {@code <base>-1.mp4}... until {@code <base>.stop} exists.
+     * Each screenrecord writes its pid to {@code <base>.pid} before it starts, it is exec'd in the
+     * foreground as background jobs of a script ignore SIGINT.
+     */
+    static String loopScript(String base, int segmentSeconds) {
+        //the stop file ends the loop, a failing screenrecord must not spin it
+        return "i=0; while [ ! -f " + base + ".stop ]; do sh -c 'echo $$ > $0; [ -f " + base + ".stop ] && exit 0; "
+                + "exec screenrecord --time-limit " + segmentSeconds + " $1' " + base + ".pid " + base + "-$i.mp4"
+                + " || break; i=$((i+1)); done";
+    }
+
+    /**
+     * Ends the loop of {@link #loopScript}; the running screenrecord gets SIGINT so it finishes its file.
+     */
+    static String stopCommand(String base) {
+        return "touch " + base + ".stop; [ -f " + base + ".pid ] && kill -INT $(cat " + base + ".pid)";
+    }
+
+    /**
+     * Decodes a Base64 video as returned by Appium's stopRecordingScreen straight into a file,
+     * instead of into a second in-memory copy of the whole recording.
+     */
+    public static Path decodeBase64(CharSequence base64, Path target) {
+        try {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            try (InputStream in = Base64.getMimeDecoder().wrap(asciiStream(base64))) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return target;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write recording to " + target, e);
+        }
+    }
+
+    private static InputStream asciiStream(CharSequence text) {
+        return new InputStream() {
+            private int position = 0;
+
+            @Override
+            public int read() {
+                return position < text.length() ? text.charAt(position++) : -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (position >= text.length()) {
+                    return -1;
+                }
+                int count = Math.min(length, text.length() - position);
+                for (int i = 0; i < count; i++) {
+                    buffer[offset + i] = (byte) text.charAt(position++);
+                }
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Default location for a recording named {@code name}.
+     */
+    public static Path recordingFile(String name) {
+        return Paths.get(DIRECTORY, name + "_" + DateUtils.getTimeInMilliSecond() + ".mp4");
+    }
+}
@@ -0,0 +1,252 @@
+package core.utils;
+
+import org.apache.log4j.Logger;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Takes screenshots as PNG bytes on the calling thread and leaves hashing, encoding and writing to
+ * a single background writer with a bounded queue of {@code screenshot.queue.size}; when it is full
+ * screenshots are dropped rather than blocking the test. Frames identical to a recent one are not
+ * written again, screenshots of negative checks (an element that is not displayed, which tests often
+ * expect) are limited to one per driver per {@code screenshot.failure.interval.ms}, and {@code -Dscreenshot.format=jpg} stores them as JPEG of {@code screenshot.jpeg.quality}.
+ */
+public class ScreenshotService {
+
+    private static final String DIRECTORY = System.getProperty("screenshot.dir",
+            System.getProperty("user.dir") + "/target/screenshots");
+    private static final String FORMAT = System.getProperty("screenshot.format", "png");
+    private static final float JPEG_QUALITY = Float.parseFloat(System.getProperty("screenshot.jpeg.quality", "0.7"));
+    private static final int QUEUE_SIZE = Integer.getInteger("screenshot.queue.size", 16);
+    private static final long FAILURE_INTERVAL_MS = Long.getLong("screenshot.failure.interval.ms", 2000);
+    private static final int RECENT_FRAMES = 64;
+    private static Logger logger = Logger.getLogger(ScreenshotService.class);
+    private static ScreenshotService instance;
+
+    private final Path directory;
+    private final String format;
+    private final long failureIntervalMs;
+    private final ThreadPoolExecutor writer;
+    private final Map<String, Path> recentFrames = new LinkedHashMap<String, Path>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Path> eldest) {
+            return size() > RECENT_FRAMES;
+        }
+    };
+    private final Map<TakesScreenshot, Long> lastNegativeCheckCapture = new WeakHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger captured = new AtomicInteger();
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final AtomicInteger rateLimited = new AtomicInteger();
+
+    ScreenshotService(Path directory, String format, int queueSize, long failureIntervalMs) {
+        this.directory = directory;
+        this.format = format.equalsIgnoreCase("jpeg") ? "jpg" : format.toLowerCase();
+        this.failureIntervalMs = failureIntervalMs;
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "screenshot-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public static synchronized ScreenshotService getInstance() {
+        if (instance == null) {
+            instance = new ScreenshotService(Paths.get(DIRECTORY), FORMAT, QUEUE_SIZE, FAILURE_INTERVAL_MS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                instance.flush(10000);
+                logger.info("Screenshots: " + instance.getStats());
+            }, "screenshot-writer-shutdown"));
+        }
+        return instance;
+    }
+
+    /**
+     * Grabs the screen now and writes it in the background.
+     *
+     * @return the written file, an earlier file for a duplicate frame, or null if it was dropped
+     */
+    public Future<Path> capture(TakesScreenshot driver, String name) {
+        return submit(driver.getScreenshotAs(OutputType.BYTES), name);
+    }
+
+    /**
+     * Screenshot after a failed action, always taken.
+     *
+     * @return the PNG bytes
+     */
+    public byte[] captureOnFailure(TakesScreenshot driver) {
+        byte[] png = driver.getScreenshotAs(OutputType.BYTES);
+        submit(png, "failure");
+        return png;
+    }
+
+    /**
+     * Screenshot after a negative check such as isDisplayed returned false, skipped while the last
+     * one of the same driver is more recent than {@code screenshot.failure.interval.ms} so expected
+     * negative checks stay cheap without hiding failures on other devices.
+     *
+     * @return the PNG bytes, null when rate limited
+     */
+    public byte[] captureOnNegativeCheck(TakesScreenshot driver) {
+        long now = System.currentTimeMillis();
+        synchronized (lastNegativeCheckCapture) {
+            Long last = lastNegativeCheckCapture.get(driver);
+            if (last != null && now - last < failureIntervalMs) {
+                rateLimited.incrementAndGet();
+                return null;
+            }
+            lastNegativeCheckCapture.put(driver, now);
+        }
+        byte[] png = driver.getScreenshotAs(OutputType.BYTES);
+        submit(png, "negative_check");
+        return png;
+    }
+
+    Future<Path> submit(byte[] png, String name) {
+        captured.incrementAndGet();
+        pending.incrementAndGet();
+        try {
+            return writer.submit(() -> {
+                try {
+                    return write(png, name);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            dropped.incrementAndGet();
+            logger.warn("Screenshot queue is full, dropped " + name);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private Path write(byte[] png, String name) throws IOException {
+        String hash = sha1(png);
+        synchronized (recentFrames) {
+            Path existing = recentFrames.get(hash);
+            if (existing != null) {
+                duplicates.incrementAndGet();
+                logger.debug("Screenshot " + name + " is identical to " + existing);
+                return existing;
+            }
+        }
+        byte[] image = format.equals("jpg") ? toJpeg(png) : png;
+        String fileName = (name == null ? "" : name.replaceAll("[^A-Za-z0-9._-]", "_") + "_")
+                + DateUtils.getTimeInMilliSecond() + "_" + sequence.incrementAndGet() + "." + format;
+        Files.createDirectories(directory);
+        Path file = Files.write(directory.resolve(fileName), image);
+        synchronized (recentFrames) {
+            recentFrames.put(hash, file);
+        }
+        written.incrementAndGet();
+        logger.info("Screenshot saved to " + file);
+        return file;
+    }
+
+    private static byte[] toJpeg(byte[] png) throws IOException {
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(png));
+        //JPEG has no alpha channel
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        graphics.drawImage(source, 0, 0, null);
+        graphics.dispose();
+        ImageWriter jpeg = ImageIO.getImageWritersByFormatName("jpg").next();
+        ImageWriteParam param = jpeg.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            jpeg.setOutput(stream);
+            jpeg.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            jpeg.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha1(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Waits until queued screenshots are written.
+     *
+     * @return false if some were still pending after the timeout
+     */
+    public boolean flush(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (pending.get() > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getStats() {
+        return "captured=" + captured.get() + ", written=" + written.get() + ", duplicates=" + duplicates.get()
+                + ", dropped=" + dropped.get() + ", rate limited=" + rateLimited.get();
+    }
+
+    public int getWrittenCount() {
+        return written.get();
+    }
+
+    public int getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    public int getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getRateLimitedCount() {
+        return rateLimited.get();
+    }
+}
@@ -0,0 +1,125 @@
+package core.utils;
+
+import core.page_source.PageSourceSnapshot;
+import core.page_source.SnapshotElement;
+import core.page_source.SnapshotLocatorEngine;
+import org.apache.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+
+/**
+ * Scrolls until a locator matches, checking each screen in a page source snapshot instead of a
+ * findElements call. Locators the snapshot can not evaluate, e.g. AndroidUIAutomator, are looked
+ * up with findElements on the server instead. Stops at the end of the list, detected when a swipe
+ * leaves the screen fingerprint unchanged, or after {@code scroll.search.max.swipes} swipes.
+ */
+public class ScrollSearch {
+
+    public static final int DEFAULT_MAX_SWIPES = Integer.getInteger("scroll.search.max.swipes", 30);
+    private static Logger logger = Logger.getLogger(ScrollSearch.class);
+
+    private final SnapshotLocatorEngine snapshotEngine;
+    private final Runnable swipe;
+
+    /**
+     * @param swipe one scroll step in the search direction, resting before release so the list does
+     *              not fling past rows between two snapshots
+     */
+    public ScrollSearch(SnapshotLocatorEngine snapshotEngine, Runnable swipe) {
+        this.snapshotEngine = snapshotEngine;
+        this.swipe = swipe;
+    }
+
+    public Result search(By by) {
+        return search(by, DEFAULT_MAX_SWIPES);
+    }
+
+    public Result search(By by, int maxSwipes) {
+        long start = System.currentTimeMillis();
+        String previousFingerprint = null;
+        boolean evaluableOnSnapshot = true;
+        int swipes = 0;
+        while (true) {
+            PageSourceSnapshot snapshot = snapshotEngine.refresh();
+            SnapshotElement element = null;
+            WebElement serverElement = null;
+            if (evaluableOnSnapshot) {
+                try {
+                    element = snapshot.findFirst(by);
+                } catch (UnsupportedOperationException e) {
+                    logger.debug(by + " is not evaluable on a snapshot, searching with findElements");
+                    evaluableOnSnapshot = false;
+                }
+            }
+            if (!evaluableOnSnapshot) {
+                List<WebElement> found = snapshotEngine.findAllOnServer(by);
+                serverElement = found.isEmpty() ? null : found.get(0);
+            }
+            if (element != null || serverElement != null) {
+                return done(by, new Result(element, serverElement, swipes, System.currentTimeMillis() - start, false));
+            }
+            String fingerprint = snapshot.getFingerprint();
+            boolean endOfList = fingerprint.equals(previousFingerprint);
+            if (endOfList || swipes >= maxSwipes) {
+                return done(by, new Result(null, null, swipes, System.currentTimeMillis() - start, endOfList));
+            }
+            previousFingerprint = fingerprint;
+            swipe.run();
+            swipes++;
+        }
+    }
+
+    private static Result done(By by, Result result) {
+        logger.info((result.isFound() ? "Found " : "Did not find ") + by + " after " + result.getSwipes()
+                + " swipes in " + result.getElapsedMs() + " ms" + (result.isEndOfList() ? ", end of list reached" : ""));
+        return result;
+    }
+
+    public static class Result {
+        private final SnapshotElement element;
+        private final WebElement serverElement;
+        private final int swipes;
+        private final long elapsedMs;
+        private final boolean endOfList;
+
+        Result(SnapshotElement element, WebElement serverElement, int swipes, long elapsedMs, boolean endOfList) {
+            this.element = element;
+            this.serverElement = serverElement;
+            this.swipes = swipes;
+            this.elapsedMs = elapsedMs;
+            this.endOfList = endOfList;
+        }
+
+        public boolean isFound() {
+            return element != null || serverElement != null;
+        }
+
+        /**
+         * The match in the last snapshot, null if not found or found on the server.
+         */
+        public SnapshotElement getElement() {
+            return element;
+        }
+
+        /**
+         * The match from findElements for locators the snapshot can not evaluate, null otherwise.
+         */
+        public WebElement getServerElement() {
+            return serverElement;
+        }
+
+        public int getSwipes() {
+            return swipes;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        public boolean isEndOfList() {
+            return endOfList;
+        }
+    }
+}
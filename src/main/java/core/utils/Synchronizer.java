@@ -0,0 +1,164 @@
+package core.utils;
+
+import com.google.common.collect.ImmutableMap;
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.android.AndroidDriver;
+import org.apache.log4j.Logger;
+import org.openqa.selenium.TimeoutException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Condition based replacements for fixed Thread.sleep calls in page objects and tests. Every wait
+ * returns as soon as its condition holds and records the time actually waited against the fixed
+ * sleep it replaces, see {@link #getStats()}. The timeout is always the full
+ * {@code sync.timeout.ms}: these conditions are not tied to a locator, so timings learned by
+ * {@link WaitEngine} at other call sites would cut slow screens short.
+ */
+public class Synchronizer {
+
+    public static final long DEFAULT_TIMEOUT_MS = Long.getLong("sync.timeout.ms", 15000);
+    private static final long QUIET_PERIOD_MS = Long.getLong("sync.network.quiet.ms", 1000);
+    private static Logger logger = Logger.getLogger(Synchronizer.class);
+    private static final Map<String, AtomicLong[]> stats = new ConcurrentHashMap<>();
+
+    private final Supplier<String> pageSource;
+    private final Supplier<String> currentActivity;
+    private final Supplier<Collection<?>> contextHandles;
+    private final Supplier<String> procNetDev;
+    private final long timeoutMs;
+    private final WaitEngine waitEngine = new WaitEngine();
+
+    public Synchronizer(AppiumDriver localAppiumDriver) {
+        this(localAppiumDriver::getPageSource, () -> ((AndroidDriver) localAppiumDriver).currentActivity(),
+                localAppiumDriver::getContextHandles, () -> (String) localAppiumDriver.executeScript("mobile: shell",
+                        ImmutableMap.of("command", "cat", "args", Arrays.asList("/proc/net/dev"))),
+                DEFAULT_TIMEOUT_MS);
+    }
+
+    Synchronizer(Supplier<String> pageSource, Supplier<String> currentActivity, Supplier<Collection<?>> contextHandles,
+                 Supplier<String> procNetDev, long timeoutMs) {
+        this.pageSource = pageSource;
+        this.currentActivity = currentActivity;
+        this.contextHandles = contextHandles;
+        this.procNetDev = procNetDev;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Waits until two consecutive page sources are identical. Gives up quietly after the timeout,
+     * an animating screen should not fail the test.
+     */
+    public long waitForUiIdle(long replacedSleepMs) {
+        long start = System.currentTimeMillis();
+        String[] previous = {null};
+        try {
+            waitEngine.untilWithFixedTimeout("sync:uiIdle", () -> {
+                String current = pageSource.get();
+                boolean idle = current.equals(previous[0]);
+                previous[0] = current;
+                return idle;
+            }, timeoutMs);
+        } catch (TimeoutException e) {
+            logger.warn("UI did not go idle within " + timeoutMs + " ms, continuing");
+        }
+        return record("uiIdle", start, replacedSleepMs);
+    }
+
+    public long waitForPageSourceChange(String previousPageSource, long replacedSleepMs) {
+        long start = System.currentTimeMillis();
+        waitEngine.untilWithFixedTimeout("sync:pageSourceChange",
+                () -> !pageSource.get().equals(previousPageSource), timeoutMs);
+        return record("pageSourceChange", start, replacedSleepMs);
+    }
+
+    public long waitForActivity(String activity, long replacedSleepMs) {
+        long start = System.currentTimeMillis();
+        waitEngine.untilWithFixedTimeout("sync:activity:" + activity,
+                () -> currentActivity.get().endsWith(activity), timeoutMs);
+        return record("activity", start, replacedSleepMs);
+    }
+
+    /**
+     * Waits until a context whose name starts with {@code contextPrefix} (e.g. WEBVIEW) is available.
+     */
+    public long waitForContext(String contextPrefix, long replacedSleepMs) {
+        long start = System.currentTimeMillis();
+        waitEngine.untilWithFixedTimeout("sync:context:" + contextPrefix, () -> {
+            for (Object context : contextHandles.get()) {
+                if (context.toString().startsWith(contextPrefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }, timeoutMs);
+        return record("context", start, replacedSleepMs);
+    }
+
+    /**
+     * Waits until the device network byte counters stop moving for {@code sync.network.quiet.ms}.
+     * Gives up quietly after the timeout, background traffic should not fail the test.
+     */
+    public long waitForNetworkQuiescence(long replacedSleepMs) {
+        long start = System.currentTimeMillis();
+        long[] last = {-1, System.currentTimeMillis()};
+        try {
+            waitEngine.untilWithFixedTimeout("sync:networkQuiescence", () -> {
+                long bytes = parseNetworkBytes(procNetDev.get());
+                long now = System.currentTimeMillis();
+                if (bytes != last[0]) {
+                    last[0] = bytes;
+                    last[1] = now;
+                    return false;
+                }
+                return now - last[1] >= QUIET_PERIOD_MS;
+            }, timeoutMs);
+        } catch (TimeoutException e) {
+            logger.warn("Network did not go quiet within " + timeoutMs + " ms, continuing");
+        }
+        return record("networkQuiescence", start, replacedSleepMs);
+    }
+
+    /**
+     * Per condition: number of waits, total ms waited and total ms of the fixed sleeps replaced.
+     */
+    public static String getStats() {
+        StringBuilder summary = new StringBuilder("Synchronizer waits:");
+        stats.forEach((condition, values) -> summary.append(' ').append(condition)
+                .append("[count=").append(values[0].get())
+                .append(", waited ms=").append(values[1].get())
+                .append(", fixed sleep ms=").append(values[2].get()).append(']'));
+        return summary.toString();
+    }
+
+    static long parseNetworkBytes(String procNetDev) {
+        long total = 0;
+        for (String line : procNetDev.split("\n")) {
+            int colon = line.indexOf(':');
+            if (colon < 0 || line.substring(0, colon).trim().equals("lo")) {
+                continue;
+            }
+            String[] columns = line.substring(colon + 1).trim().split("\\s+");
+            if (columns.length > 8) {
+                total += Long.parseLong(columns[0]) + Long.parseLong(columns[8]);
+            }
+        }
+        return total;
+    }
+
+    private static long record(String condition, long start, long replacedSleepMs) {
+        long waited = System.currentTimeMillis() - start;
+        AtomicLong[] values = stats.computeIfAbsent(condition,
+                k -> new AtomicLong[]{new AtomicLong(), new AtomicLong(), new AtomicLong()});
+        values[0].incrementAndGet();
+        values[1].addAndGet(waited);
+        values[2].addAndGet(replacedSleepMs);
+        logger.info("Waited " + waited + " ms for " + condition + " (fixed sleep was " + replacedSleepMs + " ms)");
+        return waited;
+    }
+}
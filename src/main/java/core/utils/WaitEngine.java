@@ -0,0 +1,169 @@
+package core.utils;
+
+import org.apache.log4j.Logger;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Polls a condition with exponential backoff instead of stacking an implicit wait under
+ * WebDriverWait. For every locator key it learns how long the element usually takes to appear;
+ * once enough samples exist, waits on that key time out after a multiple of the typical time
+ * instead of the full timeout, so a missing element fails in seconds rather than minutes.
+ */
+public class WaitEngine {
+
+    public static final long DEFAULT_TIMEOUT_MS = Long.getLong("wait.timeout.ms", 20000);
+    private static final long INITIAL_POLL_MS = Long.getLong("wait.poll.initial.ms", 50);
+    private static final long MAX_POLL_MS = Long.getLong("wait.poll.max.ms", 500);
+    private static final double POLL_BACKOFF = Double.parseDouble(System.getProperty("wait.poll.backoff", "1.5"));
+    private static final int MIN_SAMPLES = Integer.getInteger("wait.adaptive.min.samples", 5);
+    private static final long ADAPTIVE_FLOOR_MS = Long.getLong("wait.adaptive.floor.ms", 3000);
+    private static final int ADAPTIVE_FACTOR = Integer.getInteger("wait.adaptive.factor", 4);
+
+    private static Logger logger = Logger.getLogger(WaitEngine.class);
+    private static final Map<String, LocatorTimings> timings = new ConcurrentHashMap<>();
+    private static final List<Runnable> abortChecks = new CopyOnWriteArrayList<>();
+
+    /**
+     * Runs before every poll; a check aborts the wait by throwing, e.g. when the app crashed and
+     * the element will never appear.
+     */
+    public static void addAbortCheck(Runnable check) {
+        abortChecks.add(check);
+    }
+
+    public static void removeAbortCheck(Runnable check) {
+        abortChecks.remove(check);
+    }
+
+    public <T> T until(String key, Supplier<T> condition) {
+        return until(key, condition, DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * Polls {@code condition} until it returns a non-null value other than {@code false}.
+     * NoSuchElement and StaleElementReference exceptions count as "not yet".
+     *
+     * @throws TimeoutException when the condition does not hold within the (learned) timeout
+     */
+    public <T> T until(String key, Supplier<T> condition, long timeoutMs) {
+        return poll(key, condition, timeoutMs, true);
+    }
+
+    /**
+     * Like {@link #until(String, Supplier, long)} but always with the caller's timeout, nothing is
+     * learned for or applied to {@code description}. For conditions whose duration depends on the
+     * screen rather than on a locator, e.g. any page source change, where times seen at other call
+     * sites say nothing about this one.
+     */
+    public <T> T untilWithFixedTimeout(String description, Supplier<T> condition, long timeoutMs) {
+        return poll(description, condition, timeoutMs, false);
+    }
+
+    private <T> T poll(String key, Supplier<T> condition, long timeoutMs, boolean adaptive) {
+        long effectiveTimeout = adaptive ? getTimeoutMs(key, timeoutMs) : timeoutMs;
+        long start = System.currentTimeMillis();
+        long poll = INITIAL_POLL_MS;
+        RuntimeException lastError = null;
+        while (true) {
+            abortChecks.forEach(Runnable::run);
+            try {
+                T value = condition.get();
+                if (value != null && !Boolean.FALSE.equals(value)) {
+                    if (adaptive) {
+                        record(key, System.currentTimeMillis() - start);
+                    }
+                    return value;
+                }
+            } catch (NoSuchElementException | StaleElementReferenceException e) {
+                lastError = e;
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            if (elapsed >= effectiveTimeout) {
+                throw new TimeoutException("Condition for " + key + " not met after " + elapsed + " ms"
+                        + (effectiveTimeout < timeoutMs ? " (learned timeout, requested " + timeoutMs + " ms)" : ""),
+                        lastError);
+            }
+            sleep(Math.min(poll, effectiveTimeout - elapsed));
+            poll = Math.min(MAX_POLL_MS, (long) (poll * POLL_BACKOFF));
+        }
+    }
+
+    /**
+     * Single evaluation without waiting, for negative checks such as isDisplayed.
+     */
+    public boolean check(Supplier<Boolean> condition) {
+        abortChecks.forEach(Runnable::run);
+        try {
+            return Boolean.TRUE.equals(condition.get());
+        } catch (NoSuchElementException | StaleElementReferenceException e) {
+            return false;
+        }
+    }
+
+    public long getTimeoutMs(String key, long requestedTimeoutMs) {
+        LocatorTimings locatorTimings = timings.get(key);
+        if (locatorTimings == null || locatorTimings.getCount() < MIN_SAMPLES) {
+            return requestedTimeoutMs;
+        }
+        long learned = Math.max(ADAPTIVE_FLOOR_MS, locatorTimings.getPercentile(95) * ADAPTIVE_FACTOR);
+        return Math.min(requestedTimeoutMs, learned);
+    }
+
+    public static long getTypicalAppearanceMs(String key) {
+        LocatorTimings locatorTimings = timings.get(key);
+        return locatorTimings == null ? -1 : locatorTimings.getPercentile(50);
+    }
+
+    public static void resetLearnedTimings() {
+        timings.clear();
+    }
+
+    private void record(String key, long elapsedMs) {
+        timings.computeIfAbsent(key, k -> new LocatorTimings()).add(elapsedMs);
+        logger.debug(key + " satisfied after " + elapsedMs + " ms");
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(Math.max(1, ms));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class LocatorTimings {
+        private static final int WINDOW = 50;
+        private final long[] samples = new long[WINDOW];
+        private int count = 0;
+
+        synchronized void add(long sample) {
+            samples[count % WINDOW] = sample;
+            count++;
+        }
+
+        synchronized int getCount() {
+            return count;
+        }
+
+        synchronized long getPercentile(int percentile) {
+            int size = Math.min(count, WINDOW);
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, index))];
+        }
+    }
+}
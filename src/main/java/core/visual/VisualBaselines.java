@@ -0,0 +1,85 @@
+package core.visual;
+
+import org.apache.log4j.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Baseline screenshots by name in {@code visual.baseline.dir}. A screen without a baseline fails,
+ * unless {@code -Dvisual.record=true} records it as the new baseline; a mismatch leaves {@code <name>-actual.png} and
+ * {@code <name>-diff.png} in {@code visual.diff.dir} for review.
+ */
+public class VisualBaselines {
+
+    private static final String BASELINE_DIR = System.getProperty("visual.baseline.dir", "src/test/resources/baselines");
+    private static final String DIFF_DIR = System.getProperty("visual.diff.dir", "target/visual-diffs");
+    private static final boolean RECORD = Boolean.getBoolean("visual.record");
+    private static Logger logger = Logger.getLogger(VisualBaselines.class);
+
+    private final Path baselineDirectory;
+    private final Path diffDirectory;
+    private final VisualComparator comparator;
+    private final boolean record;
+
+    public VisualBaselines() {
+        this(Paths.get(BASELINE_DIR), Paths.get(DIFF_DIR), new VisualComparator(), RECORD);
+    }
+
+    /**
+     * @param record whether a missing baseline is recorded instead of failing the comparison
+     */
+    public VisualBaselines(Path baselineDirectory, Path diffDirectory, VisualComparator comparator, boolean record) {
+        this.baselineDirectory = baselineDirectory;
+        this.diffDirectory = diffDirectory;
+        this.comparator = comparator;
+        this.record = record;
+    }
+
+    public VisualDiff verify(String name, byte[] actualPng, List<Rectangle> masks) {
+        Path baseline = baselineDirectory.resolve(name + ".png");
+        try {
+            if (!Files.exists(baseline)) {
+                BufferedImage actual = decode(actualPng);
+                if (!record) {
+                    VisualDiff missing = VisualDiff.missingBaseline(baseline, actual.getWidth(), actual.getHeight());
+                    Files.createDirectories(diffDirectory);
+                    Files.write(diffDirectory.resolve(name + "-actual.png"), actualPng);
+                    logger.warn(name + ": " + missing);
+                    return missing;
+                }
+                Files.createDirectories(baselineDirectory);
+                Files.write(baseline, actualPng);
+                logger.warn("No baseline for " + name + ", recorded " + baseline);
+                return comparator.compare(actual, actual, masks, false);
+            }
+            BufferedImage expected = decode(Files.readAllBytes(baseline));
+            BufferedImage actual = decode(actualPng);
+            //most screens match, the diff image is only rendered for the ones that do not
+            VisualDiff diff = comparator.compare(expected, actual, masks, false);
+            if (diff.isMatch()) {
+                logger.info(name + " matches its baseline: " + diff);
+            } else {
+                diff = comparator.compare(expected, actual, masks, true);
+                Files.createDirectories(diffDirectory);
+                Files.write(diffDirectory.resolve(name + "-actual.png"), actualPng);
+                diff.writeDiff(diffDirectory.resolve(name + "-diff.png"));
+                logger.warn(name + " differs from its baseline: " + diff + ", see " + diffDirectory);
+            }
+            return diff;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not verify " + name + " against " + baseline, e);
+        }
+    }
+
+    private static BufferedImage decode(byte[] png) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(png));
+    }
+}
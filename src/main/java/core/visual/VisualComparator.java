@@ -0,0 +1,252 @@
+package core.visual;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Compares two screenshots tile by tile on a fork/join pool. Pixels are compared by their
+ * perceptual YIQ distance, so anti-aliasing and compression noise below
+ * {@code visual.pixel.threshold} (0..1) does not count, and a tile only differs when more than
+ * {@code visual.tile.tolerance} of its pixels do. Masked regions, e.g. clocks and carousels, are
+ * ignored.
+ */
+public class VisualComparator {
+
+    public static final int DEFAULT_TILE_SIZE = Integer.getInteger("visual.tile.size", 64);
+    public static final double DEFAULT_PIXEL_THRESHOLD =
+            Double.parseDouble(System.getProperty("visual.pixel.threshold", "0.1"));
+    public static final double DEFAULT_TILE_TOLERANCE =
+            Double.parseDouble(System.getProperty("visual.tile.tolerance", "0.002"));
+    private static final ForkJoinPool pool = new ForkJoinPool(
+            Integer.getInteger("visual.parallelism", Runtime.getRuntime().availableProcessors()));
+    private static final int TILES_PER_TASK = 4;
+    //largest YIQ distance, between black and white
+    private static final double MAX_YIQ_DELTA = 35215;
+    private static final int DIFFERENT = 0xffff0000;
+    private static final int MASKED = 0xfffff0b0;
+
+    private final int tileSize;
+    private final double maxDelta;
+    private final double tileTolerance;
+
+    public VisualComparator() {
+        this(DEFAULT_TILE_SIZE, DEFAULT_PIXEL_THRESHOLD, DEFAULT_TILE_TOLERANCE);
+    }
+
+    public VisualComparator(int tileSize, double pixelThreshold, double tileTolerance) {
+        this.tileSize = tileSize;
+        this.maxDelta = MAX_YIQ_DELTA * pixelThreshold * pixelThreshold;
+        this.tileTolerance = tileTolerance;
+    }
+
+    /**
+     * Compares PNG screenshots, e.g. from {@code getScreenshotAs(OutputType.BYTES)}, with a diff image.
+     */
+    public VisualDiff compare(byte[] expectedPng, byte[] actualPng, List<Rectangle> masks) {
+        try {
+            return compare(ImageIO.read(new ByteArrayInputStream(expectedPng)),
+                    ImageIO.read(new ByteArrayInputStream(actualPng)), masks, true);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not decode screenshot", e);
+        }
+    }
+
+    public VisualDiff compare(BufferedImage expected, BufferedImage actual, List<Rectangle> masks, boolean withDiff) {
+        int width = actual.getWidth();
+        int height = actual.getHeight();
+        if (expected.getWidth() != width || expected.getHeight() != height) {
+            return VisualDiff.sizeMismatch(expected.getWidth(), expected.getHeight(), width, height);
+        }
+        int columns = (width + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+        BufferedImage diffImage = withDiff ? new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB) : null;
+        Comparison comparison = new Comparison(pixels(expected), pixels(actual), width, height, masks, columns,
+                withDiff ? pixels(diffImage) : null);
+        TileStats stats = pool.invoke(new TileTask(comparison, 0, columns * rows));
+        return new VisualDiff(width, height, columns * rows, stats.maskedTiles, stats.mismatchedTiles,
+                stats.differentPixels, diffImage);
+    }
+
+    /**
+     * Pixels of the image in an RGB int array, without copying when it already is one. Reading the
+     * array directly avoids {@link BufferedImage#getRGB}'s per pixel color model conversion.
+     */
+    private static int[] pixels(BufferedImage image) {
+        BufferedImage rgb = image;
+        if (image.getType() != BufferedImage.TYPE_INT_RGB || image.getRaster().getParent() != null) {
+            rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = rgb.createGraphics();
+            graphics.drawImage(image, 0, 0, null);
+            graphics.dispose();
+        }
+        return ((DataBufferInt) rgb.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Inputs shared by the tile tasks; each task writes only its own tiles of {@code diff}.
+     */
+    private static class Comparison {
+        private final int[] expected;
+        private final int[] actual;
+        private final int width;
+        private final int height;
+        private final List<Rectangle> masks;
+        private final int columns;
+        private final int[] diff;
+
+        Comparison(int[] expected, int[] actual, int width, int height, List<Rectangle> masks, int columns, int[] diff) {
+            this.expected = expected;
+            this.actual = actual;
+            this.width = width;
+            this.height = height;
+            this.masks = masks;
+            this.columns = columns;
+            this.diff = diff;
+        }
+    }
+
+    private static class TileStats {
+        private int maskedTiles;
+        private long differentPixels;
+        private final List<Rectangle> mismatchedTiles = new ArrayList<>();
+
+        TileStats add(TileStats other) {
+            maskedTiles += other.maskedTiles;
+            differentPixels += other.differentPixels;
+            mismatchedTiles.addAll(other.mismatchedTiles);
+            return this;
+        }
+    }
+
+    private class TileTask extends RecursiveTask<TileStats> {
+        private static final long serialVersionUID = 1L;
+        private final Comparison comparison;
+        private final int from;
+        private final int to;
+
+        TileTask(Comparison comparison, int from, int to) {
+            this.comparison = comparison;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TileStats compute() {
+            if (to - from > TILES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                TileTask right = new TileTask(comparison, middle, to);
+                right.fork();
+                TileStats left = new TileTask(comparison, from, middle).compute();
+                return left.add(right.join());
+            }
+            TileStats stats = new TileStats();
+            for (int tile = from; tile < to; tile++) {
+                compareTile(tile, stats);
+            }
+            return stats;
+        }
+
+        private void compareTile(int tile, TileStats stats) {
+            int width = comparison.width;
+            int x0 = (tile % comparison.columns) * tileSize;
+            int y0 = (tile / comparison.columns) * tileSize;
+            Rectangle bounds = new Rectangle(x0, y0, Math.min(tileSize, width - x0),
+                    Math.min(tileSize, comparison.height - y0));
+            List<Rectangle> masks = new ArrayList<>();
+            for (Rectangle mask : comparison.masks) {
+                if (mask.contains(bounds)) {
+                    stats.maskedTiles++;
+                    fill(bounds, MASKED);
+                    return;
+                }
+                if (mask.intersects(bounds)) {
+                    masks.add(mask);
+                }
+            }
+            int[] expected = comparison.expected;
+            int[] actual = comparison.actual;
+            if (masks.isEmpty() && comparison.diff == null && isEqual(bounds)) {
+                return;
+            }
+            int different = 0;
+            for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+                for (int x = bounds.x; x < bounds.x + bounds.width; x++) {
+                    int i = y * width + x;
+                    boolean masked = !masks.isEmpty() && isMasked(masks, x, y);
+                    boolean differs = !masked && expected[i] != actual[i] && yiqDelta(expected[i], actual[i]) > maxDelta;
+                    if (differs) {
+                        different++;
+                    }
+                    if (comparison.diff != null) {
+                        comparison.diff[i] = masked ? MASKED : differs ? DIFFERENT : faded(actual[i]);
+                    }
+                }
+            }
+            stats.differentPixels += different;
+            if (different > tileTolerance * bounds.width * bounds.height) {
+                stats.mismatchedTiles.add(bounds);
+            }
+        }
+
+        private boolean isEqual(Rectangle bounds) {
+            for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+                int row = y * comparison.width + bounds.x;
+                if (!Arrays.equals(comparison.expected, row, row + bounds.width, comparison.actual, row, row + bounds.width)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void fill(Rectangle bounds, int color) {
+            if (comparison.diff == null) {
+                return;
+            }
+            int width = comparison.width;
+            for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+                Arrays.fill(comparison.diff, y * width + bounds.x, y * width + bounds.x + bounds.width, color);
+            }
+        }
+    }
+
+    private static boolean isMasked(List<Rectangle> masks, int x, int y) {
+        for (Rectangle mask : masks) {
+            if (mask.contains(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Squared perceptual distance in YIQ space, as used by pixelmatch.
+     */
+    static double yiqDelta(int expected, int actual) {
+        int r = ((expected >> 16) & 0xff) - ((actual >> 16) & 0xff);
+        int g = ((expected >> 8) & 0xff) - ((actual >> 8) & 0xff);
+        int b = (expected & 0xff) - (actual & 0xff);
+        double y = r * 0.29889531 + g * 0.58662247 + b * 0.11448223;
+        double i = r * 0.59597799 - g * 0.27417610 - b * 0.32180189;
+        double q = r * 0.21147017 - g * 0.52261711 + b * 0.31114694;
+        return 0.5053 * y * y + 0.299 * i * i + 0.1957 * q * q;
+    }
+
+    /**
+     * Unchanged pixels are drawn as a pale grey so the differences stand out.
+     */
+    private static int faded(int rgb) {
+        int luma = (((rgb >> 16) & 0xff) * 77 + ((rgb >> 8) & 0xff) * 150 + (rgb & 0xff) * 29) >> 8;
+        int pale = 255 - (255 - luma) / 4;
+        return 0xff000000 | pale << 16 | pale << 8 | pale;
+    }
+}
@@ -0,0 +1,95 @@
+package core.visual;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of {@link VisualComparator#compare}: the tiles that differ and, if requested, a diff
+ * image with differing pixels in red, masked regions in yellow and the rest faded.
+ */
+public class VisualDiff {
+
+    private final int width;
+    private final int height;
+    private final int tiles;
+    private final int maskedTiles;
+    private final List<Rectangle> mismatchedTiles;
+    private final long differentPixels;
+    private final BufferedImage diffImage;
+    private final String failure;
+
+    VisualDiff(int width, int height, int tiles, int maskedTiles, List<Rectangle> mismatchedTiles,
+               long differentPixels, BufferedImage diffImage) {
+        this(width, height, tiles, maskedTiles, mismatchedTiles, differentPixels, diffImage, null);
+    }
+
+    private VisualDiff(int width, int height, int tiles, int maskedTiles, List<Rectangle> mismatchedTiles,
+                       long differentPixels, BufferedImage diffImage, String failure) {
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+        this.maskedTiles = maskedTiles;
+        this.mismatchedTiles = mismatchedTiles;
+        this.differentPixels = differentPixels;
+        this.diffImage = diffImage;
+        this.failure = failure;
+    }
+
+    static VisualDiff sizeMismatch(int expectedWidth, int expectedHeight, int width, int height) {
+        return new VisualDiff(width, height, 0, 0, Collections.emptyList(), (long) width * height, null,
+                "size differs: expected " + expectedWidth + "x" + expectedHeight + " but was " + width + "x" + height);
+    }
+
+    static VisualDiff missingBaseline(Path baseline, int width, int height) {
+        return new VisualDiff(width, height, 0, 0, Collections.emptyList(), (long) width * height, null,
+                "no baseline " + baseline + ", run with -Dvisual.record=true to record it");
+    }
+
+    public boolean isMatch() {
+        return failure == null && mismatchedTiles.isEmpty();
+    }
+
+    /**
+     * Bounds of the tiles over the tolerance, in screenshot pixels.
+     */
+    public List<Rectangle> getMismatchedTiles() {
+        return mismatchedTiles;
+    }
+
+    public long getDifferentPixels() {
+        return differentPixels;
+    }
+
+    public int getMaskedTiles() {
+        return maskedTiles;
+    }
+
+    /**
+     * @return null if the comparison ran without a diff image, the sizes differ or there was no baseline
+     */
+    public BufferedImage getDiffImage() {
+        return diffImage;
+    }
+
+    public void writeDiff(Path file) throws IOException {
+        if (diffImage != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            ImageIO.write(diffImage, "png", file.toFile());
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (failure != null) {
+            return failure;
+        }
+        return mismatchedTiles.size() + " of " + tiles + " tiles differ (" + differentPixels + " pixels, "
+                + maskedTiles + " tiles masked) on " + width + "x" + height;
+    }
+}
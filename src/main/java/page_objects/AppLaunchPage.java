@@ -1,9 +1,10 @@
 package page_objects;
 
+import core.driver_manager.DriverHolder;
+import core.page_factory.CachingFieldDecorator;
 import core.utils.MobileCommonActions;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.pagefactory.AndroidFindBy;
-import io.appium.java_client.pagefactory.AppiumFieldDecorator;
 import org.apache.log4j.Logger;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.PageFactory;
@@ -17,10 +18,14 @@ public class AppLaunchPage {
 
 
 
+    public AppLaunchPage() {
+        this(DriverHolder.getDriver());
+    }
+
     public AppLaunchPage(AppiumDriver driver) {
         localAppiumDriver = driver;
         mobileCommonActions = new MobileCommonActions(localAppiumDriver);
-        PageFactory.initElements(new AppiumFieldDecorator(localAppiumDriver), this);
+        PageFactory.initElements(new CachingFieldDecorator(localAppiumDriver), this);
     }
 
     @AndroidFindBy(id = packageName+":id/button_continue")
@@ -1,28 +1,38 @@
 package page_objects;
 
+import core.driver_manager.DriverHolder;
+import core.page_factory.CachingFieldDecorator;
 import core.utils.MobileCommonActions;
+import core.utils.Synchronizer;
+import core.visual.VisualDiff;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.MobileBy;
 import io.appium.java_client.pagefactory.AndroidFindBy;
-import io.appium.java_client.pagefactory.AppiumFieldDecorator;
 import org.apache.log4j.Logger;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.logging.LogEntries;
 import org.openqa.selenium.support.PageFactory;
 
+import java.util.Collections;
 import java.util.stream.StreamSupport;
 
 public class CitySelectionPage {
     private AppiumDriver localAppiumDriver;
     private MobileCommonActions mobileCommonActions;
+    private Synchronizer synchronizer;
     private static final String packageName = "com.zoomcar.debug";
     private static Logger logger = Logger.getLogger(CitySelectionPage.class);
 
+    public CitySelectionPage() {
+        this(DriverHolder.getDriver());
+    }
+
     public CitySelectionPage(AppiumDriver driver){
         localAppiumDriver= driver;
         mobileCommonActions = new MobileCommonActions(localAppiumDriver);
-        PageFactory.initElements(new AppiumFieldDecorator(localAppiumDriver),this);
+        synchronizer = new Synchronizer(localAppiumDriver);
+        PageFactory.initElements(new CachingFieldDecorator(localAppiumDriver),this);
     }
 
     @AndroidFindBy(xpath = "//android.widget.TextView[@text='BANGALORE']")
@@ -35,11 +45,7 @@ public class CitySelectionPage {
     public HomePage selectCityAndNaviagteToHomePage(){
         mobileCommonActions.clickElement(banagloreCity);
         mobileCommonActions.clickElement(closeBottomSheet);
-        try {
-            Thread.sleep(2000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        synchronizer.waitForUiIdle(2000);
 
         return new HomePage(localAppiumDriver);
     }
@@ -49,6 +55,10 @@ public class CitySelectionPage {
         return new HomePage(localAppiumDriver);
     }
 
+    public VisualDiff verifyLayout(){
+        return mobileCommonActions.verifyScreen("CitySelectionPage", Collections.emptyList());
+    }
+
 //    public HomePage closeBottomSheet(){
 //        mobileCommonActions.clickElement(this.driver.findElement(bottomSheetCloseButton));
 //        return new HomePage(this.driver);
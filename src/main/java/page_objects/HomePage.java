@@ -1,14 +1,18 @@
 package page_objects;
 
+import core.driver_manager.DriverHolder;
+import core.page_factory.CachingFieldDecorator;
 import core.utils.MobileCommonActions;
+import core.visual.VisualDiff;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.pagefactory.AndroidFindBy;
-import io.appium.java_client.pagefactory.AppiumFieldDecorator;
 import org.apache.log4j.Logger;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.PageFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 
@@ -19,10 +23,14 @@ public class HomePage {
     private static final String packageName = "com.zoomcar.debug";
     private static Logger logger = Logger.getLogger(HomePage.class);
 
+    public HomePage() {
+        this(DriverHolder.getDriver());
+    }
+
     public HomePage(AppiumDriver driver){
         localAppiumDriver = driver;
         mobileCommonActions = new MobileCommonActions(localAppiumDriver);
-        PageFactory.initElements(new AppiumFieldDecorator(localAppiumDriver),this);
+        PageFactory.initElements(new CachingFieldDecorator(localAppiumDriver),this);
     }
 
     @AndroidFindBy(id = packageName+":id/location_info_container")
@@ -54,10 +62,19 @@ public class HomePage {
     }
 
     public WebViewPage clickOnWebView(){
+        mobileCommonActions.waitForElementsCount("homePageWebViews", homePageWebViews, 4);
         mobileCommonActions.clickElement(homePageWebViews.get(3));
         logger.info("************************* Get Context Handles: "+localAppiumDriver.getContextHandles().toString());
         logger.info("************************* Get Context: "+localAppiumDriver.getContext());
         return new WebViewPage(localAppiumDriver);
     }
 
+    /**
+     * Compares the home screen with its baseline, ignoring the picked dates and the banner carousel.
+     */
+    public VisualDiff verifyLayout(){
+        List<WebElement> dynamicElements = new ArrayList<>(Arrays.asList(startDateTimeBox, endDateTimeBox));
+        dynamicElements.addAll(homePageWebViews);
+        return mobileCommonActions.verifyScreen("HomePage", dynamicElements);
+    }
 }
@@ -1,9 +1,10 @@
 package page_objects;
 
+import core.driver_manager.DriverHolder;
+import core.page_factory.CachingFieldDecorator;
 import core.utils.MobileCommonActions;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.pagefactory.AndroidFindBy;
-import io.appium.java_client.pagefactory.AppiumFieldDecorator;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.PageFactory;
 
@@ -12,10 +13,14 @@ public class LocationAccessPage {
     private MobileCommonActions mobileCommonActions;
     private static final String packageName = "com.zoomcar";
 
+    public LocationAccessPage() {
+        this(DriverHolder.getDriver());
+    }
+
     public LocationAccessPage(AppiumDriver driver){
         this.driver = driver;
         mobileCommonActions = new MobileCommonActions(this.driver);
-        PageFactory.initElements(new AppiumFieldDecorator(this.driver),this);
+        PageFactory.initElements(new CachingFieldDecorator(this.driver),this);
     }
 
     @AndroidFindBy(id = packageName+":id/button_action")
@@ -1,11 +1,13 @@
 package page_objects;
 
+import core.driver_manager.DriverHolder;
+import core.page_factory.CachingFieldDecorator;
 import core.utils.CommonActions;
 import core.utils.LogcatUtils;
 import core.utils.MobileCommonActions;
+import core.utils.Synchronizer;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.pagefactory.AndroidFindBy;
-import io.appium.java_client.pagefactory.AppiumFieldDecorator;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.PageFactory;
 
@@ -13,15 +15,21 @@ public class LoginSignUpPage {
 
     private AppiumDriver localAppiumDriver;
     private MobileCommonActions mobileCommonActions;
+    private Synchronizer synchronizer;
     private CommonActions commonActions;
     private static final String packageName = "com.zoomcar.debug";
     private static String email = "deepak.attri@zoomcar.com";
     private static String password = "password";
 
+    public LoginSignUpPage() {
+        this(DriverHolder.getDriver());
+    }
+
     public LoginSignUpPage(AppiumDriver driver){
         localAppiumDriver = driver;
         mobileCommonActions = new MobileCommonActions(localAppiumDriver);
-        PageFactory.initElements(new AppiumFieldDecorator(localAppiumDriver),this);
+        synchronizer = new Synchronizer(localAppiumDriver);
+        PageFactory.initElements(new CachingFieldDecorator(localAppiumDriver),this);
     }
 
     @AndroidFindBy(id = packageName+":id/edit_association")
@@ -39,11 +47,7 @@ public class LoginSignUpPage {
         mobileCommonActions.clickElement(continueButton);
         mobileCommonActions.enterText(passwordEditBox,password);
         mobileCommonActions.clickElement(continueButton);
-        try {
-            Thread.sleep(10000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        synchronizer.waitForNetworkQuiescence(10000);
         return new PaytmPage(localAppiumDriver);
 
     }
@@ -1,9 +1,10 @@
 package page_objects;
 
+import core.driver_manager.DriverHolder;
+import core.page_factory.CachingFieldDecorator;
 import core.utils.CommonActions;
 import core.utils.MobileCommonActions;
 import io.appium.java_client.AppiumDriver;
-import io.appium.java_client.pagefactory.AppiumFieldDecorator;
 import org.openqa.selenium.support.PageFactory;
 
 public class PaytmPage {
@@ -12,9 +13,13 @@ public class PaytmPage {
     private CommonActions commonActions;
     private static final String packageName = "com.zoomcar.debug";
 
+    public PaytmPage() {
+        this(DriverHolder.getDriver());
+    }
+
     public PaytmPage(AppiumDriver driver){
         localAppiumDriver = driver;
         mobileCommonActions = new MobileCommonActions(localAppiumDriver);
-        PageFactory.initElements(new AppiumFieldDecorator(localAppiumDriver),this);
+        PageFactory.initElements(new CachingFieldDecorator(localAppiumDriver),this);
     }
 }
@@ -1,9 +1,11 @@
 package page_objects;
 
+import core.driver_manager.DriverHolder;
+import core.page_factory.CachingFieldDecorator;
 import core.utils.MobileCommonActions;
+import core.utils.Synchronizer;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.pagefactory.AndroidFindBy;
-import io.appium.java_client.pagefactory.AppiumFieldDecorator;
 import org.apache.log4j.Logger;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
@@ -12,13 +14,19 @@ import org.openqa.selenium.support.PageFactory;
 public class WebViewPage {
     private AppiumDriver localAppiumDriver;
     private MobileCommonActions mobileCommonActions;
+    private Synchronizer synchronizer;
     private static final String packageName = "com.zoomcar.debug";
     private static Logger logger = Logger.getLogger(WebViewPage.class);
 
+    public WebViewPage() {
+        this(DriverHolder.getDriver());
+    }
+
     public WebViewPage(AppiumDriver driver) {
         localAppiumDriver = driver;
         mobileCommonActions = new MobileCommonActions(localAppiumDriver);
-        PageFactory.initElements(new AppiumFieldDecorator(localAppiumDriver), this);
+        synchronizer = new Synchronizer(localAppiumDriver);
+        PageFactory.initElements(new CachingFieldDecorator(localAppiumDriver), this);
     }
 
     @AndroidFindBy(xpath = "//android.widget.ImageButton[@content-desc='Navigate up']")
@@ -46,11 +54,8 @@ public class WebViewPage {
 
     public void clickViewAllCars(){
         logger.info("Context handle: "+localAppiumDriver.getContextHandles());
+        String pageSource = localAppiumDriver.getPageSource();
         mobileCommonActions.clickElement(viewAllCarsButton);
-        try {
-            Thread.sleep(5000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        synchronizer.waitForPageSourceChange(pageSource, 5000);
     }
 }
@@ -29,7 +29,7 @@ public class AppLaunchTest extends BaseTest {
 
     @BeforeClass
     public void beforeClass(){
-        localAppiumDriver = (AppiumDriver) super.driver;
+        localAppiumDriver = (AppiumDriver) getDriver();
         appLaunchPage = new AppLaunchPage(localAppiumDriver);
         locationAccessPage = new LocationAccessPage(localAppiumDriver);
         citySelectionPage = new CitySelectionPage(localAppiumDriver);
@@ -3,6 +3,7 @@ package Android;
 import base_test.BaseTest;
 import core.utils.LogcatUtils;
 import core.utils.MobileCommonActions;
+import core.utils.Synchronizer;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.ios.IOSDriver;
@@ -25,7 +26,7 @@ public class LoginTest extends BaseTest {
 
     @BeforeClass
     public void beforeClass(){
-        localAppiumDriver = (AppiumDriver) super.driver;
+        localAppiumDriver = (AppiumDriver) getDriver();
       //  appLaunchPage = new AppLaunchPage(localAppiumDriver);
       //  locationAccessPage = new LocationAccessPage(localAppiumDriver);
         citySelectionPage = new CitySelectionPage(localAppiumDriver);
@@ -36,15 +37,11 @@ public class LoginTest extends BaseTest {
 
     @Test
     public void loginTest(){
-        LogcatUtils.getFirstNLinesofLogcats(200,localAppiumDriver);
+        long logcatCheckpoint = LogcatUtils.checkpoint(localAppiumDriver);
         citySelectionPage.closeBottomSheet().navigateToLoginSignUpPage().loginWithEmail();
-        try {
-            Thread.sleep(5000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        new Synchronizer(localAppiumDriver).waitForUiIdle(5000);
        
-        LogcatUtils.getFirstNLinesofLogcats(200,localAppiumDriver);
+        LogcatUtils.getLogcatsSince(logcatCheckpoint,localAppiumDriver);
 
 
 
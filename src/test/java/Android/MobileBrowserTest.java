@@ -2,6 +2,7 @@ package Android;
 
 import base_test.BaseTest;
 import core.utils.MobileCommonActions;
+import core.utils.Synchronizer;
 import io.appium.java_client.AppiumDriver;
 import org.apache.log4j.Logger;
 import org.testng.ITestResult;
@@ -15,16 +16,12 @@ public class MobileBrowserTest extends BaseTest {
 
     @BeforeClass
     public void beforeClass(ITestResult iTestResult){
-        localAppiumDriver = (AppiumDriver) super.driver;
+        localAppiumDriver = (AppiumDriver) getDriver();
     }
 
    @Test
     public void browserTest(){
         localAppiumDriver.get("http://www.google.com");
-       try {
-           Thread.sleep(30000);
-       } catch (InterruptedException e) {
-           e.printStackTrace();
-       }
+       new Synchronizer(localAppiumDriver).waitForUiIdle(30000);
    }
 }
@@ -0,0 +1,49 @@
+package Android;
+
+import base_test.BaseTest;
+import core.utils.FlingSearch;
+import core.utils.MobileCommonActions;
+import io.appium.java_client.AppiumDriver;
+import org.apache.log4j.Logger;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Times UiScrollable.scrollIntoView against the fling-first search on a long list of the app.
+ * Run with -Dscroll.timing.list.id=&lt;resource-id of the list&gt; -Dscroll.timing.text=&lt;text near its end&gt;
+ * on a screen that shows the list.
+ */
+public class ScrollSearchTimingTest extends BaseTest {
+    private MobileCommonActions mobileCommonActions;
+    private String listId;
+    private String text;
+    private static Logger logger = Logger.getLogger(ScrollSearchTimingTest.class);
+
+    @BeforeClass
+    public void beforeClass() {
+        listId = System.getProperty("scroll.timing.list.id");
+        text = System.getProperty("scroll.timing.text");
+        if (listId == null || text == null) {
+            throw new SkipException("scroll.timing.list.id and scroll.timing.text are not set");
+        }
+        mobileCommonActions = new MobileCommonActions((AppiumDriver) getDriver());
+    }
+
+    @Test
+    public void flingSearchIsFasterThanUiScrollable() {
+        long start = System.currentTimeMillis();
+        mobileCommonActions.scrollToElementUsingText(listId, text, 100);
+        long uiScrollableMs = System.currentTimeMillis() - start;
+
+        mobileCommonActions.flingToStartOfList(listId, FlingSearch.Orientation.VERTICAL);
+        start = System.currentTimeMillis();
+        mobileCommonActions.flingToElementUsingText(listId, text);
+        long flingMs = System.currentTimeMillis() - start;
+
+        logger.info("Scrolling to " + text + " took " + uiScrollableMs + " ms with UiScrollable and "
+                + flingMs + " ms fling-first");
+        Assert.assertTrue(flingMs < uiScrollableMs, "fling-first " + flingMs + " ms, UiScrollable " + uiScrollableMs + " ms");
+    }
+}
@@ -2,6 +2,7 @@ package Android;
 
 import base_test.BaseTest;
 import core.utils.MobileCommonActions;
+import core.utils.Synchronizer;
 import io.appium.java_client.AppiumDriver;
 import org.apache.log4j.Logger;
 import org.testng.Assert;
@@ -24,7 +25,7 @@ public class WebViewTest extends BaseTest {
 
     @BeforeClass
     public void beforeClass(){
-        localAppiumDriver = (AppiumDriver) super.driver;
+        localAppiumDriver = (AppiumDriver) getDriver();
         appLaunchPage = new AppLaunchPage(localAppiumDriver);
         locationAccessPage = new LocationAccessPage(localAppiumDriver);
         citySelectionPage = new CitySelectionPage(localAppiumDriver);
@@ -36,11 +37,6 @@ public class WebViewTest extends BaseTest {
     @Test
     public void navigateWebViewTest(){
         citySelectionPage.closeBottomSheet().clickOnWebView().clickViewAllCars();
-
-        try {
-            Thread.sleep(5000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        new Synchronizer(localAppiumDriver).waitForUiIdle(5000);
     }
 }
@@ -2,6 +2,7 @@ package base_test;
 
 import core.driver_manager.AndroidDriverManager;
 import core.driver_manager.AndroidWebDriverManager;
+import core.driver_manager.DriverHolder;
 import core.utils.LogcatUtils;
 import core.utils.MobileCommonActions;
 import io.appium.java_client.AppiumDriver;
@@ -12,39 +13,68 @@ import org.openqa.selenium.logging.LogEntry;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.ISuite;
 import org.testng.ISuiteListener;
+import org.testng.ITestContext;
 import org.testng.annotations.AfterTest;
-import org.testng.annotations.BeforeTest;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.StreamSupport;
 
+/**
+ * Drivers are thread scoped, every TestNG worker thread gets its own device and driver through
+ * {@link DriverHolder}. Run in parallel with parallel="tests" or parallel="classes". A driver is
+ * only started on the thread that runs a class, so no device is held by a thread without tests.
+ */
 public class BaseTest{
 
-    public WebDriver driver;
-    public WebDriverWait wait;
+    private static final Map<String, Queue<Runnable>> driverCleanups = new ConcurrentHashMap<>();
     String appName = "zoomcar";
     private MobileCommonActions mobileCommonActions;
     private static Logger logger = Logger.getLogger(BaseTest.class);
 
-    @Parameters({"platform","browserName"})
-    @BeforeTest
-    public void onStart(@Optional(value = "android") String platform,@Optional(value = "chrome") String browserName) {
+    @Parameters({"platform"})
+    @BeforeClass(alwaysRun = true)
+    public void attachDriverToThread(@Optional(value = "android") String platform, ITestContext context) {
+        if (DriverHolder.getDriver() == null) {
+            startDriverForCurrentThread(platform, context);
+        }
+    }
+
+    @AfterTest
+    public void onFinish(ITestContext context) {
+        Queue<Runnable> cleanups = driverCleanups.remove(context.getName());
+        if (cleanups != null) {
+            cleanups.forEach(Runnable::run);
+        }
+    }
+
+    public WebDriver getDriver() {
+        return DriverHolder.getDriver();
+    }
+
+    public WebDriverWait getWait() {
+        return new WebDriverWait(getDriver(), 30);
+    }
+
+    private void startDriverForCurrentThread(String platform, ITestContext context) {
+        Queue<Runnable> cleanups = driverCleanups.computeIfAbsent(context.getName(), k -> new ConcurrentLinkedQueue<>());
         if (platform.equalsIgnoreCase("android")) {
-            driver = new AndroidDriverManager().getDriver(appName);
-            wait = new WebDriverWait(driver, 30);
+            AndroidDriverManager androidDriverManager = new AndroidDriverManager();
+            androidDriverManager.getDriver(appName);
+            cleanups.add(androidDriverManager::quitDriver);
         }else if(platform.equalsIgnoreCase("web")){
-            driver = new AndroidWebDriverManager().getDriver();
-            wait = new WebDriverWait(driver, 30);
+            AndroidWebDriverManager androidWebDriverManager = new AndroidWebDriverManager();
+            androidWebDriverManager.getDriver();
+            cleanups.add(androidWebDriverManager::quitDriver);
         }else{
             logger.info("Invalid platform provided");
         }
     }
-
-    @AfterTest
-    public void onFinish() {
-        driver.quit();
-    }
 }
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import core.utils.AdbClient;
+import core.utils.CommandUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Device queries through the forked adb binary against {@link AdbClient}. Needs a running adb
+ * server with one attached device, or {@code -Dadb.serial} to pick one.
+ * <p>
+ * Run with {@code mvn test-compile} and then
+ * {@code java -cp target/test-classes:target/classes:<test classpath> benchmarks.AdbClientBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AdbClientBenchmark {
+
+    private static final String SERIAL = System.getProperty("adb.serial");
+    private final CommandUtils commandUtils = new CommandUtils();
+    private final AdbClient adbClient = new AdbClient();
+
+    @Benchmark
+    public String devicesWithAdbBinary() throws IOException {
+        return commandUtils.executeCommand("adb devices");
+    }
+
+    @Benchmark
+    public Map<String, String> devicesWithAdbClient() throws IOException {
+        return adbClient.devices();
+    }
+
+    @Benchmark
+    public String shellWithAdbBinary() throws IOException {
+        return commandUtils.executeCommand(
+                "adb " + (SERIAL == null ? "" : "-s " + SERIAL + " ") + "shell getprop ro.build.version.sdk");
+    }
+
+    @Benchmark
+    public String shellWithAdbClient() throws IOException {
+        return adbClient.shell(SERIAL, "getprop ro.build.version.sdk");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AdbClientBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,70 @@
+package benchmarks;
+
+import core.utils.ProcessExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a multi-megabyte command output, like {@code dumpsys} or {@code logcat -d}, with the
+ * old String.format concatenation against {@link ProcessExecutor}.
+ * <p>
+ * Run with {@code mvn test-compile} and then
+ * {@code java -cp target/test-classes:target/classes:<test classpath> benchmarks.CommandOutputBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CommandOutputBenchmark {
+
+    /**
+     * Lines of 100 characters, 20000 lines is about 2 MB.
+     */
+    @Param({"2000", "20000"})
+    public int lines;
+
+    private String command() {
+        return "i=0; while [ $i -lt " + lines + " ]; do "
+                + "printf '%099d\\n' $i; i=$((i+1)); done";
+    }
+
+    @Benchmark
+    public String concatenation() throws IOException {
+        Process process = new ProcessBuilder(Arrays.asList("/bin/sh", "-c", command())).start();
+        BufferedReader br = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String line;
+        String cmdResponse = "";
+        while ((line = br.readLine()) != null) {
+            cmdResponse = String.format("%s%s\n", cmdResponse, line);
+        }
+        return cmdResponse;
+    }
+
+    @Benchmark
+    public String processExecutor() throws IOException {
+        return ProcessExecutor.shell(command()).execute().getStdout();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CommandOutputBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package benchmarks;
+
+import core.visual.VisualComparator;
+import core.visual.VisualDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparing two 1080x2400 frames that differ in a small region, one pixel at a time on the test
+ * thread against {@link VisualComparator}'s tiles on the fork/join pool.
+ * <p>
+ * Run with {@code mvn test-compile} and then
+ * {@code java -cp target/test-classes:target/classes:<test classpath> benchmarks.VisualComparatorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VisualComparatorBenchmark {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 2400;
+    private static final double MAX_DELTA = 35215 * 0.1 * 0.1;
+
+    @Param({"32", "64", "128"})
+    public int tileSize;
+
+    private BufferedImage expected;
+    private BufferedImage actual;
+    private VisualComparator comparator;
+    private final List<Rectangle> masks = Collections.singletonList(new Rectangle(0, 0, WIDTH, 100));
+
+    private static BufferedImage frame(long seed) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        Random random = new Random(42);
+        for (int y = 0; y < HEIGHT; y += 150) {
+            graphics.setColor(new Color(random.nextInt(0xffffff)));
+            graphics.fillRect(0, y, WIDTH, 150);
+        }
+        //a banner with a photo, where every pixel differs from its neighbours
+        Random noise = new Random(7);
+        for (int y = 900; y < 1500; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, noise.nextInt(0xffffff));
+            }
+        }
+        graphics.setColor(Color.BLACK);
+        graphics.drawString("10:" + seed, 40, 60);
+        graphics.fillRect(500, 2000 + (int) seed, 80, 80);
+        graphics.dispose();
+        return image;
+    }
+
+    @Setup
+    public void setUp() {
+        expected = frame(10);
+        actual = frame(20);
+        comparator = new VisualComparator(tileSize, 0.1, 0.002);
+    }
+
+    @Benchmark
+    public long pixelByPixel() {
+        long different = 0;
+        for (int y = 100; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int e = expected.getRGB(x, y);
+                int a = actual.getRGB(x, y);
+                int r = ((e >> 16) & 0xff) - ((a >> 16) & 0xff);
+                int g = ((e >> 8) & 0xff) - ((a >> 8) & 0xff);
+                int b = (e & 0xff) - (a & 0xff);
+                double yy = r * 0.29889531 + g * 0.58662247 + b * 0.11448223;
+                double i = r * 0.59597799 - g * 0.27417610 - b * 0.32180189;
+                double q = r * 0.21147017 - g * 0.52261711 + b * 0.31114694;
+                if (0.5053 * yy * yy + 0.299 * i * i + 0.1957 * q * q > MAX_DELTA) {
+                    different++;
+                }
+            }
+        }
+        return different;
+    }
+
+    @Benchmark
+    public VisualDiff tiles() {
+        return comparator.compare(expected, actual, masks, false);
+    }
+
+    @Benchmark
+    public VisualDiff tilesWithDiffImage() {
+        return comparator.compare(expected, actual, masks, true);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(VisualComparatorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
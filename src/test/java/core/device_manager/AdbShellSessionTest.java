@@ -0,0 +1,78 @@
+package core.device_manager;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the session against a local /bin/sh, which reads commands from the pipe like adb shell does.
+ */
+public class AdbShellSessionTest {
+
+    private AdbShellSession session;
+
+    @BeforeMethod
+    public void startSession() {
+        session = new AdbShellSession("local", Arrays.asList("/bin/sh"));
+    }
+
+    @AfterMethod
+    public void closeSession() {
+        session.close();
+    }
+
+    @Test
+    public void runsCommandsBackToBackOnOneShell() {
+        String pid = session.execute("echo $$").getOutput();
+        AdbShellSession.Response failed = session.execute("echo oops >&2; exit_code=4; (exit $exit_code)");
+
+        Assert.assertEquals(failed.getOutput(), "oops\n");
+        Assert.assertEquals(failed.getExitCode(), 4);
+        Assert.assertEquals(session.execute("printf 'a\\nb'").getOutput(), "a\nb");
+        Assert.assertEquals(session.execute("echo $$").getOutput(), pid);
+        Assert.assertEquals(session.getCommandCount(), 4);
+    }
+
+    @Test
+    public void concurrentCallersGetTheirOwnResponses() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<String>> responses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int n = i;
+            responses.add(pool.submit(() -> session.execute("seq " + n + " " + (n + 2)).getOutput()));
+        }
+        for (int i = 0; i < responses.size(); i++) {
+            Assert.assertEquals(responses.get(i).get(), i + "\n" + (i + 1) + "\n" + (i + 2) + "\n");
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void reconnectsWhenTheShellDies() throws IOException, InterruptedException {
+        String pid = session.execute("echo $$").getOutput().trim();
+        new ProcessBuilder("kill", "-9", pid).start().waitFor();
+
+        Assert.assertEquals(session.execute("echo back").getOutput(), "back\n");
+        Assert.assertEquals(session.getReconnectCount(), 1);
+    }
+
+    @Test
+    public void aTimedOutCommandDoesNotLeakIntoTheNextResponse() {
+        try {
+            session.execute("echo partial; sleep 5; echo late", 300);
+            Assert.fail("expected a timeout");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        }
+        Assert.assertEquals(session.execute("echo next").getOutput(), "next\n");
+    }
+}
@@ -0,0 +1,94 @@
+package core.device_manager;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DevicePropertyCacheTest {
+
+    private static DevicePropertyCache newCache() {
+        return DevicePropertyCache.forDevice(UUID.randomUUID().toString());
+    }
+
+    @Test
+    public void servesValuesLocallyUntilTheTtlExpires() throws InterruptedException {
+        DevicePropertyCache cache = newCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(cache.get("pid:com.zoomcar", 100, () -> 4000 + loads.incrementAndGet()), (Integer) 4001);
+        }
+        Thread.sleep(150);
+        Assert.assertEquals(cache.get("pid:com.zoomcar", 100, () -> 4000 + loads.incrementAndGet()), (Integer) 4002);
+        Assert.assertEquals(cache.getHits(), 2);
+        Assert.assertEquals(cache.getMisses(), 2);
+    }
+
+    @Test
+    public void appRestartDropsThePidAndOrientationButNotTheVersion() {
+        DevicePropertyCache cache = newCache();
+        String pid = DevicePropertyCache.pidKey("com.zoomcar");
+        String version = DevicePropertyCache.versionNameKey("com.zoomcar");
+        cache.get(pid, () -> 4001);
+        cache.get(version, () -> "7.1.0");
+        cache.onRotation("LANDSCAPE");
+
+        cache.onAppRestart("com.zoomcar");
+
+        Assert.assertEquals(cache.get(pid, () -> 4002), (Integer) 4002);
+        Assert.assertEquals(cache.get(version, () -> "8.0.0"), "7.1.0");
+        Assert.assertEquals(cache.get(DevicePropertyCache.ORIENTATION, () -> "PORTRAIT"), "PORTRAIT");
+
+        cache.onAppInstall("com.zoomcar");
+        Assert.assertEquals(cache.get(version, () -> "8.0.0"), "8.0.0");
+    }
+
+    @Test
+    public void concurrentMissesLoadOnce() throws Exception {
+        DevicePropertyCache cache = newCache();
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> query = () -> cache.get("windowSize:PORTRAIT", () -> {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "1080x2154";
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<String>> queries = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            queries.add(query);
+        }
+        for (Future<String> result : executor.invokeAll(queries)) {
+            Assert.assertEquals(result.get(), "1080x2154");
+        }
+        executor.shutdown();
+        Assert.assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void failedLookupsAreNotCached() {
+        DevicePropertyCache cache = newCache();
+        Assert.assertNull(cache.get("versionName:com.missing", () -> null));
+        Assert.assertEquals(cache.get("versionName:com.missing", () -> "1.0"), "1.0");
+    }
+
+    @Test
+    public void versionNameIsTheFirstOfSeveral() {
+        //an updated system app lists the update and the factory version
+        String dumpsys = "    versionName=8.1.0\n    versionName=7.9.2\n";
+
+        Assert.assertEquals(DevicePropertyCache.parseVersionName(dumpsys), "8.1.0");
+        Assert.assertNull(DevicePropertyCache.parseVersionName(""));
+    }
+}
@@ -0,0 +1,92 @@
+package core.device_manager;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DeviceRegistryTest {
+
+    private static class FakeDeviceBackend implements DeviceBackend {
+        private final List<String> devices;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        FakeDeviceBackend(String... devices) {
+            this.devices = Arrays.asList(devices);
+        }
+
+        @Override
+        public List<String> listDevices() {
+            calls.incrementAndGet();
+            return devices;
+        }
+    }
+
+    @Test
+    public void eachThreadLeasesItsOwnDevice() throws Exception {
+        DeviceRegistry registry = new DeviceRegistry(new FakeDeviceBackend("emulator-5554", "emulator-5556", "R58M"));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        Callable<String> lease = () -> registry.leaseDevice(1000);
+        List<Future<String>> leases = executor.invokeAll(Arrays.asList(lease, lease, lease));
+        Set<String> leased = new HashSet<>();
+        for (Future<String> future : leases) {
+            leased.add(future.get());
+        }
+        executor.shutdown();
+
+        Assert.assertEquals(leased, new HashSet<>(Arrays.asList("emulator-5554", "emulator-5556", "R58M")));
+        Assert.assertEquals(registry.getFreeDeviceCount(), 0);
+    }
+
+    @Test
+    public void leaseWaitsForReleasedDevice() throws Exception {
+        DeviceRegistry registry = new DeviceRegistry(new FakeDeviceBackend("emulator-5554"));
+        String device = registry.leaseDevice(1000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> waiting = executor.submit(() -> registry.leaseDevice(5000));
+        Thread.sleep(100);
+        Assert.assertFalse(waiting.isDone());
+
+        registry.releaseDevice(device);
+        Assert.assertEquals(waiting.get(5, TimeUnit.SECONDS), "emulator-5554");
+        executor.shutdown();
+    }
+
+    @Test
+    public void waitingThreadsDoNotKeepRediscovering() throws Exception {
+        FakeDeviceBackend backend = new FakeDeviceBackend("emulator-5554");
+        DeviceRegistry registry = new DeviceRegistry(backend);
+        registry.leaseDevice(1000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Callable<String> lease = () -> registry.leaseDevice(2500);
+        for (Future<String> waiting : executor.invokeAll(Arrays.asList(lease, lease, lease, lease))) {
+            Assert.expectThrows(ExecutionException.class, waiting::get);
+        }
+        executor.shutdown();
+
+        //the first lease, then one discovery per interval
+        Assert.assertTrue(backend.calls.get() <= 3, backend.calls.get() + " backend calls");
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void leaseFailsWithoutDevices() {
+        new DeviceRegistry(Collections::emptyList).leaseDevice(50);
+    }
+
+    @Test
+    public void parsesAdbDevicesOutput() {
+        String output = "List of devices attached\nemulator-5554\tdevice\nemulator-5556\toffline\nR58M\tdevice\n\n";
+        Assert.assertEquals(AdbDeviceBackend.parseDevices(output), Arrays.asList("emulator-5554", "R58M"));
+    }
+}
@@ -0,0 +1,102 @@
+package core.driver_manager;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ApkInstallCacheTest {
+
+    private final Map<String, String> installedVersions = new HashMap<>();
+
+    private File writeApk(File dir, String content) throws Exception {
+        File apk = new File(dir, "app-" + content + ".apk");
+        Files.write(apk.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return apk;
+    }
+
+    private ApkInstallCache newCache(File store) {
+        return new ApkInstallCache(store, (device, appPackage) -> installedVersions.get(device + "|" + appPackage));
+    }
+
+    @Test
+    public void unchangedApkIsAHitAcrossInstances() throws Exception {
+        File dir = Files.createTempDirectory("apk-cache").toFile();
+        File store = new File(dir, "cache.properties");
+        File apk = writeApk(dir, "v1");
+        ApkInstallCache cache = newCache(store);
+        Assert.assertFalse(cache.isInstalled("emulator-5554", "com.zoomcar.debug", apk));
+
+        installedVersions.put("emulator-5554|com.zoomcar.debug", "8.1.0");
+        cache.recordInstall("emulator-5554", "com.zoomcar.debug", apk);
+
+        ApkInstallCache reloaded = newCache(store);
+        Assert.assertTrue(reloaded.isInstalled("emulator-5554", "com.zoomcar.debug", apk));
+        Assert.assertFalse(reloaded.isInstalled("emulator-5556", "com.zoomcar.debug", apk));
+        Assert.assertEquals(reloaded.getHits(), 1);
+        Assert.assertEquals(reloaded.getMisses(), 1);
+    }
+
+    @Test
+    public void changedApkOrDeviceVersionIsAMiss() throws Exception {
+        File dir = Files.createTempDirectory("apk-cache").toFile();
+        ApkInstallCache cache = newCache(new File(dir, "cache.properties"));
+        installedVersions.put("emulator-5554|com.zoomcar.debug", "8.1.0");
+        cache.recordInstall("emulator-5554", "com.zoomcar.debug", writeApk(dir, "v1"));
+
+        Assert.assertFalse(cache.isInstalled("emulator-5554", "com.zoomcar.debug", writeApk(dir, "v2")));
+        installedVersions.put("emulator-5554|com.zoomcar.debug", "8.0.0");
+        Assert.assertFalse(cache.isInstalled("emulator-5554", "com.zoomcar.debug", new File(dir, "app-v1.apk")));
+    }
+
+    @Test
+    public void reinstallWithTheSameVersionNameIsAMiss() throws Exception {
+        File dir = Files.createTempDirectory("apk-cache").toFile();
+        ApkInstallCache cache = newCache(new File(dir, "cache.properties"));
+        File apk = writeApk(dir, "v1");
+        installedVersions.put("emulator-5554|com.zoomcar.debug", "8.1.0@2026-10-18 10:00:00");
+        cache.recordInstall("emulator-5554", "com.zoomcar.debug", apk);
+        Assert.assertTrue(cache.isInstalled("emulator-5554", "com.zoomcar.debug", apk));
+
+        //another debug build installed by hand, same versionName
+        installedVersions.put("emulator-5554|com.zoomcar.debug", "8.1.0@2026-10-18 11:30:12");
+        Assert.assertFalse(cache.isInstalled("emulator-5554", "com.zoomcar.debug", apk));
+    }
+
+    @Test
+    public void updatesFromAnotherInstanceAreKept() throws Exception {
+        File dir = Files.createTempDirectory("apk-cache").toFile();
+        File store = new File(dir, "cache.properties");
+        File apk = writeApk(dir, "v1");
+        installedVersions.put("emulator-5554|com.zoomcar.debug", "8.1.0");
+        installedVersions.put("emulator-5556|com.zoomcar.debug", "8.1.0");
+        ApkInstallCache first = newCache(store);
+        ApkInstallCache second = newCache(store);
+
+        first.recordInstall("emulator-5554", "com.zoomcar.debug", apk);
+        second.recordInstall("emulator-5556", "com.zoomcar.debug", apk);
+
+        ApkInstallCache reloaded = newCache(store);
+        Assert.assertTrue(reloaded.isInstalled("emulator-5554", "com.zoomcar.debug", apk));
+        Assert.assertTrue(reloaded.isInstalled("emulator-5556", "com.zoomcar.debug", apk));
+    }
+
+    @Test
+    public void invalidateDropsOnlyThatDevice() throws Exception {
+        File dir = Files.createTempDirectory("apk-cache").toFile();
+        ApkInstallCache cache = newCache(new File(dir, "cache.properties"));
+        File apk = writeApk(dir, "v1");
+        installedVersions.put("emulator-5554|com.zoomcar.debug", "8.1.0");
+        installedVersions.put("emulator-5556|com.zoomcar.debug", "8.1.0");
+        cache.recordInstall("emulator-5554", "com.zoomcar.debug", apk);
+        cache.recordInstall("emulator-5556", "com.zoomcar.debug", apk);
+
+        cache.invalidate("emulator-5554");
+        Assert.assertFalse(cache.isInstalled("emulator-5554", "com.zoomcar.debug", apk));
+        Assert.assertTrue(cache.isInstalled("emulator-5556", "com.zoomcar.debug", apk));
+    }
+}
@@ -0,0 +1,105 @@
+package core.driver_manager;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SessionPoolTest {
+
+    private static class FakeSessionFactory implements SessionPool.SessionFactory<Integer> {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger resets = new AtomicInteger();
+        final AtomicInteger destroyed = new AtomicInteger();
+        volatile boolean alive = true;
+
+        @Override
+        public Integer create() {
+            return created.incrementAndGet();
+        }
+
+        @Override
+        public void reset(Integer session) {
+            resets.incrementAndGet();
+        }
+
+        @Override
+        public boolean isAlive(Integer session) {
+            return alive;
+        }
+
+        @Override
+        public void destroy(Integer session) {
+            destroyed.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void releasedSessionIsResetAndReused() {
+        FakeSessionFactory factory = new FakeSessionFactory();
+        SessionPool<Integer> pool = new SessionPool<>("test", factory, 0, 1, 60000);
+        Integer first = pool.lease();
+        pool.release(first);
+        Integer second = pool.lease();
+
+        Assert.assertEquals(second, first);
+        Assert.assertEquals(factory.created.get(), 1);
+        Assert.assertEquals(factory.resets.get(), 1);
+        Assert.assertEquals(pool.getSessionsReused(), 1);
+        pool.close();
+    }
+
+    @Test
+    public void prewarmCreatesMinimumIdleSessions() {
+        FakeSessionFactory factory = new FakeSessionFactory();
+        SessionPool<Integer> pool = new SessionPool<>("test", factory, 2, 3, 60000);
+        pool.prewarm();
+
+        Assert.assertEquals(pool.getIdleCount(), 2);
+        Assert.assertEquals(factory.created.get(), 2);
+        pool.close();
+        Assert.assertEquals(factory.destroyed.get(), 2);
+    }
+
+    @Test
+    public void deadSessionIsReplaced() {
+        FakeSessionFactory factory = new FakeSessionFactory();
+        SessionPool<Integer> pool = new SessionPool<>("test", factory, 0, 1, 60000);
+        pool.release(pool.lease());
+        factory.alive = false;
+        Integer session = pool.lease();
+
+        Assert.assertEquals(session.intValue(), 2);
+        Assert.assertEquals(factory.destroyed.get(), 1);
+        pool.close();
+    }
+
+    @Test
+    public void idleSessionsAreEvicted() throws InterruptedException {
+        FakeSessionFactory factory = new FakeSessionFactory();
+        SessionPool<Integer> pool = new SessionPool<>("test", factory, 0, 2, 10);
+        pool.release(pool.lease());
+        Thread.sleep(20);
+        pool.evictIdleSessions();
+
+        Assert.assertEquals(pool.getIdleCount(), 0);
+        Assert.assertEquals(pool.getTotalCount(), 0);
+        Assert.assertEquals(factory.destroyed.get(), 1);
+        pool.close();
+    }
+
+    @Test
+    public void evictedSessionsAreReplacedUpToMinimumIdle() throws InterruptedException {
+        FakeSessionFactory factory = new FakeSessionFactory();
+        SessionPool<Integer> pool = new SessionPool<>("test", factory, 1, 2, 10);
+        pool.prewarm();
+        Thread.sleep(20);
+        pool.evictIdleSessions();
+
+        Assert.assertEquals(factory.destroyed.get(), 1);
+        Assert.assertEquals(factory.created.get(), 2);
+        Assert.assertEquals(pool.getIdleCount(), 1);
+        Assert.assertEquals(pool.lease().intValue(), 2);
+        pool.close();
+    }
+}
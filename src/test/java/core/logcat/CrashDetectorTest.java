@@ -0,0 +1,116 @@
+package core.logcat;
+
+import core.utils.WaitEngine;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CrashDetectorTest {
+
+    private static final String APP = "com.zoomcar.debug";
+    private long sequence = 0;
+
+    private void log(CrashDetector detector, int pid, char level, String tag, String message) {
+        detector.accept(new LogcatEntry(sequence++, "10-18 10:00:00.000", pid, pid, level, tag, message));
+    }
+
+    private CrashDetector startedApp(int pid) {
+        return startedApp(pid, new CrashDetector(APP, 0, EnumSet.noneOf(CrashDetector.Kind.class)));
+    }
+
+    private CrashDetector startedApp(int pid, CrashDetector detector) {
+        log(detector, 1000, 'I', "ActivityManager", "Start proc " + pid + ":" + APP + "/u0a123 for activity");
+        return detector;
+    }
+
+    private void fatalException(CrashDetector detector, int pid, String process) {
+        log(detector, pid, 'E', "AndroidRuntime", "FATAL EXCEPTION: main");
+        log(detector, pid, 'E', "AndroidRuntime", "Process: " + process + ", PID: " + pid);
+        log(detector, pid, 'E', "AndroidRuntime", "java.lang.NullPointerException: booking was null");
+        log(detector, pid, 'E', "AndroidRuntime", "\tat com.zoomcar.booking.SummaryActivity.onCreate(SummaryActivity.java:42)");
+        log(detector, 1000, 'W', "ActivityManager", "Force finishing activity " + process);
+    }
+
+    @Test
+    public void fatalExceptionOfTheAppIsReportedOnceWithItsStackTrace() {
+        CrashDetector detector = startedApp(4321);
+        fatalException(detector, 4321, APP);
+
+        AppCrashException crash = Assert.expectThrows(AppCrashException.class, detector::throwIfCrashed);
+        Assert.assertEquals(crash.getKind(), CrashDetector.Kind.FATAL_EXCEPTION);
+        Assert.assertEquals(crash.getPid(), 4321);
+        Assert.assertEquals(crash.getLines().size(), 4);
+        Assert.assertTrue(crash.getMessage().contains("SummaryActivity.java:42"));
+
+        detector.throwIfCrashed();
+        Assert.assertEquals(detector.getReportedCount(), 1);
+    }
+
+    @Test
+    public void crashesOfOtherProcessesAndEarlierRunsAreIgnored() {
+        CrashDetector detector = startedApp(4321);
+        fatalException(detector, 5555, "com.google.android.gms");
+        log(detector, 1000, 'E', "ActivityManager", "ANR in com.android.systemui");
+        Assert.assertNull(detector.getCrash());
+
+        //a crash replayed from the device buffer, then the app is started again
+        fatalException(detector, 4321, APP);
+        log(detector, 1000, 'I', "ActivityManager", "Start proc 4400:" + APP + "/u0a123 for activity");
+        Assert.assertNull(detector.getCrash());
+    }
+
+    @Test
+    public void detectsAnrsTombstonesAndStrictModeViolations() {
+        CrashDetector detector = startedApp(4321);
+        log(detector, 1000, 'E', "ActivityManager", "ANR in " + APP + " (" + APP + "/.MainActivity)");
+        log(detector, 1000, 'E', "ActivityManager", "PID: 4321");
+        log(detector, 1000, 'E', "ActivityManager", "Reason: Input dispatching timed out");
+        AppCrashException anr = Assert.expectThrows(AppCrashException.class, detector::throwIfCrashed);
+        Assert.assertEquals(anr.getKind(), CrashDetector.Kind.ANR);
+        Assert.assertEquals(anr.getPid(), 4321);
+
+        log(detector, 6000, 'F', "DEBUG", "*** *** *** *** *** *** *** *** *** *** *** *** *** *** *** ***");
+        log(detector, 6000, 'F', "DEBUG", "pid: 4321, tid: 4330, name: RenderThread  >>> " + APP + " <<<");
+        log(detector, 6000, 'F', "DEBUG", "signal 11 (SIGSEGV), code 1 (SEGV_MAPERR), fault addr 0x0");
+        Assert.assertEquals(Assert.expectThrows(AppCrashException.class, detector::throwIfCrashed).getKind(),
+                CrashDetector.Kind.NATIVE_CRASH);
+
+        log(detector, 4321, 'D', "StrictMode", "StrictMode policy violation; ~duration=12 ms: android.os.strictmode.DiskReadViolation");
+        log(detector, 4321, 'D', "StrictMode", "\tat com.zoomcar.prefs.Settings.load(Settings.java:17)");
+        Assert.assertEquals(Assert.expectThrows(AppCrashException.class, detector::throwIfCrashed).getLines().size(), 2);
+    }
+
+    @Test
+    public void strictModeViolationsDoNotAbortByDefault() {
+        CrashDetector detector = startedApp(4321, new CrashDetector(APP, 0));
+        log(detector, 4321, 'D', "StrictMode", "StrictMode policy violation; ~duration=12 ms: android.os.strictmode.DiskReadViolation");
+        log(detector, 4321, 'D', "StrictMode", "\tat com.zoomcar.prefs.Settings.load(Settings.java:17)");
+        Assert.assertNull(detector.getCrash());
+
+        fatalException(detector, 4321, APP);
+        Assert.assertEquals(Assert.expectThrows(AppCrashException.class, detector::throwIfCrashed).getKind(),
+                CrashDetector.Kind.FATAL_EXCEPTION);
+    }
+
+    @Test
+    public void waitsAbortAsSoonAsTheAppCrashes() {
+        CrashDetector detector = startedApp(4321);
+        Runnable check = detector::throwIfCrashed;
+        WaitEngine.addAbortCheck(check);
+        try {
+            long start = System.currentTimeMillis();
+            AtomicBoolean crashed = new AtomicBoolean();
+            Assert.expectThrows(AppCrashException.class, () -> new WaitEngine().until("bookingSummary", () -> {
+                if (System.currentTimeMillis() - start > 100 && !crashed.getAndSet(true)) {
+                    fatalException(detector, 4321, APP);
+                }
+                return false;
+            }, 20000));
+            Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        } finally {
+            WaitEngine.removeAbortCheck(check);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package core.logcat;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+public class LogcatStoreTest {
+
+    private static final String LEVELS = "VDIWE";
+    private Path directory;
+    private LogcatStore store;
+    private List<String> lines;
+
+    @BeforeMethod
+    public void fillStore() throws IOException {
+        directory = Files.createTempDirectory("logcat-store");
+        store = new LogcatStore(directory.resolve("emulator-5554"), 100, 16);
+        lines = new ArrayList<>();
+        lines.add("--------- beginning of main");
+        lines.add("10-18 10:00:00.000  1234  1250 I ActivityManager: Start proc 4321:com.zoomcar.debug/u0a123 for activity");
+        for (int i = 0; i < 1000; i++) {
+            int pid = i % 10 == 0 ? 4321 : 2000 + i % 7;
+            char level = i % 97 == 0 ? 'E' : LEVELS.charAt(i % 4);
+            //every line mentions the app pid in its text, only some are logged by it
+            lines.add(String.format("10-18 10:00:%02d.%03d %5d %5d %c %s: request %d took 4321 ms",
+                    i / 1000, i % 1000, pid, pid + 1, level, i % 3 == 0 ? "OkHttp" : "Zoomcar", i));
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            store.add(i, lines.get(i));
+        }
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void closeStore() {
+        store.close();
+        directory.toFile().delete();
+    }
+
+    private List<String> expected(long from, Predicate<LogcatEntry> filter) {
+        List<String> expected = new ArrayList<>();
+        for (int i = (int) from; i < lines.size(); i++) {
+            LogcatEntry entry = LogcatEntry.parse(i, lines.get(i));
+            if (entry != null && filter.test(entry)) {
+                expected.add(entry.toString());
+            }
+        }
+        return expected;
+    }
+
+    private static List<String> text(List<LogcatEntry> entries) {
+        return entries.stream().map(LogcatEntry::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    public void parsesThreadtimeLines() {
+        LogcatEntry entry = LogcatEntry.parse(7, "10-18 10:00:01.250  4321  4330 E AndroidRuntime: FATAL EXCEPTION: main");
+
+        Assert.assertEquals(entry.getPid(), 4321);
+        Assert.assertEquals(entry.getTid(), 4330);
+        Assert.assertEquals(entry.getLevel(), 'E');
+        Assert.assertEquals(entry.getTag(), "AndroidRuntime");
+        Assert.assertEquals(entry.getMessage(), "FATAL EXCEPTION: main");
+        Assert.assertNull(LogcatEntry.parse(8, "--------- beginning of crash"));
+    }
+
+    @Test
+    public void queriesMatchAFullScanAcrossSpilledSegments() {
+        Assert.assertEquals(store.getEntryCount(), 1001);
+        Assert.assertTrue(store.getSegmentCount() >= 9);
+
+        Assert.assertEquals(text(store.query(new LogcatStore.Query().pid(4321))),
+                expected(0, entry -> entry.getPid() == 4321));
+        Assert.assertEquals(text(store.query(new LogcatStore.Query().tag("OkHttp").minLevel('W').since(500))),
+                expected(500, entry -> entry.getTag().equals("OkHttp") && entry.isAtLeast('W')));
+        Assert.assertEquals(text(store.query(new LogcatStore.Query().pid(2003).containing("request 31"))),
+                expected(0, entry -> entry.getPid() == 2003 && entry.getMessage().contains("request 31")));
+    }
+
+    @Test
+    public void packageQueriesUseThePidNotTheText() {
+        Assert.assertEquals(store.pidsOf("com.zoomcar.debug"), Collections.singleton(4321));
+        long blocksBefore = store.getBlocksRead();
+
+        List<LogcatEntry> errors = store.query(new LogcatStore.Query().packageName("com.zoomcar.debug").minLevel('E'));
+
+        Assert.assertEquals(text(errors), expected(0, entry -> entry.getPid() == 4321 && entry.getLevel() == 'E'));
+        Assert.assertFalse(errors.isEmpty());
+        //only blocks holding an error of the app are decompressed
+        Assert.assertTrue(store.getBlocksRead() - blocksBefore < 20, "blocks read " + (store.getBlocksRead() - blocksBefore));
+        Assert.assertTrue(store.query(new LogcatStore.Query().packageName("com.missing")).isEmpty());
+    }
+}
@@ -0,0 +1,170 @@
+package core.page_factory;
+
+import core.page_source.SnapshotLocatorEngine;
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.PageFactory;
+import org.openqa.selenium.support.pagefactory.Annotations;
+import org.openqa.selenium.support.pagefactory.DefaultElementLocatorFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CachingFieldDecoratorTest {
+
+    private final AtomicInteger finds = new AtomicInteger();
+    private final AtomicInteger staleClicks = new AtomicInteger();
+    private final List<By> lookups = new ArrayList<>();
+
+    //java-client 7.4.1 can not read @AndroidFindBy on JDK 16+, the Selenium factory builds the same By.id
+    public static class SamplePage {
+        @FindBy(id = "com.zoomcar.debug:id/button_find_cars")
+        private WebElement findCarsButton;
+
+        @FindBy(id = "com.zoomcar.debug:id/image")
+        private List<WebElement> images;
+
+        @FindBy(xpath = "//android.widget.TextView[@text='BANGALORE']")
+        private WebElement bangalore;
+
+        @FindBy(xpath = "//android.widget.TextView[@text='PUNE']")
+        private WebElement pune;
+    }
+
+    private final SearchContext driver = new SearchContext() {
+        @Override
+        public List<WebElement> findElements(By by) {
+            finds.incrementAndGet();
+            return Arrays.asList(element(), element());
+        }
+
+        @Override
+        public WebElement findElement(By by) {
+            finds.incrementAndGet();
+            lookups.add(by);
+            return element();
+        }
+    };
+
+    private WebElement element() {
+        return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebElement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("click") && staleClicks.getAndDecrement() > 0) {
+                        throw new StaleElementReferenceException("element is not attached to the page document");
+                    }
+                    return method.getName().equals("getText") ? "FIND CARS" : null;
+                });
+    }
+
+    private CachingFieldDecorator newDecorator() {
+        return new CachingFieldDecorator(new DefaultElementLocatorFactory(driver), new ElementCache(driver));
+    }
+
+    private CachingFieldDecorator newSnapshotDecorator() {
+        InputStream stream = getClass().getResourceAsStream("/page_source/home_page.xml");
+        String pageSource;
+        try (Scanner scanner = new Scanner(stream, "UTF-8").useDelimiter("\\A")) {
+            pageSource = scanner.next();
+        }
+        ElementCache cache = new ElementCache(driver, new SnapshotLocatorEngine(() -> pageSource, driver));
+        return new CachingFieldDecorator(new DefaultElementLocatorFactory(driver), cache,
+                field -> new Annotations(field).buildBy());
+    }
+
+    @BeforeMethod
+    public void resetCounters() {
+        finds.set(0);
+        staleClicks.set(0);
+        lookups.clear();
+    }
+
+    @Test
+    public void repeatedCallsOnTheSameScreenFindOnce() {
+        SamplePage page = new SamplePage();
+        CachingFieldDecorator decorator = newDecorator();
+        PageFactory.initElements(decorator, page);
+
+        page.findCarsButton.click();
+        Assert.assertEquals(page.findCarsButton.getText(), "FIND CARS");
+        page.findCarsButton.click();
+
+        Assert.assertEquals(finds.get(), 1);
+        Assert.assertEquals(decorator.getCache().getHits(), 2);
+        Assert.assertEquals(decorator.getCache().getMisses(), 1);
+        Assert.assertTrue(page.findCarsButton.toString().contains("button_find_cars"));
+        Assert.assertEquals(finds.get(), 1, "toString must not find the element");
+    }
+
+    @Test
+    public void staleElementIsFoundAgainAndTheCallRetried() {
+        SamplePage page = new SamplePage();
+        CachingFieldDecorator decorator = newDecorator();
+        PageFactory.initElements(decorator, page);
+        page.findCarsButton.getText();
+
+        staleClicks.set(1);
+        page.findCarsButton.click();
+
+        Assert.assertEquals(finds.get(), 2);
+        Assert.assertEquals(decorator.getCache().getStaleRetries(), 1);
+    }
+
+    @Test
+    public void screenTransitionInvalidatesCachedElements() {
+        SamplePage page = new SamplePage();
+        PageFactory.initElements(newDecorator(), page);
+        page.findCarsButton.click();
+
+        ElementCache.markScreenTransition(driver);
+        page.findCarsButton.click();
+        page.findCarsButton.click();
+
+        Assert.assertEquals(finds.get(), 2);
+    }
+
+    @Test
+    public void listsAreNotCached() {
+        SamplePage page = new SamplePage();
+        PageFactory.initElements(newDecorator(), page);
+
+        Assert.assertEquals(page.images.size(), 2);
+        Assert.assertEquals(page.images.size(), 2);
+        Assert.assertEquals(finds.get(), 2);
+    }
+
+    @Test
+    public void xpathFieldsAreFoundByTheSnapshotNodeId() {
+        SamplePage page = new SamplePage();
+        CachingFieldDecorator decorator = newSnapshotDecorator();
+        PageFactory.initElements(decorator, page);
+
+        page.bangalore.click();
+        page.findCarsButton.click();
+
+        Assert.assertEquals(lookups, Arrays.asList(By.id("com.zoomcar.debug:id/text_city"),
+                By.id("com.zoomcar.debug:id/button_find_cars")));
+        Assert.assertEquals(decorator.getCache().getSnapshotEngine().getServerRoundTrips(), 2,
+                "one page source and one lookup");
+    }
+
+    @Test
+    public void xpathMissingFromTheSnapshotIsAskedOnTheServer() {
+        SamplePage page = new SamplePage();
+        PageFactory.initElements(newSnapshotDecorator(), page);
+
+        page.pune.click();
+
+        Assert.assertEquals(lookups, Arrays.asList(By.xpath("//android.widget.TextView[@text='PUNE']")));
+    }
+}
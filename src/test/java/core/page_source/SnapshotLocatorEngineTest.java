@@ -0,0 +1,170 @@
+package core.page_source;
+
+import io.appium.java_client.MobileBy;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+public class SnapshotLocatorEngineTest {
+
+    private static final String packageName = "com.zoomcar.debug";
+
+    //locators of HomePage and CitySelectionPage
+    private static final By[] pageLocators = {
+            By.id(packageName + ":id/location_info_container"),
+            By.id(packageName + ":id/layout_start_date_time_container"),
+            By.id(packageName + ":id/layout_end_date_time_container"),
+            By.id(packageName + ":id/button_find_cars"),
+            By.id(packageName + ":id/text_login_signup"),
+            MobileBy.AccessibilityId("Navigate up"),
+            By.id(packageName + ":id/image"),
+            By.xpath("//android.widget.TextView[@text='BANGALORE']"),
+            By.id(packageName + ":id/image_close")
+    };
+
+    private String pageSource;
+    private final List<By> serverLookups = new ArrayList<>();
+
+    private final SearchContext server = new SearchContext() {
+        @Override
+        public List<WebElement> findElements(By by) {
+            serverLookups.add(by);
+            return Collections.emptyList();
+        }
+
+        @Override
+        public WebElement findElement(By by) {
+            serverLookups.add(by);
+            return null;
+        }
+    };
+
+    @BeforeClass
+    public void loadPageSource() {
+        InputStream stream = getClass().getResourceAsStream("/page_source/home_page.xml");
+        try (Scanner scanner = new Scanner(stream, "UTF-8").useDelimiter("\\A")) {
+            pageSource = scanner.next();
+        }
+    }
+
+    @Test
+    public void evaluatesAllPageLocatorsWithOneRoundTrip() {
+        SnapshotLocatorEngine engine = new SnapshotLocatorEngine(() -> pageSource, server);
+        Map<By, List<SnapshotElement>> found = engine.findAll(pageLocators);
+
+        for (By by : pageLocators) {
+            Assert.assertFalse(found.get(by).isEmpty(), "Nothing found for " + by);
+        }
+        Assert.assertEquals(found.get(By.id(packageName + ":id/image")).size(), 4);
+        Assert.assertEquals(engine.getServerRoundTrips(), 1);
+        //one findElement per locator would have taken pageLocators.length round trips
+        Assert.assertTrue(serverLookups.isEmpty());
+    }
+
+    @Test
+    public void readsElementStateFromSnapshot() {
+        SnapshotLocatorEngine engine = new SnapshotLocatorEngine(() -> pageSource, server);
+        SnapshotElement findCars = engine.find(By.id("button_find_cars"));
+
+        Assert.assertEquals(findCars.getText(), "FIND CARS");
+        Assert.assertFalse(findCars.isEnabled());
+        Assert.assertTrue(findCars.isDisplayed());
+        Assert.assertEquals(findCars.getBounds().getWidth(), 996);
+        Assert.assertEquals(findCars.getBounds().getHeight(), 126);
+        Assert.assertEquals(engine.find(By.className("android.widget.ImageButton")).getContentDesc(), "Navigate up");
+        Assert.assertEquals(engine.findAll(By.xpath("//androidx.recyclerview.widget.RecyclerView/*")).size(), 4);
+        Assert.assertNull(engine.find(By.id("not_on_screen")));
+    }
+
+    @Test
+    public void resolvesWithTheCheapestServerLocator() {
+        SnapshotLocatorEngine engine = new SnapshotLocatorEngine(() -> pageSource, server);
+        engine.resolve(By.xpath("//android.widget.TextView[@text='BANGALORE']"));
+        engine.resolve(By.xpath("//android.widget.ImageButton[@content-desc='Navigate up']"));
+        engine.resolve(By.xpath("//android.widget.ImageView[@resource-id='" + packageName + ":id/image']"));
+        By uiSelector = MobileBy.AndroidUIAutomator("new UiSelector().text(\"BANGALORE\")");
+        engine.resolve(uiSelector);
+
+        Assert.assertEquals(serverLookups.get(0), By.id(packageName + ":id/text_city"));
+        Assert.assertEquals(serverLookups.get(1), MobileBy.AccessibilityId("Navigate up"));
+        Assert.assertTrue(serverLookups.get(2).toString().startsWith("By.xpath: /hierarchy/"));
+        Assert.assertEquals(serverLookups.get(3), uiSelector);
+        Assert.assertEquals(engine.getServerRoundTrips(), 5);
+    }
+
+    private WebElement pageObjectElement(By by, int[] calls) {
+        return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebElement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("toString")) {
+                        return "Located by " + by;
+                    }
+                    calls[0]++;
+                    switch (method.getName()) {
+                        case "getText":
+                        case "getAttribute":
+                            return "";
+                        case "getRect":
+                            return new Rectangle(0, 0, 10, 10);
+                        default:
+                            return true;
+                    }
+                });
+    }
+
+    @Test
+    public void bulkStateOfAFormTakesOneRoundTrip() {
+        int[] perAttributeCalls = {0};
+        List<WebElement> form = new ArrayList<>();
+        for (By by : pageLocators) {
+            form.add(pageObjectElement(by, perAttributeCalls));
+        }
+        for (WebElement element : form) {
+            ElementState.read(element);
+        }
+        int perAttributeRoundTrips = perAttributeCalls[0];
+
+        perAttributeCalls[0] = 0;
+        SnapshotLocatorEngine engine = new SnapshotLocatorEngine(() -> pageSource, server);
+        List<ElementState> states = engine.getStates(form);
+
+        Assert.assertEquals(perAttributeRoundTrips, pageLocators.length * 6);
+        Assert.assertEquals(perAttributeCalls[0], 0);
+        Assert.assertEquals(engine.getServerRoundTrips(), 1);
+        ElementState findCars = states.get(3);
+        Assert.assertEquals(findCars.getText(), "FIND CARS");
+        Assert.assertFalse(findCars.isEnabled());
+        Assert.assertFalse(findCars.isChecked());
+        Assert.assertFalse(findCars.isCheckable());
+        Assert.assertTrue(findCars.isDisplayed());
+        Assert.assertEquals(findCars.getBounds(), new Rectangle(42, 651, 126, 996));
+    }
+
+    @Test
+    public void locatorsTheSnapshotCanNotEvaluateAreReadFromTheServer() {
+        int[] calls = {0};
+        By uiSelector = MobileBy.AndroidUIAutomator("new UiSelector().text(\"BANGALORE\")");
+        SnapshotLocatorEngine engine = new SnapshotLocatorEngine(() -> pageSource, server);
+        List<ElementState> states = engine.getStates(Arrays.asList(
+                pageObjectElement(By.id("text_login_signup"), calls), pageObjectElement(uiSelector, calls)));
+        Map<By, ElementState> byLocator = engine.getStates(By.id("text_city"), By.id("not_on_screen"));
+
+        Assert.assertEquals(states.get(0).getText(), "Login / Sign up");
+        Assert.assertTrue(states.get(1).isPresent());
+        Assert.assertEquals(calls[0], 6);
+        Assert.assertEquals(byLocator.get(By.id("text_city")).getText(), "BANGALORE");
+        Assert.assertFalse(byLocator.get(By.id("not_on_screen")).isPresent());
+    }
+}
@@ -0,0 +1,62 @@
+package core.port_manager;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+public class PortAllocatorTest {
+
+    @Test
+    public void leasesDoNotOverlapAndAreReusedAfterRelease() throws Exception {
+        PortAllocator allocator = new PortAllocator(Files.createTempDirectory("ports").toFile(), 10);
+        PortLease first = allocator.lease();
+        PortLease second = allocator.lease();
+        Set<Integer> ports = new HashSet<>();
+        for (PortLease lease : new PortLease[]{first, second}) {
+            ports.add(lease.getSystemPort());
+            ports.add(lease.getChromedriverPort());
+            ports.add(lease.getMjpegServerPort());
+        }
+        Assert.assertEquals(ports.size(), 6);
+
+        first.close();
+        PortLease third = allocator.lease();
+        Assert.assertEquals(third.getSlot(), first.getSlot());
+        second.close();
+        third.close();
+    }
+
+    @Test
+    public void slotLockedByAnotherAllocatorIsSkipped() throws Exception {
+        File lockDir = Files.createTempDirectory("ports").toFile();
+        PortAllocator one = new PortAllocator(lockDir, 10);
+        PortAllocator other = new PortAllocator(lockDir, 10);
+        PortLease lease = one.lease();
+        PortLease otherLease = other.lease();
+
+        Assert.assertNotEquals(otherLease.getSlot(), lease.getSlot());
+        lease.close();
+        otherLease.close();
+    }
+
+    @Test
+    public void boundPortIsSkipped() throws Exception {
+        PortAllocator allocator = new PortAllocator(Files.createTempDirectory("ports").toFile(), 10);
+        PortLease probe = allocator.lease();
+        int slot = probe.getSlot();
+        int systemPort = probe.getSystemPort();
+        probe.close();
+        try (ServerSocket bound = new ServerSocket(systemPort, 1, InetAddress.getLoopbackAddress())) {
+            PortLease lease = allocator.lease();
+            Assert.assertNotEquals(lease.getSlot(), slot);
+            Assert.assertNotEquals(lease.getSystemPort(), bound.getLocalPort());
+            lease.close();
+        }
+    }
+}
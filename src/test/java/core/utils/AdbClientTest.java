@@ -0,0 +1,74 @@
+package core.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+
+public class AdbClientTest {
+
+    private FakeAdbServer server;
+    private AdbClient client;
+
+    @BeforeMethod
+    public void startServer() throws IOException {
+        server = new FakeAdbServer(command -> command.equals("getprop ro.build.version.sdk") ? "30\n" : "");
+        client = new AdbClient("127.0.0.1", server.getPort());
+    }
+
+    @AfterMethod
+    public void stopServer() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void listsDevicesWithTheirState() throws IOException {
+        Map<String, String> devices = client.devices();
+
+        Assert.assertEquals(devices.size(), 2);
+        Assert.assertEquals(devices.get(FakeAdbServer.SERIAL), "device");
+        Assert.assertEquals(devices.get("R58M"), "unauthorized");
+    }
+
+    @Test
+    public void runsShellCommandsOnTheSelectedDevice() throws IOException {
+        Assert.assertEquals(client.shell(FakeAdbServer.SERIAL, "getprop ro.build.version.sdk"), "30\n");
+        Assert.assertEquals(new String(client.exec(null, "getprop ro.build.version.sdk")), "30\n");
+        try {
+            client.shell("R59X", "getprop");
+            Assert.fail("expected a FAIL for an unknown device");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("device 'R59X' not found"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void syncSessionReusesOneConnectionForManyTransfers() throws IOException {
+        byte[] apk = new byte[200 * 1024 + 17];
+        new Random(7).nextBytes(apk);
+        try (AdbClient.SyncSession sync = client.openSync(FakeAdbServer.SERIAL)) {
+            sync.push(new ByteArrayInputStream(apk), "/data/local/tmp/app.apk", 0644, 0);
+            Assert.assertEquals(sync.size("/data/local/tmp/app.apk"), apk.length);
+            Assert.assertEquals(sync.size("/data/local/tmp/missing"), -1);
+
+            ByteArrayOutputStream pulled = new ByteArrayOutputStream();
+            Assert.assertEquals(sync.pull("/data/local/tmp/app.apk", pulled), apk.length);
+            Assert.assertEquals(pulled.toByteArray(), apk);
+            try {
+                sync.pull("/data/local/tmp/missing", new ByteArrayOutputStream());
+                Assert.fail("expected a FAIL for a missing file");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage().contains("No such file"), e.getMessage());
+            }
+            Assert.assertEquals(sync.size("/data/local/tmp/app.apk"), apk.length);
+        }
+        Assert.assertEquals(client.getConnectionCount(), 1);
+        Assert.assertEquals(server.connections.get(), 1);
+    }
+}
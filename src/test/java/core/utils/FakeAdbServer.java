@@ -0,0 +1,166 @@
+package core.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A local adb server with one device and an in-memory file system, speaking enough of the smart
+ * socket and sync protocols for {@link AdbClient}.
+ */
+class FakeAdbServer implements AutoCloseable {
+
+    static final String SERIAL = "emulator-5554";
+
+    final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    final AtomicInteger connections = new AtomicInteger();
+    private final ServerSocket serverSocket;
+    private final Function<String, String> shell;
+
+    FakeAdbServer(Function<String, String> shell) throws IOException {
+        this.shell = shell;
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    Thread handler = new Thread(() -> handle(socket));
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket) {
+            DataInputStream in = new DataInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            String request = readRequest(in);
+            if (request.equals("host:devices")) {
+                out.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+                writeLengthPrefixed(out, SERIAL + "\tdevice\nR58M\tunauthorized\n");
+                return;
+            }
+            if (!request.equals("host:transport:" + SERIAL) && !request.equals("host:transport-any")) {
+                out.write("FAIL".getBytes(StandardCharsets.US_ASCII));
+                writeLengthPrefixed(out, "device '" + request.substring(request.lastIndexOf(':') + 1) + "' not found");
+                return;
+            }
+            out.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+            String service = readRequest(in);
+            out.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+            if (service.startsWith("shell:") || service.startsWith("exec:")) {
+                out.write(shell.apply(service.substring(service.indexOf(':') + 1)).getBytes(StandardCharsets.UTF_8));
+            } else if (service.equals("sync:")) {
+                sync(in, out);
+            }
+        } catch (IOException e) {
+            //client went away
+        }
+    }
+
+    private void sync(DataInputStream in, OutputStream out) throws IOException {
+        while (true) {
+            String id = readId(in);
+            int length = readInt(in);
+            byte[] data = new byte[length];
+            if (!id.equals("DONE") && !id.equals("QUIT")) {
+                in.readFully(data);
+            }
+            String path = new String(data, StandardCharsets.UTF_8);
+            if (id.equals("QUIT")) {
+                return;
+            } else if (id.equals("SEND")) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                while (true) {
+                    String chunkId = readId(in);
+                    int chunkLength = readInt(in);
+                    if (chunkId.equals("DONE")) {
+                        break;
+                    }
+                    byte[] chunk = new byte[chunkLength];
+                    in.readFully(chunk);
+                    content.write(chunk);
+                }
+                files.put(path.substring(0, path.lastIndexOf(',')), content.toByteArray());
+                writeHeader(out, "OKAY", 0);
+            } else if (id.equals("RECV")) {
+                byte[] content = files.get(path);
+                if (content == null) {
+                    byte[] message = "No such file or directory".getBytes(StandardCharsets.UTF_8);
+                    writeHeader(out, "FAIL", message.length);
+                    out.write(message);
+                    continue;
+                }
+                for (int offset = 0; offset < content.length; offset += 64 * 1024) {
+                    int chunk = Math.min(64 * 1024, content.length - offset);
+                    writeHeader(out, "DATA", chunk);
+                    out.write(content, offset, chunk);
+                }
+                writeHeader(out, "DONE", 0);
+            } else if (id.equals("STAT")) {
+                byte[] content = files.get(path);
+                writeHeader(out, "STAT", content == null ? 0 : 0100644);
+                writeInt(out, content == null ? 0 : content.length);
+                writeInt(out, 0);
+            }
+        }
+    }
+
+    private static String readRequest(DataInputStream in) throws IOException {
+        byte[] length = new byte[4];
+        in.readFully(length);
+        byte[] payload = new byte[Integer.parseInt(new String(length, StandardCharsets.US_ASCII), 16)];
+        in.readFully(payload);
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLengthPrefixed(OutputStream out, String message) throws IOException {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        out.write(String.format("%04x", payload.length).getBytes(StandardCharsets.US_ASCII));
+        out.write(payload);
+    }
+
+    private static String readId(DataInputStream in) throws IOException {
+        byte[] id = new byte[4];
+        in.readFully(id);
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+
+    private static int readInt(DataInputStream in) throws IOException {
+        return Integer.reverseBytes(in.readInt());
+    }
+
+    private static void writeHeader(OutputStream out, String id, int length) throws IOException {
+        out.write(id.getBytes(StandardCharsets.US_ASCII));
+        writeInt(out, length);
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(new byte[]{(byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24)});
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
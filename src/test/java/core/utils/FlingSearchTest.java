@@ -0,0 +1,147 @@
+package core.utils;
+
+import core.page_source.SnapshotLocatorEngine;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Rectangle;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.function.IntFunction;
+
+public class FlingSearchTest {
+
+    private static final int ROWS_PER_SCREEN = 5;
+
+    /**
+     * A list showing five rows per screen. A step moves it by four rows, a fling by fifteen.
+     */
+    private static class FakeList implements FlingSearch.Scroller {
+        private final String id;
+        private final int size;
+        private final IntFunction<String> rowText;
+        private int firstRow = 0;
+        private int flings = 0;
+        private int steps = 0;
+
+        FakeList(String id, int size, IntFunction<String> rowText) {
+            this.id = id;
+            this.size = size;
+            this.rowText = rowText;
+        }
+
+        String pageSource() {
+            StringBuilder xml = new StringBuilder("<hierarchy><androidx.recyclerview.widget.RecyclerView "
+                    + "class=\"androidx.recyclerview.widget.RecyclerView\" resource-id=\"" + id
+                    + "\" bounds=\"[0,0][1080,1000]\">");
+            for (int row = firstRow; row < Math.min(size, firstRow + ROWS_PER_SCREEN); row++) {
+                int top = (row - firstRow) * 200;
+                xml.append("<android.widget.TextView class=\"android.widget.TextView\" text=\"")
+                        .append(rowText.apply(row)).append("\" bounds=\"[0,").append(top)
+                        .append("][1080,").append(top + 200).append("]\"/>");
+            }
+            return xml.append("</androidx.recyclerview.widget.RecyclerView></hierarchy>").toString();
+        }
+
+        private void move(int rows) {
+            firstRow = Math.max(0, Math.min(size - ROWS_PER_SCREEN, firstRow + rows));
+        }
+
+        @Override
+        public void fling(Rectangle list, boolean forward) {
+            flings++;
+            move(forward ? 15 : -15);
+        }
+
+        @Override
+        public void step(Rectangle list, boolean forward) {
+            steps++;
+            move(forward ? ROWS_PER_SCREEN - 1 : -(ROWS_PER_SCREEN - 1));
+        }
+    }
+
+    private static final String SCREEN = "emulator-5554/.CitySelectionActivity";
+
+    private ScrollSearch.Result search(FakeList list, String text) {
+        return search(SCREEN, list, text);
+    }
+
+    private ScrollSearch.Result search(String screen, FakeList list, String text) {
+        FlingSearch flingSearch = new FlingSearch(new SnapshotLocatorEngine(list::pageSource, null), screen,
+                By.id(list.id), list);
+        return flingSearch.search(FlingSearch.byAttribute("text", text), text);
+    }
+
+    private static String city(int row) {
+        return String.format("CITY %03d", row);
+    }
+
+    @Test
+    public void jumpsToTheRegionOfATargetInASortedList() {
+        FakeList list = new FakeList("cities", 200, FlingSearchTest::city);
+        ScrollSearch.Result result = search(list, city(83));
+
+        Assert.assertTrue(result.isFound());
+        //UiScrollable would step through the list one screen at a time
+        int stepScrolls = 83 / (ROWS_PER_SCREEN - 1);
+        Assert.assertTrue(result.getSwipes() < stepScrolls,
+                result.getSwipes() + " moves, step scrolling takes " + stepScrolls);
+    }
+
+    @Test
+    public void measuresTheExtentWhenTheTargetIsNotInTheList() {
+        FakeList list = new FakeList("cities", 200, FlingSearchTest::city);
+        ScrollSearch.Result result = search(list, "ZANZIBAR");
+
+        Assert.assertFalse(result.isFound());
+        Assert.assertEquals(FlingSearch.getKnownExtent(SCREEN, By.id("cities")), 13);
+        Assert.assertEquals(list.steps, 0);
+    }
+
+    @Test
+    public void stepsBackThroughAnUnsortedListSoNoRowIsSkipped() {
+        FakeList list = new FakeList("cars", 60, row -> "CAR " + ((row * 37) % 60));
+        //row 10 is skipped by the first fling
+        ScrollSearch.Result result = search(list, "CAR " + ((10 * 37) % 60));
+
+        Assert.assertTrue(result.isFound());
+        Assert.assertTrue(list.steps > 0);
+        Assert.assertEquals(FlingSearch.getKnownExtent(SCREEN, By.id("cars")), 4);
+    }
+
+    @Test
+    public void shortListsAreStepScrolledOnceTheirExtentIsKnown() {
+        FakeList list = new FakeList("offers", 20, row -> "OFFER " + row);
+        Assert.assertFalse(search(list, "OFFER 99").isFound());
+        Assert.assertEquals(FlingSearch.getKnownExtent(SCREEN, By.id("offers")), 1);
+
+        list.firstRow = 0;
+        list.flings = 0;
+        Assert.assertTrue(search(list, "OFFER 17").isFound());
+        Assert.assertEquals(list.flings, 0);
+    }
+
+    @Test
+    public void extentsAreNotSharedBetweenScreens() {
+        FakeList offers = new FakeList("list", 20, row -> "OFFER " + row);
+        Assert.assertFalse(search(offers, "OFFER 99").isFound());
+        Assert.assertEquals(FlingSearch.getKnownExtent(SCREEN, By.id("list")), 1);
+
+        //same list id, long content on another screen: flinging instead of step scrolling it
+        FakeList cities = new FakeList("list", 200, FlingSearchTest::city);
+        ScrollSearch.Result result = search("emulator-5554/.SearchActivity", cities, city(150));
+
+        Assert.assertTrue(result.isFound());
+        Assert.assertTrue(cities.flings > 0);
+        Assert.assertEquals(FlingSearch.getKnownExtent(SCREEN, By.id("list")), 1);
+    }
+
+    @Test
+    public void findsTextsContainingBothQuotes() {
+        FakeList list = new FakeList("terminals", 20,
+                row -> row == 12 ? "O&apos;HARE &quot;T1&quot;" : "GATE " + row);
+        ScrollSearch.Result result = search(list, "O'HARE \"T1\"");
+
+        Assert.assertTrue(result.isFound());
+        Assert.assertEquals(FlingSearch.xpathLiteral("O'HARE \"T1\""), "concat('O', \"'\", 'HARE \"T1\"')");
+    }
+}
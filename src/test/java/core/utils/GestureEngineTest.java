@@ -0,0 +1,134 @@
+package core.utils;
+
+import core.device_manager.DevicePropertyCache;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.ScreenOrientation;
+import org.openqa.selenium.interactions.Interactive;
+import org.openqa.selenium.interactions.Sequence;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GestureEngineTest {
+
+    private final List<Sequence> performed = new ArrayList<>();
+    private final AtomicInteger sizeCalls = new AtomicInteger();
+    private final AtomicInteger orientationCalls = new AtomicInteger();
+
+    private final Interactive performer = new Interactive() {
+        @Override
+        public void perform(Collection<Sequence> actions) {
+            performed.addAll(actions);
+        }
+
+        @Override
+        public void resetInputState() {
+        }
+    };
+
+    private GestureEngine newEngine(int velocity) {
+        return new GestureEngine(performer, () -> {
+            sizeCalls.incrementAndGet();
+            return new Dimension(1080, 2154);
+        }, () -> {
+            orientationCalls.incrementAndGet();
+            return ScreenOrientation.PORTRAIT;
+        }, orientation -> {
+        }, DevicePropertyCache.forDevice(UUID.randomUUID().toString()), velocity);
+    }
+
+    @BeforeMethod
+    public void reset() {
+        performed.clear();
+        sizeCalls.set(0);
+        orientationCalls.set(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> actionsOf(Sequence sequence) {
+        return (List<Map<String, Object>>) sequence.encode().get("actions");
+    }
+
+    @Test
+    public void viewportIsFetchedOncePerSession() {
+        GestureEngine engine = newEngine(2500);
+        for (int i = 0; i < 5; i++) {
+            engine.swipeByFraction(0.5, 0.8, 0.5, 0.2);
+        }
+        Assert.assertEquals(sizeCalls.get(), 1);
+        Assert.assertEquals(orientationCalls.get(), 1);
+        Assert.assertEquals(performed.size(), 5);
+
+        engine.rotate(ScreenOrientation.LANDSCAPE);
+        Assert.assertEquals(engine.getViewport(), new Dimension(2154, 1080));
+        Assert.assertEquals(sizeCalls.get(), 1);
+    }
+
+    @Test
+    public void currentOrientationIsAlwaysAskedForAndRefreshesTheCache() {
+        GestureEngine engine = newEngine(2500);
+        engine.getOrientation();
+        engine.getOrientation();
+        Assert.assertEquals(orientationCalls.get(), 1);
+
+        Assert.assertEquals(engine.getCurrentOrientation(), ScreenOrientation.PORTRAIT);
+        Assert.assertEquals(engine.getCurrentOrientation(), ScreenOrientation.PORTRAIT);
+        Assert.assertEquals(orientationCalls.get(), 3);
+        engine.getOrientation();
+        Assert.assertEquals(orientationCalls.get(), 3);
+    }
+
+    @Test
+    public void swipeIsOneSequenceTimedByVelocity() {
+        GestureEngine engine = newEngine(2000);
+        engine.swipe(new Point(540, 1700), new Point(540, 500));
+
+        List<Map<String, Object>> actions = actionsOf(performed.get(0));
+        Assert.assertEquals(actions.size(), 5);
+        Assert.assertEquals(actions.get(0).get("type"), "pointerMove");
+        Assert.assertEquals(actions.get(1).get("type"), "pointerDown");
+        Assert.assertEquals(actions.get(2).get("duration"), 600L);
+        Assert.assertEquals(actions.get(2).get("y"), 500);
+        Assert.assertEquals(actions.get(3).get("type"), "pause");
+        Assert.assertEquals(actions.get(4).get("type"), "pointerUp");
+
+        Assert.assertTrue(newEngine(8000).getSwipeDuration(new Point(0, 0), new Point(0, 400)).toMillis() >= 100);
+    }
+
+    @Test
+    public void flingReleasesWhileMovingAndHeldSwipePausesFirst() {
+        GestureEngine engine = newEngine(2000);
+        engine.fling(new Point(540, 1700), new Point(540, 500));
+        engine.swipe(new Point(540, 1700), new Point(540, 500), Duration.ofMillis(500));
+
+        List<Map<String, Object>> fling = actionsOf(performed.get(0));
+        Assert.assertEquals(fling.size(), 4);
+        Assert.assertEquals(fling.get(3).get("type"), "pointerUp");
+
+        List<Map<String, Object>> held = actionsOf(performed.get(1));
+        Assert.assertEquals(held.get(1).get("type"), "pointerDown");
+        Assert.assertEquals(held.get(2).get("type"), "pause");
+        Assert.assertEquals(held.get(2).get("duration"), 500L);
+        Assert.assertEquals(held.get(3).get("duration"), 600L);
+        Assert.assertEquals(held.get(4).get("type"), "pause");
+        Assert.assertEquals(held.get(5).get("type"), "pointerUp");
+    }
+
+    @Test
+    public void doubleTapPressesTwiceInOneSequence() {
+        newEngine(2500).doubleTap(new Point(100, 300));
+
+        Assert.assertEquals(performed.size(), 1);
+        long downs = actionsOf(performed.get(0)).stream().filter(a -> "pointerDown".equals(a.get("type"))).count();
+        Assert.assertEquals(downs, 2);
+    }
+}
@@ -0,0 +1,69 @@
+package core.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+public class LogcatCollectorTest {
+
+    private static LogcatCollector collectorWith(int capacity, int lines) {
+        LogcatCollector collector = new LogcatCollector("emulator-5554", capacity);
+        for (int i = 0; i < lines; i++) {
+            collector.append("line " + i);
+        }
+        return collector;
+    }
+
+    @Test
+    public void headAndTailHonourN() {
+        LogcatCollector collector = collectorWith(100, 30);
+
+        Assert.assertEquals(collector.head(2), Arrays.asList("line 0", "line 1"));
+        Assert.assertEquals(collector.tail(3), Arrays.asList("line 27", "line 28", "line 29"));
+        Assert.assertEquals(collector.tail(50).size(), 30);
+    }
+
+    @Test
+    public void sinceReturnsOnlyLinesAfterTheCheckpoint() {
+        LogcatCollector collector = collectorWith(100, 5);
+        long checkpoint = collector.checkpoint();
+        collector.append("I/LoginActivity: login clicked");
+        collector.append("E/Network: timeout");
+
+        Assert.assertEquals(collector.since(checkpoint).size(), 2);
+        Assert.assertEquals(collector.since(checkpoint, line -> line.startsWith("E/")),
+                Arrays.asList("E/Network: timeout"));
+        Assert.assertTrue(collector.since(collector.checkpoint()).isEmpty());
+    }
+
+    @Test
+    public void ringKeepsTheNewestLines() {
+        LogcatCollector collector = collectorWith(10, 25);
+
+        Assert.assertEquals(collector.getDroppedLines(), 15);
+        Assert.assertEquals(collector.head(1), Arrays.asList("line 15"));
+        Assert.assertEquals(collector.tail(1), Arrays.asList("line 24"));
+        //a checkpoint older than the buffer starts at the oldest line kept
+        Assert.assertEquals(collector.since(3).size(), 10);
+    }
+
+    @Test
+    public void restartContinuesFromTheLastEntryWithoutRepeatingIt() {
+        LogcatCollector collector = new LogcatCollector("emulator-5554", 100);
+        Assert.assertEquals(collector.resumeCommand(),
+                Arrays.asList("adb", "-s", "emulator-5554", "logcat", "-v", "threadtime"));
+        collector.append("10-18 10:00:00.100  1200  1200 I ActivityManager: Start proc 4321:com.zoomcar.debug/u0a12");
+        collector.append("10-18 10:00:00.250  4321  4321 D Login: shown");
+
+        Assert.assertEquals(collector.resumeCommand(), Arrays.asList("adb", "-s", "emulator-5554", "logcat",
+                "-v", "threadtime", "-T", "10-18 10:00:00.250"));
+        collector.append("10-18 10:00:00.250  4321  4321 D Login: shown");
+        collector.append("10-18 10:00:00.250  4321  4333 D Network: request sent");
+        collector.append("10-18 10:00:01.000  4321  4321 D Login: clicked");
+
+        Assert.assertEquals(collector.tail(10).size(), 4);
+        Assert.assertEquals(collector.tail(2), Arrays.asList("10-18 10:00:00.250  4321  4333 D Network: request sent",
+                "10-18 10:00:01.000  4321  4321 D Login: clicked"));
+    }
+}
@@ -0,0 +1,74 @@
+package core.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class ProcessExecutorTest {
+
+    @Test
+    public void capturesStdoutStderrAndExitCode() throws IOException {
+        List<String> errors = new CopyOnWriteArrayList<>();
+        ProcessExecutor.Result result = ProcessExecutor.shell("echo out; echo err >&2; exit 3")
+                .onStderrLine(errors::add)
+                .execute();
+
+        Assert.assertEquals(result.getStdout(), "out\n");
+        Assert.assertEquals(result.getStderr(), "err\n");
+        Assert.assertEquals(result.getExitCode(), 3);
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertEquals(errors.size(), 1);
+    }
+
+    @Test
+    public void drainsBothStreamsPastThePipeBuffer() throws IOException {
+        //a megabyte on stderr blocks the child if only stdout is read
+        ProcessExecutor.Result result = ProcessExecutor.shell(
+                "head -c 1048576 /dev/zero | tr '\\0' 'e' >&2; head -c 1048576 /dev/zero | tr '\\0' 'o'")
+                .timeout(10000)
+                .maxBufferedChars(4096)
+                .execute();
+
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertTrue(result.isTruncated());
+        Assert.assertEquals(result.getStdout(), "");
+    }
+
+    @Test
+    public void killsTheCommandAfterTheTimeout() throws IOException {
+        ProcessExecutor.Result result = ProcessExecutor.shell("echo started; sleep 30").timeout(300).execute();
+
+        Assert.assertTrue(result.isTimedOut());
+        Assert.assertEquals(result.getStdout(), "started\n");
+        Assert.assertTrue(result.getElapsedMs() < 10000, result.getElapsedMs() + " ms");
+    }
+
+    @Test
+    public void timeoutAlsoKillsBackgroundChildren() throws IOException {
+        ProcessExecutor.Result result = ProcessExecutor.shell("sleep 30 & echo started; wait").timeout(300).execute();
+
+        Assert.assertTrue(result.isTimedOut());
+        Assert.assertEquals(result.getStdout(), "started\n");
+        //the orphaned sleep no longer holds the pipe open until the drain timeout
+        Assert.assertTrue(result.getElapsedMs() < 1500, result.getElapsedMs() + " ms");
+    }
+
+    @Test
+    public void cancelStopsARunningCommand() throws IOException {
+        ProcessExecutor.Execution execution = ProcessExecutor.shell("sleep 30").start();
+        execution.cancel();
+        ProcessExecutor.Result result = execution.await();
+
+        Assert.assertTrue(result.isCancelled());
+        Assert.assertFalse(result.isTimedOut());
+        Assert.assertFalse(execution.isAlive());
+    }
+
+    @Test
+    public void executeCommandKeepsReturningStdoutLines() throws IOException {
+        Assert.assertEquals(new CommandUtils().executeCommand("printf 'a\\nb'"), "a\nb\n");
+    }
+}
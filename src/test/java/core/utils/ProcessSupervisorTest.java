@@ -0,0 +1,101 @@
+package core.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+public class ProcessSupervisorTest {
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * A killed grandchild stays a zombie until init reaps it.
+     */
+    private static boolean isRunning(long pid) {
+        try {
+            String stat = new String(Files.readAllBytes(Paths.get("/proc", String.valueOf(pid), "stat")));
+            return stat.charAt(stat.lastIndexOf(')') + 2) != 'Z';
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void killTreeKillsBackgroundGrandchildren() throws IOException, InterruptedException {
+        ProcessSupervisor supervisor = new ProcessSupervisor();
+        Process process = supervisor.track(
+                new ProcessBuilder(Arrays.asList("/bin/sh", "-c", "sleep 30 & sleep 30 & wait")).start(), "sleepers");
+        waitUntil(() -> process.toHandle().descendants().count() == 2);
+        List<ProcessHandle> tree = process.toHandle().descendants().collect(Collectors.toList());
+        Assert.assertEquals(tree.size(), 2);
+
+        Assert.assertTrue(supervisor.killTree(process));
+        for (ProcessHandle child : tree) {
+            waitUntil(() -> !isRunning(child.pid()));
+            Assert.assertFalse(isRunning(child.pid()), "grandchild " + child.pid() + " survived");
+        }
+        waitUntil(() -> supervisor.getTrackedCount() == 0);
+        Assert.assertTrue(supervisor.getStats().contains("sleepers[finished=1"), supervisor.getStats());
+    }
+
+    @Test
+    public void samplesCpuAndMemoryOfTrackedProcesses() throws IOException, InterruptedException {
+        ProcessSupervisor supervisor = new ProcessSupervisor();
+        Process busy = supervisor.track(
+                new ProcessBuilder(Arrays.asList("/bin/sh", "-c", "while :; do :; done")).start(), "busy");
+        Thread.sleep(300);
+        supervisor.sample();
+        supervisor.killTree(busy);
+        waitUntil(() -> supervisor.getTrackedCount() == 0);
+
+        String stats = supervisor.getStats();
+        Assert.assertTrue(stats.matches(".*busy\\[finished=1, cpu ms=[1-9]\\d*, peak rss kb=[1-9]\\d*].*"), stats);
+    }
+
+    @Test
+    public void processIdIsReadWithoutReflection() throws IOException {
+        CommandUtils commandUtils = new CommandUtils();
+        Process process = commandUtils.getProcessForCommand("sleep 30");
+        try {
+            Assert.assertEquals(commandUtils.getProcessId(process), process.pid());
+        } finally {
+            ProcessSupervisor.getInstance().killTree(process);
+        }
+    }
+
+    @Test
+    public void adoptsOnlyNewChildrenMatchingTheFilter() throws IOException, InterruptedException {
+        ProcessSupervisor supervisor = new ProcessSupervisor();
+        Process existing = new ProcessBuilder(Arrays.asList("sleep", "31")).start();
+        Set<Long> before = ProcessSupervisor.childPids();
+        Process server = new ProcessBuilder(Arrays.asList("sleep", "32")).start();
+        Process unrelated = new ProcessBuilder(Arrays.asList("sleep", "33")).start();
+        try {
+            int adopted = supervisor.trackNewChildren(before, child -> child.info().arguments()
+                    .map(arguments -> Arrays.asList(arguments).contains("32")).orElse(true), "server");
+
+            Assert.assertEquals(adopted, 1);
+            Assert.assertEquals(supervisor.getTrackedCount(), 1);
+            supervisor.killTree(server);
+            waitUntil(() -> supervisor.getTrackedCount() == 0);
+            Assert.assertTrue(supervisor.getStats().contains("server[finished=1"), supervisor.getStats());
+        } finally {
+            existing.destroyForcibly();
+            server.destroyForcibly();
+            unrelated.destroyForcibly();
+        }
+    }
+}
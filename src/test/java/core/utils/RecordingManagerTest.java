@@ -0,0 +1,92 @@
+package core.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class RecordingManagerTest {
+
+    @Test
+    public void decodesBase64StraightToAFile() throws Exception {
+        byte[] video = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(video);
+        String base64 = Base64.getMimeEncoder().encodeToString(video);
+        Path target = Files.createTempDirectory("recordings").resolve("login.mp4");
+
+        RecordingManager.decodeBase64(base64, target);
+
+        Assert.assertEquals(Files.readAllBytes(target), video);
+    }
+
+    @Test
+    public void pullsSegmentsInOrderAndRemovesThemFromTheDevice() throws Exception {
+        //ls and rm are answered from the fake server's files
+        try (FakeAdbServer server = new FakeAdbServer(command -> "")) {
+            String prefix = "/sdcard/login_1-";
+            for (int i = 0; i < 12; i++) {
+                server.files.put(prefix + i + ".mp4", ("segment " + i).getBytes());
+            }
+            Path directory = Files.createTempDirectory("recordings");
+            RecordingManager manager = new RecordingManager(FakeAdbServer.SERIAL,
+                    new AdbClient("127.0.0.1", server.getPort()) {
+                        @Override
+                        public String shell(String serial, String command) {
+                            if (command.startsWith("ls ")) {
+                                return server.files.keySet().stream().sorted().collect(Collectors.joining("\n"));
+                            }
+                            if (command.startsWith("rm ")) {
+                                server.files.keySet().removeIf(path -> path.startsWith(prefix));
+                            }
+                            return "";
+                        }
+                    }, directory, 180);
+
+            List<Path> segments = manager.collect("login_1");
+
+            Assert.assertEquals(segments.size(), 12);
+            for (int i = 0; i < 12; i++) {
+                Assert.assertEquals(segments.get(i).getFileName().toString(), "login_1-" + i + ".mp4");
+                Assert.assertEquals(new String(Files.readAllBytes(segments.get(i))), "segment " + i);
+            }
+            Assert.assertTrue(server.files.isEmpty(), Arrays.toString(server.files.keySet().toArray()));
+        }
+    }
+
+    @Test
+    public void stopSignalsOnlyTheScreenrecordOfTheRecording() throws Exception {
+        //a stand-in screenrecord on PATH that records until interrupted
+        Path bin = Files.createTempDirectory("bin");
+        Path fake = bin.resolve("screenrecord");
+        Files.write(fake, "#!/bin/sh\ntouch \"$3\"\nexec sleep 30\n".getBytes());
+        fake.toFile().setExecutable(true);
+        String base = Files.createTempDirectory("sdcard").resolve("login_1").toString();
+        ProcessBuilder shell = new ProcessBuilder();
+        shell.environment().put("PATH", bin + ":" + System.getenv("PATH"));
+        Process other = shell.command("/bin/sh", "-c", "exec screenrecord --time-limit 180 " + base + "-other.mp4").start();
+        Process loop = shell.command("/bin/sh", "-c", RecordingManager.loopScript(base, 180)).start();
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!Files.exists(Paths.get(base + "-0.mp4")) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            shell.command("/bin/sh", "-c", RecordingManager.stopCommand(base)).start().waitFor();
+
+            Assert.assertTrue(loop.waitFor(5, TimeUnit.SECONDS), "recording loop did not stop");
+            Assert.assertFalse(Files.exists(Paths.get(base + "-1.mp4")));
+            Assert.assertTrue(other.isAlive(), "another screenrecord was stopped");
+        } finally {
+            other.destroyForcibly();
+            loop.destroyForcibly();
+        }
+    }
+}
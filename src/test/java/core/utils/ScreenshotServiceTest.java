@@ -0,0 +1,138 @@
+package core.utils;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class ScreenshotServiceTest {
+
+    private static byte[] png(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(360, 640, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, 360, 640);
+        graphics.setColor(Color.DARK_GRAY);
+        for (int y = 0; y < 640; y += 40) {
+            graphics.drawString("Booking summary row " + y, 20, y + 20);
+        }
+        graphics.dispose();
+        //a photo-like area, e.g. a car image, where PNG compresses poorly
+        Random random = new Random(color.getRGB());
+        for (int y = 320; y < 560; y++) {
+            for (int x = 0; x < 360; x++) {
+                image.setRGB(x, y, 0xff000000 | (x * 255 / 360) << 16 | (y % 256) << 8 | random.nextInt(64));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static TakesScreenshot screen(byte[] png) {
+        return new TakesScreenshot() {
+            @Override
+            public <X> X getScreenshotAs(OutputType<X> target) {
+                return target.convertFromPngBytes(png);
+            }
+        };
+    }
+
+    private static long files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void identicalFramesAreWrittenOnce() throws Exception {
+        Path directory = Files.createTempDirectory("screenshots");
+        ScreenshotService service = new ScreenshotService(directory, "png", 16, 0);
+        TakesScreenshot screen = screen(png(Color.WHITE));
+
+        Path first = service.capture(screen, "login").get();
+        Path second = service.capture(screen, "login").get();
+        service.capture(screen(png(Color.YELLOW)), "login").get();
+
+        Assert.assertEquals(second, first);
+        Assert.assertEquals(service.getWrittenCount(), 2);
+        Assert.assertEquals(service.getDuplicateCount(), 1);
+        Assert.assertEquals(files(directory), 2);
+    }
+
+    @Test
+    public void negativeCheckScreenshotsAreRateLimitedPerDriver() throws Exception {
+        Path directory = Files.createTempDirectory("screenshots");
+        ScreenshotService service = new ScreenshotService(directory, "png", 16, 60000);
+        TakesScreenshot screen = screen(png(Color.WHITE));
+        TakesScreenshot otherDevice = screen(png(Color.YELLOW));
+
+        Assert.assertNotNull(service.captureOnNegativeCheck(screen));
+        for (int i = 0; i < 10; i++) {
+            Assert.assertNull(service.captureOnNegativeCheck(screen));
+        }
+        Assert.assertNotNull(service.captureOnNegativeCheck(otherDevice));
+        Assert.assertTrue(service.flush(5000));
+        Assert.assertEquals(service.getRateLimitedCount(), 10);
+        Assert.assertEquals(files(directory), 2);
+    }
+
+    @Test
+    public void failureScreenshotsAreNeverRateLimited() throws Exception {
+        Path directory = Files.createTempDirectory("screenshots");
+        ScreenshotService service = new ScreenshotService(directory, "png", 16, 60000);
+        TakesScreenshot screen = screen(png(Color.WHITE));
+
+        Assert.assertNotNull(service.captureOnNegativeCheck(screen));
+        Assert.assertNotNull(service.captureOnFailure(screen(png(Color.YELLOW))));
+        Assert.assertNotNull(service.captureOnFailure(screen));
+        Assert.assertTrue(service.flush(5000));
+        Assert.assertEquals(service.getRateLimitedCount(), 0);
+        Assert.assertEquals(service.getWrittenCount() + service.getDuplicateCount(), 3);
+    }
+
+    @Test
+    public void jpegOutputIsSmallerAndReadable() throws Exception {
+        Path directory = Files.createTempDirectory("screenshots");
+        ScreenshotService service = new ScreenshotService(directory, "jpeg", 16, 0);
+        byte[] png = png(Color.WHITE);
+
+        Path jpeg = service.capture(screen(png), "summary").get();
+
+        Assert.assertTrue(jpeg.toString().endsWith(".jpg"));
+        Assert.assertTrue(Files.size(jpeg) < png.length, Files.size(jpeg) + " >= " + png.length);
+        Assert.assertEquals(ImageIO.read(jpeg.toFile()).getWidth(), 360);
+    }
+
+    @Test
+    public void fullQueueDropsInsteadOfBlocking() throws Exception {
+        Path directory = Files.createTempDirectory("screenshots");
+        ScreenshotService service = new ScreenshotService(directory, "jpg", 1, 0);
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            frames.add(png(new Color(i * 10, 0, 0)));
+        }
+
+        long start = System.nanoTime();
+        frames.forEach(frame -> service.submit(frame, "burst"));
+        long submitMs = (System.nanoTime() - start) / 1000000;
+
+        Assert.assertTrue(submitMs < 500, "submitting took " + submitMs + " ms");
+        Assert.assertTrue(service.getDroppedCount() > 0);
+        Assert.assertTrue(service.flush(5000));
+        Assert.assertEquals(service.getWrittenCount() + service.getDroppedCount(), 20);
+    }
+}
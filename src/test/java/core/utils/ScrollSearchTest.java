@@ -0,0 +1,110 @@
+package core.utils;
+
+import core.page_source.SnapshotLocatorEngine;
+import io.appium.java_client.MobileBy;
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+
+public class ScrollSearchTest {
+
+    private static final int ROWS_PER_SCREEN = 5;
+
+    /**
+     * A list of cities that shows five rows per screen and stops moving after the last one.
+     */
+    private static class FakeList {
+        private final int size;
+        private int firstRow = 0;
+        private int pageSourceCalls = 0;
+
+        FakeList(int size) {
+            this.size = size;
+        }
+
+        String pageSource() {
+            pageSourceCalls++;
+            StringBuilder xml = new StringBuilder("<hierarchy><androidx.recyclerview.widget.RecyclerView "
+                    + "class=\"androidx.recyclerview.widget.RecyclerView\" bounds=\"[0,0][1080,1000]\">");
+            for (int row = firstRow; row < Math.min(size, firstRow + ROWS_PER_SCREEN); row++) {
+                int top = (row - firstRow) * 200;
+                xml.append("<android.widget.TextView class=\"android.widget.TextView\" text=\"CITY ").append(row)
+                        .append("\" bounds=\"[0,").append(top).append("][1080,").append(top + 200).append("]\"/>");
+            }
+            return xml.append("</androidx.recyclerview.widget.RecyclerView></hierarchy>").toString();
+        }
+
+        void swipe() {
+            firstRow = Math.min(Math.max(0, size - ROWS_PER_SCREEN), firstRow + ROWS_PER_SCREEN - 1);
+        }
+    }
+
+    private ScrollSearch searchIn(FakeList list) {
+        return new ScrollSearch(new SnapshotLocatorEngine(list::pageSource, null), list::swipe);
+    }
+
+    @Test
+    public void findsAnElementFurtherDownTheList() {
+        FakeList list = new FakeList(40);
+        ScrollSearch.Result result = searchIn(list).search(By.xpath("//android.widget.TextView[@text='CITY 13']"));
+
+        Assert.assertTrue(result.isFound());
+        Assert.assertEquals(result.getSwipes(), 3);
+        Assert.assertEquals(result.getElement().getText(), "CITY 13");
+        Assert.assertEquals(list.pageSourceCalls, 4);
+    }
+
+    @Test
+    public void stopsAtTheEndOfTheListWhenTheElementIsAbsent() {
+        FakeList list = new FakeList(12);
+        ScrollSearch.Result result = searchIn(list).search(By.xpath("//*[@text='ATLANTIS']"));
+
+        Assert.assertFalse(result.isFound());
+        Assert.assertTrue(result.isEndOfList());
+        //two swipes reach the last row, the third one does not move the list any more
+        Assert.assertEquals(result.getSwipes(), 3);
+    }
+
+    @Test
+    public void stopsAfterMaxSwipes() {
+        ScrollSearch.Result result = searchIn(new FakeList(1000)).search(By.xpath("//*[@text='ATLANTIS']"), 5);
+
+        Assert.assertFalse(result.isFound());
+        Assert.assertFalse(result.isEndOfList());
+        Assert.assertEquals(result.getSwipes(), 5);
+    }
+
+    @Test
+    public void locatorsTheSnapshotCanNotEvaluateAreFoundOnTheServer() {
+        FakeList list = new FakeList(40);
+        WebElement city = (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WebElement.class}, (proxy, method, args) -> null);
+        int[] serverLookups = {0};
+        SearchContext server = new SearchContext() {
+            @Override
+            public List<WebElement> findElements(By by) {
+                serverLookups[0]++;
+                return list.firstRow + ROWS_PER_SCREEN > 13 ? Collections.singletonList(city) : Collections.emptyList();
+            }
+
+            @Override
+            public WebElement findElement(By by) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        ScrollSearch.Result result = new ScrollSearch(new SnapshotLocatorEngine(list::pageSource, server), list::swipe)
+                .search(MobileBy.AndroidUIAutomator("new UiSelector().text(\"CITY 13\")"));
+
+        Assert.assertTrue(result.isFound());
+        Assert.assertSame(result.getServerElement(), city);
+        Assert.assertEquals(result.getSwipes(), 3);
+        Assert.assertEquals(serverLookups[0], 4);
+    }
+}
@@ -0,0 +1,100 @@
+package core.utils;
+
+import org.openqa.selenium.TimeoutException;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class SynchronizerTest {
+
+    private final AtomicInteger polls = new AtomicInteger();
+
+    private Synchronizer newSynchronizer(Supplier<String> pageSource, Supplier<Collection<?>> contexts, long timeoutMs) {
+        return new Synchronizer(() -> {
+            polls.incrementAndGet();
+            return pageSource.get();
+        }, () -> ".HomeActivity", contexts, () -> "", timeoutMs);
+    }
+
+    @BeforeMethod
+    public void reset() {
+        polls.set(0);
+        WaitEngine.resetLearnedTimings();
+    }
+
+    @Test
+    public void pageSourceChangeReturnsOnceTheSourceDiffers() {
+        Synchronizer synchronizer = newSynchronizer(() -> polls.get() < 3 ? "<home/>" : "<search/>",
+                Collections::emptyList, 5000);
+
+        long waited = synchronizer.waitForPageSourceChange("<home/>", 3000);
+
+        Assert.assertEquals(polls.get(), 3);
+        Assert.assertTrue(waited < 3000, "waited " + waited + " ms");
+    }
+
+    @Test
+    public void pageSourceChangeTimesOutAfterTheFullTimeout() {
+        Synchronizer synchronizer = newSynchronizer(() -> "<home/>", Collections::emptyList, 300);
+
+        long start = System.currentTimeMillis();
+        Assert.expectThrows(TimeoutException.class, () -> synchronizer.waitForPageSourceChange("<home/>", 3000));
+        Assert.assertTrue(System.currentTimeMillis() - start >= 300);
+    }
+
+    @Test
+    public void timeoutIsNotShortenedByFastEarlierWaits() {
+        Synchronizer fast = newSynchronizer(() -> "<search/>", Collections::emptyList, 5000);
+        for (int i = 0; i < 10; i++) {
+            fast.waitForPageSourceChange("<home/>", 3000);
+        }
+        polls.set(0);
+        //a slow screen elsewhere waits past the 3 s a learned timeout would allow
+        Synchronizer slow = newSynchronizer(() -> polls.get() < 13 ? "<home/>" : "<booking/>",
+                Collections::emptyList, 20000);
+
+        slow.waitForPageSourceChange("<home/>", 3000);
+
+        Assert.assertTrue(polls.get() >= 13);
+        Assert.assertEquals(new WaitEngine().getTimeoutMs("sync:pageSourceChange", 20000), 20000);
+    }
+
+    @Test
+    public void contextWaitMatchesByPrefix() {
+        Synchronizer synchronizer = newSynchronizer(() -> "",
+                () -> polls.incrementAndGet() < 2 ? Collections.singletonList("NATIVE_APP")
+                        : Arrays.asList("NATIVE_APP", "WEBVIEW_com.zoomcar.debug"), 5000);
+
+        synchronizer.waitForContext("WEBVIEW", 5000);
+
+        Assert.assertEquals(polls.get(), 2);
+        Assert.expectThrows(TimeoutException.class, () -> newSynchronizer(() -> "",
+                () -> Collections.singletonList("NATIVE_APP"), 200).waitForContext("WEBVIEW", 5000));
+    }
+
+    @Test
+    public void uiIdleGivesUpQuietly() {
+        Synchronizer synchronizer = newSynchronizer(() -> "<frame " + polls.get() + "/>", Collections::emptyList, 200);
+
+        synchronizer.waitForUiIdle(1000);
+
+        Assert.assertTrue(polls.get() > 1);
+    }
+
+    @Test
+    public void sumsReceivedAndSentBytesExceptLoopback() {
+        String procNetDev = "Inter-|   Receive                                                |  Transmit\n"
+                + " face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets errs drop fifo colls carrier compressed\n"
+                + "    lo:    5000      50    0    0    0     0          0         0     5000      50    0    0    0     0       0          0\n"
+                + " wlan0:  120000     300    0    0    0     0          0         0    30000     200    0    0    0     0       0          0\n"
+                + " rmnet0:     100       1    0    0    0     0          0         0      200       2    0    0    0     0       0          0\n";
+
+        Assert.assertEquals(Synchronizer.parseNetworkBytes(procNetDev), 150300);
+    }
+}
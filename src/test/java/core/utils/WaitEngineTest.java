@@ -0,0 +1,59 @@
+package core.utils;
+
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.TimeoutException;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WaitEngineTest {
+
+    private final WaitEngine waitEngine = new WaitEngine();
+
+    @BeforeMethod
+    public void resetTimings() {
+        WaitEngine.resetLearnedTimings();
+    }
+
+    @Test
+    public void returnsAsSoonAsConditionHolds() {
+        AtomicInteger polls = new AtomicInteger();
+        String value = waitEngine.until("By.id: button", () -> {
+            if (polls.incrementAndGet() < 3) {
+                throw new NoSuchElementException("not yet");
+            }
+            return "found";
+        }, 5000);
+
+        Assert.assertEquals(value, "found");
+        Assert.assertEquals(polls.get(), 3);
+    }
+
+    @Test(expectedExceptions = TimeoutException.class)
+    public void timesOutWhenConditionNeverHolds() {
+        waitEngine.until("By.id: missing", () -> false, 200);
+    }
+
+    @Test
+    public void learnedTimeoutShrinksForFastLocators() {
+        for (int i = 0; i < 5; i++) {
+            waitEngine.until("By.id: fast", () -> true, 20000);
+        }
+
+        Assert.assertTrue(waitEngine.getTimeoutMs("By.id: fast", 20000) < 20000);
+        Assert.assertEquals(waitEngine.getTimeoutMs("By.id: unknown", 20000), 20000);
+    }
+
+    @Test
+    public void checkDoesNotWait() {
+        long start = System.currentTimeMillis();
+        boolean displayed = waitEngine.check(() -> {
+            throw new NoSuchElementException("absent");
+        });
+
+        Assert.assertFalse(displayed);
+        Assert.assertTrue(System.currentTimeMillis() - start < 100);
+    }
+}
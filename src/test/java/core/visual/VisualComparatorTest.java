@@ -0,0 +1,138 @@
+package core.visual;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+public class VisualComparatorTest {
+
+    private final VisualComparator comparator = new VisualComparator(64, 0.1, 0.002);
+
+    private static BufferedImage screen(int width, int height, String clock) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(new Color(0x10, 0xa3, 0x5a));
+        graphics.fillRect(0, 0, width, 80);
+        graphics.setColor(Color.BLACK);
+        graphics.drawString(clock, 20, 50);
+        for (int y = 200; y < height - 100; y += 120) {
+            graphics.setColor(new Color(0xee, 0xee, 0xee));
+            graphics.fillRoundRect(40, y, width - 80, 100, 16, 16);
+            graphics.setColor(Color.DARK_GRAY);
+            graphics.drawString("BANGALORE " + y, 80, y + 55);
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        copy.setData(image.getData());
+        return copy;
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void subtleNoiseMatchesButAChangedBlockDoesNot() {
+        BufferedImage expected = screen(720, 1280, "10:00");
+        BufferedImage noisy = copy(expected);
+        for (int y = 0; y < noisy.getHeight(); y += 3) {
+            for (int x = 0; x < noisy.getWidth(); x += 5) {
+                int rgb = noisy.getRGB(x, y);
+                noisy.setRGB(x, y, rgb ^ 0x020202);
+            }
+        }
+        Assert.assertTrue(comparator.compare(expected, noisy, Collections.emptyList(), false).isMatch());
+
+        BufferedImage changed = copy(expected);
+        Graphics2D graphics = changed.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(70, 650, 40, 40);
+        graphics.dispose();
+        VisualDiff diff = comparator.compare(expected, changed, Collections.emptyList(), true);
+
+        Assert.assertFalse(diff.isMatch());
+        Assert.assertEquals(diff.getDifferentPixels(), 1600);
+        Assert.assertEquals(diff.getMismatchedTiles(), Collections.singletonList(new Rectangle(64, 640, 64, 64)));
+        Assert.assertEquals(diff.getDiffImage().getRGB(90, 670), 0xffff0000);
+        Assert.assertNotEquals(diff.getDiffImage().getRGB(300, 300), 0xffff0000);
+    }
+
+    @Test
+    public void maskedRegionsAreIgnored() {
+        BufferedImage expected = screen(720, 1280, "10:00");
+        BufferedImage later = screen(720, 1280, "10:59");
+        List<Rectangle> statusBar = Collections.singletonList(new Rectangle(0, 0, Integer.MAX_VALUE, 100));
+
+        Assert.assertFalse(comparator.compare(expected, later, Collections.emptyList(), false).isMatch());
+        VisualDiff diff = comparator.compare(expected, later, statusBar, true);
+        Assert.assertTrue(diff.isMatch(), diff.toString());
+        Assert.assertEquals(diff.getMaskedTiles(), 12);
+    }
+
+    @Test
+    public void differentSizesNeverMatch() {
+        VisualDiff diff = comparator.compare(screen(720, 1280, "10:00"), screen(1080, 2400, "10:00"),
+                Collections.emptyList(), true);
+
+        Assert.assertFalse(diff.isMatch());
+        Assert.assertTrue(diff.toString().contains("expected 720x1280 but was 1080x2400"));
+    }
+
+    @Test
+    public void baselinesAreRecordedThenCompared() throws IOException {
+        Path root = Files.createTempDirectory("visual");
+        VisualBaselines baselines = new VisualBaselines(root.resolve("baselines"), root.resolve("diffs"), comparator,
+                true);
+        byte[] home = png(screen(720, 1280, "10:00"));
+
+        Assert.assertTrue(baselines.verify("HomePage", home, Collections.emptyList()).isMatch());
+        Assert.assertTrue(Files.exists(root.resolve("baselines/HomePage.png")));
+        VisualDiff same = baselines.verify("HomePage", png(screen(720, 1280, "10:00")), Collections.emptyList());
+        Assert.assertTrue(same.isMatch());
+        Assert.assertNull(same.getDiffImage());
+
+        BufferedImage changed = screen(720, 1280, "10:00");
+        Graphics2D graphics = changed.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(40, 560, 200, 100);
+        graphics.dispose();
+        VisualDiff different = baselines.verify("HomePage", png(changed), Collections.emptyList());
+        Assert.assertFalse(different.isMatch());
+        Assert.assertNotNull(different.getDiffImage());
+        Assert.assertTrue(Files.exists(root.resolve("diffs/HomePage-diff.png")));
+        Assert.assertTrue(Files.exists(root.resolve("diffs/HomePage-actual.png")));
+    }
+
+    @Test
+    public void missingBaselinesFailUnlessRecording() throws IOException {
+        Path root = Files.createTempDirectory("visual");
+        VisualBaselines baselines = new VisualBaselines(root.resolve("baselines"), root.resolve("diffs"), comparator,
+                false);
+
+        VisualDiff diff = baselines.verify("HomePage", png(screen(720, 1280, "10:00")), Collections.emptyList());
+
+        Assert.assertFalse(diff.isMatch());
+        Assert.assertTrue(diff.toString().contains("no baseline"), diff.toString());
+        Assert.assertFalse(Files.exists(root.resolve("baselines/HomePage.png")));
+        Assert.assertTrue(Files.exists(root.resolve("diffs/HomePage-actual.png")));
+    }
+}